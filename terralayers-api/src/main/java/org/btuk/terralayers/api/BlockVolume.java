@@ -0,0 +1,143 @@
+package org.btuk.terralayers.api;
+
+import org.bukkit.block.data.BlockData;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable, palette-encoded cuboid of blocks in global coordinates.
+ * <p>
+ * Each block is stored as an index into the palette of distinct block data in the volume,
+ * in y, z, x order with x varying fastest.
+ */
+public final class BlockVolume {
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final List<BlockData> palette;
+    private final short[] indices;
+
+    /**
+     * Creates a new volume. The index array is not copied and must not be modified afterwards.
+     *
+     * @param minX    the minimum global x (inclusive)
+     * @param minY    the minimum global y (inclusive)
+     * @param minZ    the minimum global z (inclusive)
+     * @param sizeX   the size along the x-axis
+     * @param sizeY   the size along the y-axis
+     * @param sizeZ   the size along the z-axis
+     * @param palette the distinct block data, at most 65536 entries
+     * @param indices the palette index of each block, read as unsigned
+     */
+    public BlockVolume(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, List<BlockData> palette, short[] indices) {
+        if (sizeX <= 0 || sizeY <= 0 || sizeZ <= 0) {
+            throw new IllegalArgumentException("sizes must be positive");
+        }
+        if ((long) sizeX * sizeY * sizeZ != indices.length) {
+            throw new IllegalArgumentException("indices must contain one entry per block");
+        }
+        if (palette.size() > 65536) {
+            throw new IllegalArgumentException("palette cannot contain more than 65536 entries");
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.palette = List.copyOf(palette);
+        this.indices = Objects.requireNonNull(indices, "indices");
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMinZ() {
+        return minZ;
+    }
+
+    /**
+     * The maximum global x (inclusive).
+     */
+    public int getMaxX() {
+        return minX + sizeX - 1;
+    }
+
+    /**
+     * The maximum global y (inclusive).
+     */
+    public int getMaxY() {
+        return minY + sizeY - 1;
+    }
+
+    /**
+     * The maximum global z (inclusive).
+     */
+    public int getMaxZ() {
+        return minZ + sizeZ - 1;
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getSizeZ() {
+        return sizeZ;
+    }
+
+    /**
+     * The number of blocks in this volume.
+     */
+    public int getVolume() {
+        return indices.length;
+    }
+
+    /**
+     * The distinct block data in this volume, indexed by palette index.
+     */
+    public List<BlockData> getPalette() {
+        return palette;
+    }
+
+    /**
+     * Whether the given global position is inside this volume.
+     */
+    public boolean contains(int x, int y, int z) {
+        return x >= minX && x - minX < sizeX && y >= minY && y - minY < sizeY && z >= minZ && z - minZ < sizeZ;
+    }
+
+    /**
+     * Gets the palette index of the block at the given global position.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside this volume
+     */
+    public int getPaletteIndex(int x, int y, int z) {
+        if (!contains(x, y, z)) {
+            throw new IndexOutOfBoundsException("Position " + x + ", " + y + ", " + z + " is outside the volume");
+        }
+        return indices[((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX)] & 0xFFFF;
+    }
+
+    /**
+     * Gets the block data at the given global position.
+     *
+     * @throws IndexOutOfBoundsException if the position is outside this volume
+     */
+    public BlockData getBlockData(int x, int y, int z) {
+        return palette.get(getPaletteIndex(x, y, z));
+    }
+}
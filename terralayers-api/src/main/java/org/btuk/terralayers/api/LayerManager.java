@@ -1,9 +1,11 @@
 package org.btuk.terralayers.api;
 
 import org.bukkit.World;
+import org.bukkit.entity.Player;
 
-import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Provides information about the configured layered worlds and basic queries.
@@ -11,8 +13,50 @@ import java.util.Optional;
 public interface LayerManager {
     /**
      * All configured layers in ascending order by global Y minimum.
+     * The returned list is immutable.
      */
-    Collection<LayeredWorld> getLayers();
+    List<LayeredWorld> getLayers();
+
+    /**
+     * The number of configured layers.
+     */
+    int getLayerCount();
+
+    /**
+     * Gets the layer at the given index, where index 0 is the lowest layer.
+     *
+     * @param index the layer index
+     * @return the layer, or empty if the index is out of range
+     */
+    Optional<LayeredWorld> getLayer(int index);
+
+    /**
+     * The layers that are ready, in ascending order by global Y minimum.
+     * All configured layers are registered on startup, each layer becomes ready once its world has loaded.
+     *
+     * @see LayeredWorld#isReady()
+     */
+    default List<LayeredWorld> getReadyLayers() {
+        return getLayers().stream().filter(LayeredWorld::isReady).toList();
+    }
+
+    /**
+     * Whether the layer at the given index is ready.
+     *
+     * @param index the layer index
+     * @return whether the layer is ready, false if the index is out of range
+     */
+    default boolean isLayerReady(int index) {
+        return getLayer(index).map(LayeredWorld::isReady).orElse(false);
+    }
+
+    /**
+     * Gets the index of the layer that covers the provided global Y coordinate.
+     *
+     * @param globalY the y-level to get the layer index for
+     * @return the layer index, or -1 if no layer covers the y-level
+     */
+    int getLayerIndex(double globalY);
 
     /**
      * Finds the layer that covers the provided global Y coordinate.
@@ -28,6 +72,200 @@ public interface LayerManager {
      */
     LayeredWorld getLayerForWorld(World world);
 
+    /**
+     * Gets the layer directly above the given layer.
+     *
+     * @param layer the layer
+     * @return the layer above, or empty if the given layer is the highest or not managed by this manager
+     */
+    Optional<LayeredWorld> getLayerAbove(LayeredWorld layer);
+
+    /**
+     * Gets the layer directly below the given layer.
+     *
+     * @param layer the layer
+     * @return the layer below, or empty if the given layer is the lowest or not managed by this manager
+     */
+    Optional<LayeredWorld> getLayerBelow(LayeredWorld layer);
+
+    /**
+     * Loads the world of the given layer if it is not loaded yet.
+     * Layer worlds may be loaded on demand, use this before accessing the world of a layer that may not be loaded.
+     * Can be called from any thread, the future is completed on the main thread.
+     *
+     * @param layer the layer
+     * @return a future completing with the loaded world, or exceptionally if the layer is not ready and its world
+     * cannot be loaded on demand
+     */
+    CompletableFuture<World> loadLayer(LayeredWorld layer);
+
+    /**
+     * Reads the blocks of a global cuboid across all layers it spans.
+     * The y-range is limited to the range covered by the layers. Unloaded layers and chunks are loaded as needed,
+     * the chunks are read from snapshots and the volume is encoded off the main thread.
+     * Can be called from any thread, the future is completed on an asynchronous thread.
+     *
+     * @param minX the minimum global x (inclusive)
+     * @param minY the minimum global y (inclusive)
+     * @param minZ the minimum global z (inclusive)
+     * @param maxX the maximum global x (inclusive)
+     * @param maxY the maximum global y (inclusive)
+     * @param maxZ the maximum global z (inclusive)
+     * @return a future completing with the blocks, or exceptionally if the cuboid is empty, too large or
+     * outside the layers
+     */
+    CompletableFuture<BlockVolume> readBlocks(int minX, int minY, int minZ, int maxX, int maxY, int maxZ);
+
+    /**
+     * Reads the full column of blocks at a global x and z, from {@link #getGlobalMin()} to {@link #getGlobalMax()}.
+     *
+     * @see #readBlocks(int, int, int, int, int, int)
+     */
+    default CompletableFuture<BlockVolume> readColumn(int x, int z) {
+        return readBlocks(x, getGlobalMin(), z, x, getGlobalMax() - 1, z);
+    }
+
+    /**
+     * Finds the online players within a distance of a global position, across all layers.
+     * Can be called from any thread, the positions are those last recorded as the players moved.
+     * The cost depends on the number of players near the position, not on the number of players online.
+     *
+     * @param x       the x coordinate
+     * @param globalY the global y-level
+     * @param z       the z coordinate
+     * @param radius  the distance in blocks
+     * @return a new list of the players, in no particular order
+     */
+    List<Player> getPlayersNear(double x, double globalY, double z, double radius);
+
+    /**
+     * Finds the online players inside a global box, across all layers.
+     * Can be called from any thread, the positions are those last recorded as the players moved.
+     *
+     * @param minX the minimum x (inclusive)
+     * @param minY the minimum global y (inclusive)
+     * @param minZ the minimum z (inclusive)
+     * @param maxX the maximum x (inclusive)
+     * @param maxY the maximum global y (inclusive)
+     * @param maxZ the maximum z (inclusive)
+     * @return a new list of the players, in no particular order
+     * @see #getPlayersNear(double, double, double, double)
+     */
+    List<Player> getPlayersWithin(double minX, double minY, double minZ, double maxX, double maxY, double maxZ);
+
+    /**
+     * Converts a global y-level to the local y-level in the world of the layer covering it.
+     * Can be called from any thread.
+     *
+     * @param globalY the global y-level
+     * @return the local y-level, or {@link Double#NaN} if no layer covers the y-level
+     */
+    double toLocalY(double globalY);
+
+    /**
+     * Converts a local y-level in the world of a layer to a global y-level.
+     * Can be called from any thread.
+     *
+     * @param layerIndex the layer index
+     * @param localY     the local y-level
+     * @return the global y-level, or {@link Double#NaN} if the layer index is out of range
+     */
+    double toGlobalY(int layerIndex, double localY);
+
+    /**
+     * Converts global y-levels to layer indices and local y-levels, without allocating.
+     * Can be called from any thread, all values are converted with the same layer configuration.
+     * Global y-levels that no layer covers get layer index -1 and local y-level {@link Double#NaN}.
+     * The output may be the input array, as each value is read before it is written.
+     *
+     * @param globalYs     the global y-levels
+     * @param offset       the index of the first global y-level
+     * @param length       the number of y-levels to convert
+     * @param layerIndices receives the layer index of each y-level, starting at {@code outOffset}
+     * @param localYs      receives the local y-level of each y-level, starting at {@code outOffset}
+     * @param outOffset    the index of the first output value
+     * @throws IndexOutOfBoundsException if a range is outside its array
+     */
+    void toLocal(double[] globalYs, int offset, int length, int[] layerIndices, double[] localYs, int outOffset);
+
+    /**
+     * Converts global block y-levels to layer indices and local block y-levels, without allocating.
+     * Global y-levels that no layer covers get layer index -1 and local y-level 0.
+     *
+     * @see #toLocal(double[], int, int, int[], double[], int)
+     */
+    void toLocal(int[] globalYs, int offset, int length, int[] layerIndices, int[] localYs, int outOffset);
+
+    /**
+     * Converts layer indices and local y-levels to global y-levels, without allocating.
+     * Can be called from any thread, all values are converted with the same layer configuration.
+     * Layer indices out of range, such as -1, give {@link Double#NaN}.
+     *
+     * @param layerIndices the layer indices
+     * @param localYs      the local y-levels
+     * @param offset       the index of the first value to convert in both input arrays
+     * @param length       the number of values to convert
+     * @param globalYs     receives the global y-levels, starting at {@code outOffset}
+     * @param outOffset    the index of the first output value
+     * @throws IndexOutOfBoundsException if a range is outside its array
+     */
+    void toGlobal(int[] layerIndices, double[] localYs, int offset, int length, double[] globalYs, int outOffset);
+
+    /**
+     * Converts layer indices and local block y-levels to global block y-levels, without allocating.
+     * Layer indices out of range, such as -1, give {@link Integer#MIN_VALUE}.
+     *
+     * @see #toGlobal(int[], double[], int, int, double[], int)
+     */
+    void toGlobal(int[] layerIndices, int[] localYs, int offset, int length, int[] globalYs, int outOffset);
+
+    /**
+     * Converts global block y-levels to layer indices and local block y-levels packed in a single long,
+     * see {@link #pack(int, int)}. Global y-levels that no layer covers are packed as layer index -1 and local y-level 0.
+     *
+     * @see #toLocal(double[], int, int, int[], double[], int)
+     */
+    void toLocalPacked(int[] globalYs, int offset, int length, long[] packed, int outOffset);
+
+    /**
+     * Converts packed layer indices and local block y-levels to global block y-levels.
+     * Layer indices out of range, such as -1, give {@link Integer#MIN_VALUE}.
+     *
+     * @see #toGlobal(int[], double[], int, int, double[], int)
+     */
+    void toGlobalPacked(long[] packed, int offset, int length, int[] globalYs, int outOffset);
+
+    /**
+     * Packs a layer index and a local block y-level in a long, the layer index in the upper 32 bits.
+     */
+    static long pack(int layerIndex, int localY) {
+        return (long) layerIndex << 32 | (localY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the layer index of a packed value.
+     */
+    static int unpackLayerIndex(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Gets the local block y-level of a packed value.
+     */
+    static int unpackLocalY(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * The minimum global Y (inclusive) covered by the layers.
+     */
+    int getGlobalMin();
+
+    /**
+     * The maximum global Y (exclusive) covered by the layers.
+     */
+    int getGlobalMax();
+
     /**
      * The configured world height per layer.
      */
@@ -8,9 +8,26 @@ import org.bukkit.World;
 public interface LayeredWorld {
     /**
      * Bukkit world backing this layer.
+     *
+     * @return the world, or null if the world is not loaded
      */
     World getWorld();
 
+    /**
+     * Whether the world backing this layer is loaded.
+     */
+    default boolean isLoaded() {
+        return getWorld() != null;
+    }
+
+    /**
+     * Whether players can enter this layer.
+     * Layers are registered before their worlds have loaded, a layer is ready once its world is loaded.
+     */
+    default boolean isReady() {
+        return isLoaded();
+    }
+
     /**
      * Name of this layer/world.
      */
@@ -0,0 +1,57 @@
+package org.btuk.terralayers.benchmarks;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.impl.SimpleLayerManager;
+import org.btuk.terralayers.plugin.impl.SimpleLayeredWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layer setup shared by the benchmarks, using the default world height and buffer size.
+ */
+final class BenchmarkLayers {
+
+    static final int WORLD_HEIGHT = 1024;
+    static final int BUFFER_SIZE = 256;
+
+    private final SimpleLayerManager layerManager;
+    private final int globalMin;
+
+    private BenchmarkLayers(SimpleLayerManager layerManager, int globalMin) {
+        this.layerManager = layerManager;
+        this.globalMin = globalMin;
+    }
+
+    /**
+     * Creates a layer manager with the given number of layers, centred around y=0.
+     *
+     * @param layerCount the number of layers
+     */
+    static BenchmarkLayers create(int layerCount) {
+        int globalMin = -(layerCount / 2) * WORLD_HEIGHT;
+        List<LayeredWorld> layers = new ArrayList<>();
+        for (int i = 0; i < layerCount; i++) {
+            int minY = globalMin + i * WORLD_HEIGHT;
+            String name = "earth_" + minY + "_" + (minY + WORLD_HEIGHT);
+            layers.add(new SimpleLayeredWorld(Stubs.world(name), minY, minY + WORLD_HEIGHT, BUFFER_SIZE));
+        }
+
+        // The plugin is only used to log and look up worlds when loading from the config.
+        SimpleLayerManager layerManager = new SimpleLayerManager(null, WORLD_HEIGHT, BUFFER_SIZE);
+        layerManager.setLayers(globalMin, layers);
+        return new BenchmarkLayers(layerManager, globalMin);
+    }
+
+    SimpleLayerManager getLayerManager() {
+        return layerManager;
+    }
+
+    int getGlobalMin() {
+        return globalMin;
+    }
+
+    int getGlobalMax() {
+        return globalMin + layerManager.getLayerCount() * WORLD_HEIGHT;
+    }
+}
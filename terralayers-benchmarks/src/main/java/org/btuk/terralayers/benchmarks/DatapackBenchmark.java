@@ -0,0 +1,81 @@
+package org.btuk.terralayers.benchmarks;
+
+import org.btuk.terralayers.datapack.Datapack;
+import org.btuk.terralayers.datapack.SaveResult;
+import org.btuk.terralayers.datapack.compatability.PackVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Loading and saving of the TerraLayers datapack, as done on startup and during init.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatapackBenchmark {
+
+    private static final String DATAPACK_NAME = "TerraLayers";
+    private static final String MINECRAFT_VERSION = "1.21.11";
+
+    private final Logger logger = Logger.getLogger("TerraLayersBenchmark");
+
+    private Path datapacks;
+    private Datapack datapack;
+
+    @Setup
+    public void setup() throws IOException {
+        datapacks = Files.createTempDirectory("terralayers-datapacks");
+        datapack = new Datapack(logger, DATAPACK_NAME, MINECRAFT_VERSION, -BenchmarkLayers.BUFFER_SIZE,
+                BenchmarkLayers.WORLD_HEIGHT + 2 * BenchmarkLayers.BUFFER_SIZE);
+        if (!datapack.saveToDisk(datapacks).isSuccess()) {
+            throw new IllegalStateException("Failed to save the datapack to " + datapacks);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(datapacks)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public Datapack load() {
+        return new Datapack(logger, DATAPACK_NAME, datapacks);
+    }
+
+    /**
+     * Saving a datapack that is already on disk, which only compares the contents.
+     */
+    @Benchmark
+    public SaveResult save() {
+        return datapack.saveToDisk(datapacks);
+    }
+
+    @Benchmark
+    public String packVersion() {
+        return PackVersion.getPackVersion(MINECRAFT_VERSION);
+    }
+}
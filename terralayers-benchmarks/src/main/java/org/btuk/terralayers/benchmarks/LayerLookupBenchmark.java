@@ -0,0 +1,99 @@
+package org.btuk.terralayers.benchmarks;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.impl.SimpleLayerManager;
+import org.bukkit.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layer lookups by global y-level and by world, as done for every layer change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayerLookupBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    @Param({"5", "20", "100"})
+    public int layerCount;
+
+    private SimpleLayerManager layerManager;
+    private double[] globalYs;
+    private World[] worlds;
+    private int[] blockYs;
+    private int[] layerIndices;
+    private int[] localYs;
+    private long[] packed;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkLayers layers = BenchmarkLayers.create(layerCount);
+        layerManager = layers.getLayerManager();
+
+        Random random = new Random(42);
+        List<LayeredWorld> layeredWorlds = layerManager.getLayers();
+        globalYs = new double[SAMPLES];
+        worlds = new World[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            globalYs[i] = layers.getGlobalMin() + random.nextDouble() * (layers.getGlobalMax() - layers.getGlobalMin());
+            worlds[i] = layeredWorlds.get(random.nextInt(layeredWorlds.size())).getWorld();
+        }
+        blockYs = new int[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            blockYs[i] = (int) Math.floor(globalYs[i]);
+        }
+        layerIndices = new int[SAMPLES];
+        localYs = new int[SAMPLES];
+        packed = new long[SAMPLES];
+    }
+
+    @Benchmark
+    public Optional<LayeredWorld> getLayerForGlobalY() {
+        return layerManager.getLayerForGlobalY(globalYs[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public int getLayerIndex() {
+        return layerManager.getLayerIndex(globalYs[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public LayeredWorld getLayerForWorld() {
+        return layerManager.getLayerForWorld(worlds[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int[] toLocalBulk() {
+        layerManager.toLocal(blockYs, 0, SAMPLES, layerIndices, localYs, 0);
+        return localYs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public long[] toLocalPacked() {
+        layerManager.toLocalPacked(blockYs, 0, SAMPLES, packed, 0);
+        return packed;
+    }
+}
@@ -0,0 +1,85 @@
+package org.btuk.terralayers.benchmarks;
+
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Minimal stand-ins for the Bukkit types used on the benchmarked paths.
+ * <p>
+ * Only the methods listed per stub return a value, all other methods return the default value of their return type.
+ */
+final class Stubs {
+
+    private Stubs() {}
+
+    static World world(String name) {
+        return proxy(World.class, name, Map.of(
+                "getName", args -> name
+        ));
+    }
+
+    static Player player(UUID uuid, String name) {
+        PersistentDataContainer container = proxy(PersistentDataContainer.class, "pdc", Map.of(
+                "getOrDefault", args -> args[2]
+        ));
+        return proxy(Player.class, name, Map.of(
+                "getUniqueId", args -> uuid,
+                "getName", args -> name,
+                "isOnline", args -> true,
+                "getPersistentDataContainer", args -> container
+        ));
+    }
+
+    static Plugin plugin(String name) {
+        return proxy(Plugin.class, name, Map.of(
+                "getName", args -> name
+        ));
+    }
+
+    private static <T> T proxy(Class<T> type, String name, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return type.getSimpleName() + "[" + name + "]";
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer != null) {
+                return answer.apply(args);
+            }
+            return defaultValue(method.getReturnType());
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        }
+        return 0d;
+    }
+}
@@ -0,0 +1,125 @@
+package org.btuk.terralayers.benchmarks;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.hud.GlobalYHud;
+import org.btuk.terralayers.plugin.impl.ChunkTickets;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
+import org.btuk.terralayers.plugin.prefetch.LayerPrefetcher;
+import org.btuk.terralayers.plugin.presence.PresenceMirror;
+import org.btuk.terralayers.plugin.transition.LayerSwitcher;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The layer switch decision for a stream of move events of a single player.
+ * <p>
+ * The stream is a simulated flight where a fraction of the events cross a teleport threshold into the next layer.
+ * Of the other events, most stay on the same block y-level and some move one block up or down.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwitchLayerBenchmark {
+
+    private static final int SAMPLES = 4096;
+    private static final double BLOCK_CHANGE_FRACTION = 0.125;
+
+    @Param({"5", "20", "100"})
+    public int layerCount;
+
+    @Param({"0.0", "0.01", "0.1"})
+    public double crossingFraction;
+
+    private LayerSwitcher layerSwitcher;
+    private PlayerMoveEvent event;
+    private Location to;
+
+    private World[] worlds;
+    private double[] ys;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkLayers layers = BenchmarkLayers.create(layerCount);
+        GlobalYHud hud = new GlobalYHud(Stubs.plugin("TerraLayers"), true);
+        // Prefetching and presence need a running server, they are disabled so only the decision itself is measured.
+        LayerPrefetcher prefetcher = new LayerPrefetcher(Stubs.plugin("TerraLayers"), layers.getLayerManager(),
+                new ChunkTickets(Stubs.plugin("TerraLayers")), false, 0, 1);
+        PresenceMirror presence = new PresenceMirror(Stubs.plugin("TerraLayers"), layers.getLayerManager(), null, false, 1);
+        layerSwitcher = new LayerSwitcher(Logger.getLogger("TerraLayersBenchmark"), layers.getLayerManager(), hud, new TerraLayersMetrics(), prefetcher, presence,
+                layers.getLayerManager().getPlayerIndex());
+
+        createMoves(layers.getLayerManager().getLayers());
+
+        Player player = Stubs.player(UUID.randomUUID(), "Builder");
+        Location from = new Location(worlds[0], 0, ys[0], 0);
+        to = from.clone();
+        event = new PlayerMoveEvent(player, from, to);
+    }
+
+    private void createMoves(List<LayeredWorld> layers) {
+        Random random = new Random(42);
+        worlds = new World[SAMPLES];
+        ys = new double[SAMPLES];
+
+        int layer = layers.size() / 2;
+        int blockY = BenchmarkLayers.WORLD_HEIGHT / 2;
+        boolean up = true;
+        for (int i = 0; i < SAMPLES; i++) {
+            LayeredWorld current = layers.get(layer);
+            worlds[i] = current.getWorld();
+            if (random.nextDouble() < crossingFraction) {
+                // Cross the threshold, the next event continues in the layer the player was moved to.
+                if (layer == layers.size() - 1) {
+                    up = false;
+                } else if (layer == 0) {
+                    up = true;
+                }
+                int thresholdY = up ? current.getTeleportMaxY() + 1 : current.getTeleportMinY() - 1;
+                ys[i] = thresholdY - current.getMinY() + 0.5;
+                layer += up ? 1 : -1;
+                blockY = thresholdY - layers.get(layer).getMinY();
+            } else {
+                if (random.nextDouble() < BLOCK_CHANGE_FRACTION) {
+                    blockY += random.nextBoolean() ? 1 : -1;
+                }
+                ys[i] = blockY + random.nextDouble();
+            }
+        }
+    }
+
+    @Benchmark
+    public Location switchLayer() {
+        int i = next++ & (SAMPLES - 1);
+        if (to.getWorld() != worlds[i]) {
+            to.setWorld(worlds[i]);
+        }
+        to.setY(ys[i]);
+        event.setTo(to);
+        event.setCancelled(false);
+        layerSwitcher.handleMove(event);
+        return event.getTo();
+    }
+}
@@ -0,0 +1,212 @@
+package org.btuk.terralayers.converter;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+import org.btuk.terralayers.converter.nbt.ListTag;
+import org.btuk.terralayers.converter.nbt.NbtIO;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Merges the chunks of the layer worlds into the chunks of a single tall world.
+ * <p>
+ * Only the sections of a layer itself are kept, the buffer sections are copies of the adjacent layers and are dropped.
+ * Section, block entity, tick and entity positions are shifted from the local y-levels of the layer to output y-levels.
+ */
+final class ChunkMerger {
+
+    private static final Set<String> AIR = Set.of("minecraft:air", "minecraft:cave_air", "minecraft:void_air");
+    private static final String[] POSITIONED_LISTS = {"block_entities", "block_ticks", "fluid_ticks"};
+    private static final String[] DROPPED_KEYS = {"Heightmaps", "PostProcessing", "Lights", "CarvingMasks", "blending_data", "structures"};
+
+    private final LayerLayout layout;
+    private final int yOffset;
+    private final ExportFormat format;
+
+    /**
+     * A chunk of the output while it is being merged.
+     */
+    static final class MergedChunk {
+        private CompoundTag base;
+        private ListTag sections;
+        private ListTag entities;
+        private final ListTag[] positioned = new ListTag[POSITIONED_LISTS.length];
+        private CompoundTag entityBase;
+    }
+
+    /**
+     * @param layout  the layer layout
+     * @param yOffset the offset subtracted from global y-levels to get the y-levels of the output, a multiple of 16
+     * @param format  the output format
+     */
+    ChunkMerger(LayerLayout layout, int yOffset, ExportFormat format) {
+        if (yOffset % 16 != 0) {
+            throw new IllegalArgumentException("y-offset must be a multiple of 16");
+        }
+        if (format == ExportFormat.ANVIL) {
+            int minSection = (layout.globalMin() - yOffset) >> 4;
+            int maxSection = ((layout.globalMax() - yOffset) >> 4) - 1;
+            if (minSection < Byte.MIN_VALUE || maxSection > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("The merged world from y " + (layout.globalMin() - yOffset) + " to " + (layout.globalMax() - yOffset)
+                        + " does not fit in an Anvil world (y -2048 to 2047), use --y-offset or --format sections");
+            }
+        }
+        this.layout = layout;
+        this.yOffset = yOffset;
+        this.format = format;
+    }
+
+    /**
+     * Adds the sections of a layer's terrain chunk.
+     *
+     * @param target the merged chunk
+     * @param layer  the layer index
+     * @param chunk  the chunk of the layer world
+     */
+    void addTerrain(MergedChunk target, int layer, CompoundTag chunk) throws IOException {
+        ChunkSplitter.checkVersion(chunk);
+        int shift = layout.getLayerMin(layer) - yOffset;
+        int layerSections = layout.worldHeight() >> 4;
+        if (target.base == null) {
+            target.base = chunk;
+            target.sections = new ListTag(NbtIO.TAG_COMPOUND);
+        }
+
+        ListTag sections = chunk.getList("sections");
+        for (int i = 0; sections != null && i < sections.size(); i++) {
+            CompoundTag section = sections.getCompound(i);
+            int localY = section.getByte("Y", (byte) 0);
+            if (localY < 0 || localY >= layerSections) {
+                continue;
+            }
+            if (format == ExportFormat.SECTIONS && isAir(section)) {
+                continue;
+            }
+            CompoundTag copy = section.shallowCopy();
+            int sectionY = localY + (shift >> 4);
+            copy.put("Y", format == ExportFormat.ANVIL ? (Object) (byte) sectionY : (Object) sectionY);
+            copy.remove("BlockLight");
+            copy.remove("SkyLight");
+            target.sections.add(copy);
+        }
+
+        for (int i = 0; i < POSITIONED_LISTS.length; i++) {
+            ListTag list = chunk.getList(POSITIONED_LISTS[i]);
+            if (list == null) {
+                continue;
+            }
+            if (target.positioned[i] == null) {
+                target.positioned[i] = new ListTag(NbtIO.TAG_COMPOUND);
+            }
+            for (int j = 0; j < list.size(); j++) {
+                CompoundTag entry = list.getCompound(j);
+                if (entry == null || !entry.contains("y")) {
+                    continue;
+                }
+                int localY = entry.getInt("y", 0);
+                if (localY >= 0 && localY < layout.worldHeight()) {
+                    CompoundTag copy = entry.shallowCopy();
+                    copy.put("y", localY + shift);
+                    target.positioned[i].add(copy);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the entities of a layer's entity chunk.
+     *
+     * @param target the merged chunk
+     * @param layer  the layer index
+     * @param chunk  the entity chunk of the layer world
+     */
+    void addEntities(MergedChunk target, int layer, CompoundTag chunk) throws IOException {
+        ChunkSplitter.checkVersion(chunk);
+        if (target.entityBase == null) {
+            target.entityBase = chunk;
+            target.entities = new ListTag(NbtIO.TAG_COMPOUND);
+        }
+        ListTag entities = chunk.getList("Entities");
+        int shift = layout.getLayerMin(layer) - yOffset;
+        for (int i = 0; entities != null && i < entities.size(); i++) {
+            CompoundTag entity = entities.getCompound(i);
+            if (entity != null) {
+                target.entities.add(ChunkSplitter.shiftEntity(entity, shift));
+            }
+        }
+    }
+
+    /**
+     * Builds the terrain chunk of the output, or the only chunk for {@link ExportFormat#SECTIONS}.
+     *
+     * @return the chunk, or {@code null} if no layer contained the chunk
+     */
+    CompoundTag finishTerrain(MergedChunk chunk) {
+        if (format == ExportFormat.SECTIONS) {
+            CompoundTag base = chunk.base != null ? chunk.base : chunk.entityBase;
+            if (base == null) {
+                return null;
+            }
+            CompoundTag out = new CompoundTag();
+            copyIfPresent(base, out, "DataVersion");
+            copyIfPresent(base, out, "xPos");
+            copyIfPresent(base, out, "zPos");
+            int[] position = base.getIntArray("Position");
+            if (position != null && position.length == 2) {
+                out.put("xPos", position[0]);
+                out.put("zPos", position[1]);
+            }
+            out.put("sections", chunk.sections != null ? chunk.sections : new ListTag(NbtIO.TAG_COMPOUND));
+            out.put("block_entities", chunk.positioned[0] != null ? chunk.positioned[0] : new ListTag(NbtIO.TAG_COMPOUND));
+            out.put("Entities", chunk.entities != null ? chunk.entities : new ListTag(NbtIO.TAG_COMPOUND));
+            return out;
+        }
+
+        if (chunk.base == null) {
+            return null;
+        }
+        CompoundTag out = chunk.base.shallowCopy();
+        out.put("sections", chunk.sections);
+        out.put("yPos", (layout.globalMin() - yOffset) >> 4);
+        out.put("isLightOn", (byte) 0);
+        for (String key : DROPPED_KEYS) {
+            out.remove(key);
+        }
+        for (int i = 0; i < POSITIONED_LISTS.length; i++) {
+            if (chunk.positioned[i] != null) {
+                out.put(POSITIONED_LISTS[i], chunk.positioned[i]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Builds the entity chunk of the output, only used for {@link ExportFormat#ANVIL}.
+     *
+     * @return the entity chunk, or {@code null} if no layer contained entities for the chunk
+     */
+    CompoundTag finishEntities(MergedChunk chunk) {
+        if (chunk.entityBase == null) {
+            return null;
+        }
+        CompoundTag out = chunk.entityBase.shallowCopy();
+        out.put("Entities", chunk.entities);
+        return out;
+    }
+
+    private static boolean isAir(CompoundTag section) {
+        CompoundTag blockStates = section.getCompound("block_states");
+        if (blockStates == null) {
+            return true;
+        }
+        ListTag palette = blockStates.getList("palette");
+        return palette != null && palette.size() == 1 && palette.getCompound(0) != null
+                && AIR.contains(palette.getCompound(0).getString("Name"));
+    }
+
+    private static void copyIfPresent(CompoundTag from, CompoundTag to, String key) {
+        if (from.contains(key)) {
+            to.put(key, from.get(key));
+        }
+    }
+}
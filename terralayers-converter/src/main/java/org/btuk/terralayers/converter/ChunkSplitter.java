@@ -0,0 +1,194 @@
+package org.btuk.terralayers.converter;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+import org.btuk.terralayers.converter.nbt.ListTag;
+import org.btuk.terralayers.converter.nbt.NbtIO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the chunks of a tall world into the chunks of the layer worlds.
+ * <p>
+ * Sections are moved to every layer whose world contains them, so the buffers of adjacent layers both get a copy.
+ * Section, block entity and tick positions are shifted to the local y-levels of the layer. Heightmaps and light are
+ * dropped and recalculated by the server when the chunk is loaded.
+ */
+final class ChunkSplitter {
+
+    /**
+     * The first data version with the chunk format of 1.18, older chunks have to be upgraded by the game first.
+     */
+    private static final int MIN_DATA_VERSION = 2860;
+
+    private static final String[] POSITIONED_LISTS = {"block_entities", "block_ticks", "fluid_ticks"};
+    private static final String[] DROPPED_KEYS = {"Heightmaps", "PostProcessing", "Lights", "CarvingMasks", "blending_data", "structures"};
+
+    private final LayerLayout layout;
+    private final int yOffset;
+
+    /**
+     * @param layout  the layer layout
+     * @param yOffset the offset added to the y-levels of the input world to get global y-levels, a multiple of 16
+     */
+    ChunkSplitter(LayerLayout layout, int yOffset) {
+        if (yOffset % 16 != 0) {
+            throw new IllegalArgumentException("y-offset must be a multiple of 16");
+        }
+        this.layout = layout;
+        this.yOffset = yOffset;
+    }
+
+    /**
+     * Splits a terrain chunk.
+     *
+     * @param chunk the chunk of the input world
+     * @return the chunk for each layer, {@code null} for layers that do not contain any of its sections
+     * @throws IOException if the chunk format is not supported
+     */
+    CompoundTag[] splitTerrain(CompoundTag chunk) throws IOException {
+        checkVersion(chunk);
+        ListTag sections = chunk.getList("sections");
+        CompoundTag[] result = new CompoundTag[layout.getLayerCount()];
+        if (sections == null) {
+            return result;
+        }
+
+        List<List<Object>> layerSections = new ArrayList<>(result.length);
+        for (int i = 0; i < result.length; i++) {
+            layerSections.add(null);
+        }
+        int sectionOffset = yOffset >> 4;
+        for (int i = 0; i < sections.size(); i++) {
+            CompoundTag section = sections.getCompound(i);
+            int globalSectionY = section.getByte("Y", (byte) 0) + sectionOffset;
+            int last = layout.getLastLayerForSection(globalSectionY);
+            for (int layer = layout.getFirstLayerForSection(globalSectionY); layer <= last; layer++) {
+                CompoundTag copy = section.shallowCopy();
+                copy.put("Y", (byte) (globalSectionY - (layout.getLayerMin(layer) >> 4)));
+                copy.remove("BlockLight");
+                copy.remove("SkyLight");
+                if (layerSections.get(layer) == null) {
+                    layerSections.set(layer, new ArrayList<>());
+                }
+                layerSections.get(layer).add(copy);
+            }
+        }
+
+        for (int layer = 0; layer < result.length; layer++) {
+            if (layerSections.get(layer) == null) {
+                continue;
+            }
+            CompoundTag out = chunk.shallowCopy();
+            out.put("sections", new ListTag(NbtIO.TAG_COMPOUND, layerSections.get(layer)));
+            out.put("yPos", -(layout.bufferSize() >> 4));
+            out.put("isLightOn", (byte) 0);
+            for (String key : DROPPED_KEYS) {
+                out.remove(key);
+            }
+            for (String key : POSITIONED_LISTS) {
+                ListTag list = chunk.getList(key);
+                if (list != null) {
+                    out.put(key, shiftPositions(list, layer));
+                }
+            }
+            result[layer] = out;
+        }
+        return result;
+    }
+
+    /**
+     * Splits an entity chunk. Entities are moved to the layer containing them, they are not copied into the buffers.
+     *
+     * @param chunk the entity chunk of the input world
+     * @return the entity chunk for each layer, {@code null} for layers without entities
+     * @throws IOException if the chunk format is not supported
+     */
+    CompoundTag[] splitEntities(CompoundTag chunk) throws IOException {
+        checkVersion(chunk);
+        ListTag entities = chunk.getList("Entities");
+        CompoundTag[] result = new CompoundTag[layout.getLayerCount()];
+        if (entities == null) {
+            return result;
+        }
+
+        for (int i = 0; i < entities.size(); i++) {
+            CompoundTag entity = entities.getCompound(i);
+            ListTag pos = entity == null ? null : entity.getList("Pos");
+            if (pos == null || pos.size() != 3) {
+                continue;
+            }
+            int layer = layout.getLayerIndex((Double) pos.get(1) + yOffset);
+            if (layer == -1) {
+                continue;
+            }
+            if (result[layer] == null) {
+                result[layer] = chunk.shallowCopy();
+                result[layer].put("Entities", new ListTag(NbtIO.TAG_COMPOUND));
+            }
+            result[layer].getList("Entities").add(shiftEntity(entity, yOffset - layout.getLayerMin(layer)));
+        }
+        return result;
+    }
+
+    static void checkVersion(CompoundTag chunk) throws IOException {
+        if (chunk.contains("Level") || chunk.getInt("DataVersion", 0) < MIN_DATA_VERSION) {
+            throw new IOException("Chunks from before Minecraft 1.18 are not supported, optimise the world with a newer version first");
+        }
+    }
+
+    /**
+     * Keeps the entries of a list with a {@code y} position inside the layer world, shifted to local y-levels.
+     */
+    private ListTag shiftPositions(ListTag list, int layer) {
+        int min = layout.getLayerMin(layer) - layout.bufferSize();
+        int max = layout.getLayerMin(layer) + layout.worldHeight() + layout.bufferSize();
+        ListTag shifted = new ListTag(NbtIO.TAG_COMPOUND);
+        for (int i = 0; i < list.size(); i++) {
+            CompoundTag entry = list.getCompound(i);
+            if (entry == null || !entry.contains("y")) {
+                continue;
+            }
+            int globalY = entry.getInt("y", 0) + yOffset;
+            if (globalY >= min && globalY < max) {
+                CompoundTag copy = entry.shallowCopy();
+                copy.put("y", globalY - layout.getLayerMin(layer));
+                shifted.add(copy);
+            }
+        }
+        return shifted;
+    }
+
+    /**
+     * Copies an entity and its passengers with their y positions shifted.
+     */
+    static CompoundTag shiftEntity(CompoundTag entity, int shift) {
+        CompoundTag copy = entity.shallowCopy();
+        ListTag pos = entity.getList("Pos");
+        if (pos != null && pos.size() == 3) {
+            ListTag shiftedPos = new ListTag(NbtIO.TAG_DOUBLE);
+            shiftedPos.add(pos.get(0));
+            shiftedPos.add((Double) pos.get(1) + shift);
+            shiftedPos.add(pos.get(2));
+            copy.put("Pos", shiftedPos);
+        }
+        // Hanging entities such as item frames and paintings store the block they are attached to.
+        if (entity.contains("TileY")) {
+            copy.put("TileY", entity.getInt("TileY", 0) + shift);
+        }
+        int[] blockPos = entity.getIntArray("block_pos");
+        if (blockPos != null && blockPos.length == 3) {
+            copy.put("block_pos", new int[]{blockPos[0], blockPos[1] + shift, blockPos[2]});
+        }
+        ListTag passengers = entity.getList("Passengers");
+        if (passengers != null) {
+            ListTag shiftedPassengers = new ListTag(NbtIO.TAG_COMPOUND);
+            for (int i = 0; i < passengers.size(); i++) {
+                shiftedPassengers.add(shiftEntity(passengers.getCompound(i), shift));
+            }
+            copy.put("Passengers", shiftedPassengers);
+        }
+        return copy;
+    }
+}
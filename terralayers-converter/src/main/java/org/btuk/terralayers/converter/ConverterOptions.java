@@ -0,0 +1,74 @@
+package org.btuk.terralayers.converter;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line options of the converter, given as {@code --name value}.
+ */
+final class ConverterOptions {
+
+    private final Map<String, String> values;
+
+    private ConverterOptions(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static ConverterOptions parse(String[] args, int start) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = start; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --<option> <value>, found " + args[i]);
+            }
+            values.put(args[i].substring(2), args[i + 1]);
+        }
+        return new ConverterOptions(values);
+    }
+
+    Path getPath(String name) {
+        String value = values.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing required option --" + name);
+        }
+        return Path.of(value);
+    }
+
+    String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option --" + name + " must be a number, found " + value);
+        }
+    }
+
+    ExportFormat getFormat() {
+        String value = getString("format", "anvil");
+        try {
+            return ExportFormat.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Option --format must be anvil or sections, found " + value);
+        }
+    }
+
+    /**
+     * Reads the layer layout, the defaults match the default plugin configuration.
+     */
+    LayerLayout getLayout() {
+        return new LayerLayout(
+                getString("base-name", "earth"),
+                getInt("global-min", -11264),
+                getInt("global-max", 9216),
+                getInt("world-height", 1024),
+                getInt("buffer-size", 256));
+    }
+}
@@ -0,0 +1,19 @@
+package org.btuk.terralayers.converter;
+
+/**
+ * Output format of a merge.
+ */
+public enum ExportFormat {
+
+    /**
+     * A single tall Anvil world. Anvil stores section y-levels as a byte,
+     * so the merged height is limited to y-levels -2048 to 2047.
+     */
+    ANVIL,
+
+    /**
+     * Region files without the y-level limit, containing only non-empty sections with their global section y as an int,
+     * and the block entities and entities of each chunk. Meant for renderers and archives, not for loading in a server.
+     */
+    SECTIONS
+}
@@ -0,0 +1,84 @@
+package org.btuk.terralayers.converter;
+
+/**
+ * The layer layout of a TerraLayers server, matching the plugin configuration.
+ * <p>
+ * Layer {@code i} covers the global y-levels {@code [globalMin + i * worldHeight, globalMin + (i + 1) * worldHeight)}.
+ * Its world additionally contains {@code bufferSize} blocks of the adjacent layers below and above,
+ * so the local y-levels of a layer world range from {@code -bufferSize} to {@code worldHeight + bufferSize}.
+ *
+ * @param baseName    the base world name, each layer appends its y-range
+ * @param globalMin   the global minimum y-level
+ * @param globalMax   the global maximum y-level
+ * @param worldHeight the height of a layer
+ * @param bufferSize  the overlap between adjacent layers
+ */
+public record LayerLayout(String baseName, int globalMin, int globalMax, int worldHeight, int bufferSize) {
+
+    public LayerLayout {
+        boolean valid = (globalMax - globalMin) > 0 &&
+                        worldHeight > 0 &&
+                        worldHeight % 16 == 0 &&
+                        bufferSize >= 0 &&
+                        bufferSize % 16 == 0 &&
+                        (globalMax - globalMin) % worldHeight == 0 &&
+                        globalMax % worldHeight == 0 &&
+                        globalMin % worldHeight == 0;
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid layer layout, please check the values for world-height, buffer-size, global-min and global-max");
+        }
+    }
+
+    public int getLayerCount() {
+        return (globalMax - globalMin) / worldHeight;
+    }
+
+    /**
+     * The global minimum y-level of a layer, local y-level 0 of the layer world.
+     */
+    public int getLayerMin(int layer) {
+        return globalMin + layer * worldHeight;
+    }
+
+    public String getLayerName(int layer) {
+        int min = getLayerMin(layer);
+        return baseName + "_" + min + "_" + (min + worldHeight);
+    }
+
+    /**
+     * Gets the layer containing a global y-level, excluding the buffers.
+     *
+     * @param globalY the global y-level
+     * @return the layer index, or -1 if the y-level is outside all layers
+     */
+    public int getLayerIndex(double globalY) {
+        if (!(globalY >= globalMin && globalY < globalMax)) {
+            return -1;
+        }
+        return (int) Math.floor((globalY - globalMin) / worldHeight);
+    }
+
+    /**
+     * Gets the lowest layer whose world contains a chunk section, including the buffers.
+     *
+     * @param globalSectionY the global section y, the global y-level divided by 16
+     * @return the layer index, larger than {@link #getLastLayerForSection(int)} if no layer contains the section
+     */
+    public int getFirstLayerForSection(int globalSectionY) {
+        int top = globalSectionY * 16 + 16;
+        // The section has to end at or below the top of the upper buffer of the layer.
+        return Math.max(0, -Math.floorDiv(-(top - bufferSize - globalMin), worldHeight) - 1);
+    }
+
+    /**
+     * Gets the highest layer whose world contains a chunk section, including the buffers.
+     *
+     * @param globalSectionY the global section y, the global y-level divided by 16
+     * @return the layer index, smaller than {@link #getFirstLayerForSection(int)} if no layer contains the section
+     */
+    public int getLastLayerForSection(int globalSectionY) {
+        int bottom = globalSectionY * 16;
+        // The section has to start at or above the bottom of the lower buffer of the layer.
+        return Math.min(getLayerCount() - 1, Math.floorDiv(bottom + bufferSize - globalMin, worldHeight));
+    }
+}
@@ -0,0 +1,47 @@
+package org.btuk.terralayers.converter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records the regions a merge has completed, so an interrupted merge can be resumed.
+ * <p>
+ * Regions are appended to the file once their output has been written, output regions are replaced atomically,
+ * so every region in the checkpoint is complete on disk.
+ */
+final class MergeCheckpoint {
+
+    private final Path file;
+    private final Set<String> completed = new HashSet<>();
+
+    MergeCheckpoint(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    completed.add(line.trim());
+                }
+            }
+        }
+    }
+
+    synchronized boolean isCompleted(String region) {
+        return completed.contains(region);
+    }
+
+    synchronized int getCompletedCount() {
+        return completed.size();
+    }
+
+    synchronized void markCompleted(String region) throws IOException {
+        if (completed.add(region)) {
+            Files.writeString(file, region + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.btuk.terralayers.converter;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Periodically logs the progress of a conversion.
+ */
+public final class ProgressReporter implements AutoCloseable {
+
+    private static final long INTERVAL_SECONDS = 10;
+
+    private final Logger logger;
+    private final String action;
+    private final long totalRegions;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong regions = new AtomicLong();
+    private final LongAdder chunks = new LongAdder();
+    private final ScheduledExecutorService scheduler;
+
+    public ProgressReporter(Logger logger, String action, long totalRegions) {
+        this.logger = logger;
+        this.action = action;
+        this.totalRegions = totalRegions;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TerraLayers progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::report, INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public void regionDone() {
+        regions.incrementAndGet();
+    }
+
+    public void chunkDone() {
+        chunks.increment();
+    }
+
+    public long getRegions() {
+        return regions.get();
+    }
+
+    public long getChunks() {
+        return chunks.sum();
+    }
+
+    /**
+     * Logs the current progress.
+     */
+    public void report() {
+        long done = regions.get();
+        double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+        long chunkCount = chunks.sum();
+        String eta = done == 0 ? "unknown" : formatSeconds((long) (seconds / done * (totalRegions - done)));
+        logger.info(String.format("%s %d/%d regions (%.1f%%), %d chunks, %.0f chunks/s, elapsed %s, remaining %s",
+                action, done, totalRegions, totalRegions == 0 ? 100.0 : done * 100.0 / totalRegions, chunkCount,
+                chunkCount / seconds, formatSeconds((long) seconds), eta));
+    }
+
+    private static String formatSeconds(long seconds) {
+        return String.format("%d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        report();
+    }
+}
@@ -0,0 +1,79 @@
+package org.btuk.terralayers.converter;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Command line entry point of the converter.
+ */
+public final class TerraLayersConverter {
+
+    private static final String USAGE = """
+            Usage: java -jar terralayers-converter.jar <mode> [options]
+
+            Modes:
+              split   Split a tall world into layer worlds.
+                      --input <world>           the world to split (required)
+                      --output <directory>      the directory to write the layer worlds to (required)
+                      --y-offset <blocks>       added to the y-levels of the input to get global y-levels (default 0)
+              merge   Merge layer worlds into a single tall world, an interrupted merge resumes when run again.
+                      --input <directory>       the directory containing the layer worlds (required)
+                      --output <directory>      the directory to write the merged world to (required)
+                      --format <anvil|sections> a tall Anvil world, or only the non-empty sections without
+                                                the Anvil height limit (default anvil)
+                      --y-offset <blocks>       subtracted from global y-levels to get the y-levels of the output (default 0)
+                      --batch-size <chunks>     chunks of a region merged at once, limits memory use (default 128)
+
+            Layer options, these must match the plugin configuration:
+              --base-name <name>          (default earth)
+              --global-min <y>            (default -11264)
+              --global-max <y>            (default 9216)
+              --world-height <blocks>     (default 1024)
+              --buffer-size <blocks>      (default 256)
+
+            Performance options:
+              --threads <count>           regions processed in parallel (default: available processors)
+              --compression-level <0-9>   deflate level of the output (default 6)
+            """;
+
+    private TerraLayersConverter() {
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.util.logging.SimpleFormatter.format") == null) {
+            System.setProperty("java.util.logging.SimpleFormatter.format", "[%1$tT %4$s] %5$s%6$s%n");
+        }
+        Logger logger = Logger.getLogger("TerraLayers");
+
+        if (args.length == 0 || args[0].equals("help") || args[0].equals("--help")) {
+            System.out.print(USAGE);
+            return;
+        }
+
+        try {
+            ConverterOptions options = ConverterOptions.parse(args, 1);
+            int threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+            int compressionLevel = options.getInt("compression-level", 6);
+            if (compressionLevel < 0 || compressionLevel > 9) {
+                throw new IllegalArgumentException("Option --compression-level must be between 0 and 9");
+            }
+
+            boolean success = switch (args[0]) {
+                case "split" -> new WorldSplitter(logger, options.getLayout(), options.getInt("y-offset", 0), threads, compressionLevel)
+                        .split(options.getPath("input"), options.getPath("output"));
+                case "merge" -> new WorldMerger(logger, options.getLayout(), options.getInt("y-offset", 0), options.getFormat(), threads,
+                        compressionLevel, options.getInt("batch-size", 128))
+                        .merge(options.getPath("input"), options.getPath("output"));
+                default -> throw new IllegalArgumentException("Unknown mode " + args[0]);
+            };
+            System.exit(success ? 0 : 1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Conversion failed", e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.btuk.terralayers.converter;
+
+import org.btuk.terralayers.converter.anvil.RegionFile;
+import org.btuk.terralayers.converter.anvil.RegionWriter;
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Merges the layer worlds of a {@link LayerLayout} back into a single tall world.
+ * <p>
+ * Each output region is built from the regions with the same coordinates in every layer world. The layer regions are
+ * opened once per output region and every chunk is read once. Chunks are merged in batches of consecutive chunk
+ * indices, so only a batch of decompressed chunks is held in memory, and the chunks of a batch are read in file order.
+ * Output regions are merged in parallel and recorded in a checkpoint once all their chunks were merged, so an
+ * interrupted merge continues with the remaining and failed regions.
+ */
+public final class WorldMerger {
+
+    private static final String CHECKPOINT_FILE = "merge-checkpoint.txt";
+
+    private final Logger logger;
+    private final LayerLayout layout;
+    private final ExportFormat format;
+    private final ChunkMerger chunkMerger;
+    private final int threads;
+    private final int compressionLevel;
+    private final int batchSize;
+
+    private final LongAdder failedChunks = new LongAdder();
+    private final LongAdder failedRegions = new LongAdder();
+
+    /**
+     * @param logger           logger
+     * @param layout           the layer layout
+     * @param yOffset          the offset subtracted from global y-levels to get the y-levels of the output
+     * @param format           the output format
+     * @param threads          the number of regions to merge in parallel
+     * @param compressionLevel the deflate level of the output, 0-9
+     * @param batchSize        the number of chunks of a region to merge at once
+     */
+    public WorldMerger(Logger logger, LayerLayout layout, int yOffset, ExportFormat format, int threads, int compressionLevel, int batchSize) {
+        this.logger = logger;
+        this.layout = layout;
+        this.format = format;
+        this.chunkMerger = new ChunkMerger(layout, yOffset, format);
+        this.threads = Math.max(1, threads);
+        this.compressionLevel = compressionLevel;
+        this.batchSize = Math.clamp(batchSize, 1, 1024);
+    }
+
+    /**
+     * Merges the layer worlds.
+     *
+     * @param input  the directory containing the layer worlds
+     * @param output the directory of the merged world
+     * @return whether all chunks were merged without errors
+     */
+    public boolean merge(Path input, Path output) throws IOException, InterruptedException {
+        List<Path> layerWorlds = new ArrayList<>();
+        TreeSet<String> regionNames = new TreeSet<>();
+        for (int layer = 0; layer < layout.getLayerCount(); layer++) {
+            Path world = input.resolve(layout.getLayerName(layer));
+            layerWorlds.add(world);
+            for (Path region : WorldSplitter.listRegions(world.resolve("region"))) {
+                regionNames.add(region.getFileName().toString());
+            }
+            for (Path region : WorldSplitter.listRegions(world.resolve("entities"))) {
+                regionNames.add(region.getFileName().toString());
+            }
+        }
+        if (regionNames.isEmpty()) {
+            throw new IOException("No layer worlds named " + layout.baseName() + "_<min>_<max> found in " + input);
+        }
+
+        Files.createDirectories(output);
+        MergeCheckpoint checkpoint = new MergeCheckpoint(output.resolve(CHECKPOINT_FILE));
+        List<String> remaining = regionNames.stream().filter(name -> !checkpoint.isCompleted(name)).toList();
+        if (checkpoint.getCompletedCount() > 0) {
+            logger.info("Resuming merge, " + (regionNames.size() - remaining.size()) + " of " + regionNames.size() + " regions were already merged.");
+        }
+        logger.info("Merging " + remaining.size() + " regions of " + layout.getLayerCount() + " layers into " + output
+                + " (" + format.name().toLowerCase(Locale.ROOT) + ") using " + threads + " threads.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ProgressReporter progress = new ProgressReporter(logger, "Merge", remaining.size())) {
+            List<Future<?>> futures = new ArrayList<>(remaining.size());
+            for (String region : remaining) {
+                futures.add(executor.submit(() -> mergeRegion(region, layerWorlds, output, checkpoint, progress)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to merge world", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (format == ExportFormat.ANVIL) {
+            copyLevelDat(layerWorlds, output);
+        }
+        if (failedChunks.sum() > 0 || failedRegions.sum() > 0) {
+            logger.warning(failedChunks.sum() + " chunks and " + failedRegions.sum() + " regions could not be merged, see the warnings above."
+                    + " Failed regions are merged again when the merge is run again.");
+            return false;
+        }
+        logger.info("Merged " + regionNames.size() + " regions into " + output + ".");
+        return true;
+    }
+
+    private void mergeRegion(String name, List<Path> layerWorlds, Path output, MergeCheckpoint checkpoint, ProgressReporter progress) {
+        List<RegionFile> opened = new ArrayList<>();
+        try {
+            int[] coordinates = RegionFile.parseName(name);
+            RegionFile[] terrain = new RegionFile[layerWorlds.size()];
+            RegionFile[] entities = new RegionFile[layerWorlds.size()];
+            int[][] terrainOrder = new int[layerWorlds.size()][];
+            int[][] entityOrder = new int[layerWorlds.size()][];
+            for (int layer = 0; layer < layerWorlds.size(); layer++) {
+                terrain[layer] = open(layerWorlds.get(layer).resolve("region").resolve(name), opened);
+                entities[layer] = open(layerWorlds.get(layer).resolve("entities").resolve(name), opened);
+                terrainOrder[layer] = terrain[layer] == null ? new int[0] : groupByBatch(terrain[layer].getChunksInFileOrder());
+                entityOrder[layer] = entities[layer] == null ? new int[0] : groupByBatch(entities[layer].getChunksInFileOrder());
+            }
+            int[] terrainNext = new int[layerWorlds.size()];
+            int[] entityNext = new int[layerWorlds.size()];
+            long failed = 0;
+
+            RegionWriter terrainWriter = new RegionWriter(coordinates[0], coordinates[1], compressionLevel);
+            RegionWriter entityWriter = new RegionWriter(coordinates[0], coordinates[1], compressionLevel);
+            for (int batchStart = 0; batchStart < RegionFile.CHUNK_COUNT; batchStart += batchSize) {
+                int batchEnd = Math.min(batchStart + batchSize, RegionFile.CHUNK_COUNT);
+                ChunkMerger.MergedChunk[] batch = new ChunkMerger.MergedChunk[batchEnd - batchStart];
+                for (int layer = 0; layer < layerWorlds.size(); layer++) {
+                    failed += readBatch(terrain[layer], terrainOrder[layer], terrainNext, layer, batchStart, batch, false, name);
+                    failed += readBatch(entities[layer], entityOrder[layer], entityNext, layer, batchStart, batch, true, name);
+                }
+                for (int i = 0; i < batch.length; i++) {
+                    if (batch[i] == null) {
+                        continue;
+                    }
+                    CompoundTag chunk = chunkMerger.finishTerrain(batch[i]);
+                    if (chunk != null) {
+                        terrainWriter.putChunk(batchStart + i, chunk);
+                    }
+                    CompoundTag entityChunk = format == ExportFormat.ANVIL ? chunkMerger.finishEntities(batch[i]) : null;
+                    if (entityChunk != null) {
+                        entityWriter.putChunk(batchStart + i, entityChunk);
+                    }
+                    progress.chunkDone();
+                }
+            }
+
+            if (!terrainWriter.isEmpty()) {
+                terrainWriter.write(output.resolve(format == ExportFormat.ANVIL ? "region" : "sections"));
+            }
+            if (!entityWriter.isEmpty()) {
+                entityWriter.write(output.resolve("entities"));
+            }
+            if (failed > 0) {
+                // Keep the chunks that were merged, but merge the region again on the next run.
+                failedRegions.increment();
+                logger.warning("Merged " + name + " without " + failed + " chunks that could not be read.");
+            } else {
+                checkpoint.markCompleted(name);
+            }
+        } catch (IOException e) {
+            failedRegions.increment();
+            logger.warning("Failed to merge " + name + ": " + e.getMessage());
+        } finally {
+            for (RegionFile region : opened) {
+                try {
+                    region.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        progress.regionDone();
+    }
+
+    /**
+     * Orders chunk indices in file order by the batch containing them, keeping the file order within each batch.
+     */
+    private int[] groupByBatch(int[] fileOrder) {
+        int batches = (RegionFile.CHUNK_COUNT + batchSize - 1) / batchSize;
+        int[] starts = new int[batches + 1];
+        for (int index : fileOrder) {
+            starts[index / batchSize + 1]++;
+        }
+        for (int batch = 0; batch < batches; batch++) {
+            starts[batch + 1] += starts[batch];
+        }
+        int[] grouped = new int[fileOrder.length];
+        for (int index : fileOrder) {
+            grouped[starts[index / batchSize]++] = index;
+        }
+        return grouped;
+    }
+
+    /**
+     * Reads the chunks of a batch from a layer region, in the order they are stored in the file.
+     *
+     * @param order the chunk indices of the region, grouped by batch
+     * @param next  the position of the next chunk to read in the order of each layer, advanced past the batch
+     * @return the number of chunks that could not be read
+     */
+    private int readBatch(RegionFile region, int[] order, int[] next, int layer, int batchStart, ChunkMerger.MergedChunk[] batch, boolean entities, String name) {
+        int failed = 0;
+        while (next[layer] < order.length && order[next[layer]] < batchStart + batch.length) {
+            int index = order[next[layer]++];
+            try {
+                CompoundTag chunk = region.readChunk(index);
+                if (chunk == null) {
+                    continue;
+                }
+                int slot = index - batchStart;
+                if (batch[slot] == null) {
+                    batch[slot] = new ChunkMerger.MergedChunk();
+                }
+                if (entities) {
+                    chunkMerger.addEntities(batch[slot], layer, chunk);
+                } else {
+                    chunkMerger.addTerrain(batch[slot], layer, chunk);
+                }
+            } catch (IOException | RuntimeException e) {
+                failed++;
+                failedChunks.increment();
+                logger.warning("Failed to read chunk " + index + " of " + layout.getLayerName(layer) + "/" + (entities ? "entities" : "region") + "/" + name + ": " + e.getMessage());
+            }
+        }
+        return failed;
+    }
+
+    private static RegionFile open(Path file, List<RegionFile> opened) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        RegionFile region = RegionFile.open(file);
+        opened.add(region);
+        return region;
+    }
+
+    private void copyLevelDat(List<Path> layerWorlds, Path output) throws IOException {
+        for (Path world : layerWorlds) {
+            Path levelDat = world.resolve("level.dat");
+            if (Files.exists(levelDat)) {
+                Files.copy(levelDat, output.resolve("level.dat"), StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Copied level.dat from " + world.getFileName() + ", the merged world needs a dimension type covering y "
+                        + layout.globalMin() + " to " + layout.globalMax() + " (after --y-offset) to load.");
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.btuk.terralayers.converter;
+
+import org.btuk.terralayers.converter.anvil.RegionFile;
+import org.btuk.terralayers.converter.anvil.RegionWriter;
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Splits a tall Anvil world into the layer worlds of a {@link LayerLayout}.
+ * <p>
+ * Every input region maps to the region with the same coordinates in each layer world, so regions are split
+ * independently and in parallel. Each worker holds one memory-mapped input region and the compressed output regions,
+ * which bounds the memory use to a few regions per thread.
+ */
+public final class WorldSplitter {
+
+    private static final String[] REGION_DIRECTORIES = {"region", "entities"};
+
+    private final Logger logger;
+    private final LayerLayout layout;
+    private final ChunkSplitter chunkSplitter;
+    private final int threads;
+    private final int compressionLevel;
+
+    private final Set<Integer> writtenLayers = ConcurrentHashMap.newKeySet();
+    private final LongAdder failedChunks = new LongAdder();
+    private final LongAdder failedRegions = new LongAdder();
+
+    /**
+     * @param logger           logger
+     * @param layout           the layer layout
+     * @param yOffset          the offset added to the y-levels of the input world to get global y-levels
+     * @param threads          the number of regions to split in parallel
+     * @param compressionLevel the deflate level of the output, 0-9
+     */
+    public WorldSplitter(Logger logger, LayerLayout layout, int yOffset, int threads, int compressionLevel) {
+        this.logger = logger;
+        this.layout = layout;
+        this.chunkSplitter = new ChunkSplitter(layout, yOffset);
+        this.threads = Math.max(1, threads);
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Splits the world.
+     *
+     * @param input  the input world directory
+     * @param output the directory to create the layer worlds in
+     * @return whether all chunks were split without errors
+     */
+    public boolean split(Path input, Path output) throws IOException, InterruptedException {
+        List<Path> regions = new ArrayList<>();
+        for (String directory : REGION_DIRECTORIES) {
+            regions.addAll(listRegions(input.resolve(directory)));
+        }
+        if (regions.isEmpty()) {
+            throw new IOException("No region files found in " + input);
+        }
+        logger.info("Splitting " + regions.size() + " region files of " + input + " into " + layout.getLayerCount() + " layers using " + threads + " threads.");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (ProgressReporter progress = new ProgressReporter(logger, "Split", regions.size())) {
+            List<Future<?>> futures = new ArrayList<>(regions.size());
+            for (Path region : regions) {
+                futures.add(executor.submit(() -> splitRegion(region, output, progress)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to split world", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // The server needs a level.dat to load the world, the layer worlds keep the settings of the input world.
+        Path levelDat = input.resolve("level.dat");
+        if (Files.exists(levelDat)) {
+            for (int layer : writtenLayers) {
+                Files.copy(levelDat, output.resolve(layout.getLayerName(layer)).resolve("level.dat"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        logger.info("Wrote " + writtenLayers.size() + " layer worlds to " + output + ".");
+        if (failedChunks.sum() > 0 || failedRegions.sum() > 0) {
+            logger.warning(failedChunks.sum() + " chunks and " + failedRegions.sum() + " regions could not be split, see the warnings above.");
+            return false;
+        }
+        return true;
+    }
+
+    private void splitRegion(Path file, Path output, ProgressReporter progress) {
+        String directory = file.getParent().getFileName().toString();
+        boolean entities = directory.equals("entities");
+        try (RegionFile region = RegionFile.open(file)) {
+            RegionWriter[] writers = new RegionWriter[layout.getLayerCount()];
+            for (int index = 0; index < RegionFile.CHUNK_COUNT; index++) {
+                if (!region.hasChunk(index)) {
+                    continue;
+                }
+                try {
+                    CompoundTag chunk = region.readChunk(index);
+                    CompoundTag[] layers = entities ? chunkSplitter.splitEntities(chunk) : chunkSplitter.splitTerrain(chunk);
+                    for (int layer = 0; layer < layers.length; layer++) {
+                        if (layers[layer] == null) {
+                            continue;
+                        }
+                        if (writers[layer] == null) {
+                            writers[layer] = new RegionWriter(region.getRegionX(), region.getRegionZ(), compressionLevel);
+                        }
+                        writers[layer].putChunk(index, layers[layer]);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failedChunks.increment();
+                    logger.warning("Failed to split chunk " + index + " of " + directory + "/" + file.getFileName() + ": " + e.getMessage());
+                }
+                progress.chunkDone();
+            }
+
+            for (int layer = 0; layer < writers.length; layer++) {
+                if (writers[layer] != null && !writers[layer].isEmpty()) {
+                    writers[layer].write(output.resolve(layout.getLayerName(layer)).resolve(directory));
+                    writtenLayers.add(layer);
+                }
+            }
+        } catch (IOException e) {
+            failedRegions.increment();
+            logger.warning("Failed to split " + directory + "/" + file.getFileName() + ": " + e.getMessage());
+        }
+        progress.regionDone();
+    }
+
+    static List<Path> listRegions(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().matches("r\\.-?\\d+\\.-?\\d+\\.mca")).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.btuk.terralayers.converter.anvil;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+import org.btuk.terralayers.converter.nbt.NbtIO;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of chunk data in region files.
+ * <p>
+ * The inflater and deflater are reused per thread, as creating them allocates native memory.
+ */
+final class ChunkCompression {
+
+    static final byte GZIP = 1;
+    static final byte ZLIB = 2;
+    static final byte NONE = 3;
+    static final byte LZ4 = 4;
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<>();
+
+    private ChunkCompression() {
+    }
+
+    static CompoundTag decompress(byte type, byte[] data, int offset, int length) throws IOException {
+        InputStream raw = new ByteArrayInputStream(data, offset, length);
+        InputStream in = switch (type) {
+            case GZIP -> new GZIPInputStream(raw);
+            case ZLIB -> {
+                Inflater inflater = INFLATER.get();
+                inflater.reset();
+                yield new InflaterInputStream(raw, inflater);
+            }
+            case NONE -> raw;
+            case LZ4 -> throw new IOException("LZ4 compressed chunks are not supported, set region-file-compression=deflate and optimise the world first");
+            default -> throw new IOException("Unknown chunk compression type " + type);
+        };
+        try (DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in, 16384))) {
+            return NbtIO.read(dataIn);
+        }
+    }
+
+    /**
+     * Serialises and zlib compresses a chunk.
+     *
+     * @param chunk            the chunk data
+     * @param compressionLevel the deflate level, 0-9
+     * @return the compressed data
+     */
+    static byte[] compress(CompoundTag chunk, int compressionLevel) throws IOException {
+        Deflater deflater = DEFLATER.get();
+        if (deflater == null) {
+            deflater = new Deflater(compressionLevel);
+            DEFLATER.set(deflater);
+        }
+        deflater.reset();
+        deflater.setLevel(compressionLevel);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16384);
+        // Closing the stream does not end a deflater that was passed in, so it can be reused.
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 16384))) {
+            NbtIO.write(out, chunk);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,166 @@
+package org.btuk.terralayers.converter.anvil;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only access to an Anvil region file.
+ * <p>
+ * The file is memory-mapped, so only the pages of the chunks that are read are loaded and the data is not copied
+ * through the Java heap more than once.
+ */
+public final class RegionFile implements Closeable {
+
+    static final int SECTOR_SIZE = 4096;
+    public static final int CHUNK_COUNT = 1024;
+    static final byte EXTERNAL_FLAG = (byte) 0x80;
+
+    private final Path path;
+    private final int regionX;
+    private final int regionZ;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private RegionFile(Path path, int regionX, int regionZ, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens a region file, the region coordinates are taken from the file name.
+     *
+     * @param path the region file, named {@code r.<x>.<z>.mca}
+     * @return the region file
+     * @throws IOException if the file cannot be opened or has an invalid name
+     */
+    public static RegionFile open(Path path) throws IOException {
+        int[] coordinates = parseName(path.getFileName().toString());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            // Empty files are left behind by the game for regions without chunks.
+            MappedByteBuffer buffer = size < 2L * SECTOR_SIZE ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new RegionFile(path, coordinates[0], coordinates[1], channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses the region coordinates from a region file name.
+     *
+     * @param fileName the file name, {@code r.<x>.<z>.mca}
+     * @return the x and z coordinates of the region
+     * @throws IOException if the name is not a region file name
+     */
+    public static int[] parseName(String fileName) throws IOException {
+        String[] parts = fileName.split("\\.");
+        if (parts.length != 4 || !parts[0].equals("r") || !parts[3].equals("mca")) {
+            throw new IOException("Not a region file: " + fileName);
+        }
+        try {
+            return new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+        } catch (NumberFormatException e) {
+            throw new IOException("Not a region file: " + fileName);
+        }
+    }
+
+    public int getRegionX() {
+        return regionX;
+    }
+
+    public int getRegionZ() {
+        return regionZ;
+    }
+
+    /**
+     * Whether the region contains the chunk.
+     *
+     * @param index the chunk index in the region, {@code (z & 31) * 32 + (x & 31)}
+     */
+    public boolean hasChunk(int index) {
+        return buffer != null && buffer.getInt(index * 4) != 0;
+    }
+
+    /**
+     * Gets the indices of the chunks in the region, ordered by their position in the file.
+     * Reading chunks in this order reads the file sequentially.
+     *
+     * @return the chunk indices
+     */
+    public int[] getChunksInFileOrder() {
+        if (buffer == null) {
+            return new int[0];
+        }
+        long[] locations = new long[CHUNK_COUNT];
+        int count = 0;
+        for (int index = 0; index < CHUNK_COUNT; index++) {
+            int location = buffer.getInt(index * 4);
+            if (location != 0) {
+                locations[count++] = (long) (location >>> 8) << 32 | index;
+            }
+        }
+        Arrays.sort(locations, 0, count);
+        int[] indices = new int[count];
+        for (int i = 0; i < count; i++) {
+            indices[i] = (int) locations[i];
+        }
+        return indices;
+    }
+
+    /**
+     * Reads a chunk.
+     *
+     * @param index the chunk index in the region, {@code (z & 31) * 32 + (x & 31)}
+     * @return the chunk data, or {@code null} if the region does not contain the chunk
+     * @throws IOException if the chunk data is invalid
+     */
+    public CompoundTag readChunk(int index) throws IOException {
+        if (!hasChunk(index)) {
+            return null;
+        }
+        int location = buffer.getInt(index * 4);
+        long offset = (long) (location >>> 8) * SECTOR_SIZE;
+        int sectors = location & 0xFF;
+        if (offset < 2L * SECTOR_SIZE || offset + 5 > buffer.capacity() || offset + (long) sectors * SECTOR_SIZE > buffer.capacity()) {
+            throw new IOException("Chunk " + index + " in " + path.getFileName() + " points outside the file");
+        }
+
+        int length = buffer.getInt((int) offset);
+        byte type = buffer.get((int) offset + 4);
+        if ((type & EXTERNAL_FLAG) != 0) {
+            return readExternal(index, (byte) (type & ~EXTERNAL_FLAG));
+        }
+        if (length <= 1 || offset + 4 + length > buffer.capacity()) {
+            throw new IOException("Chunk " + index + " in " + path.getFileName() + " has an invalid length " + length);
+        }
+        byte[] data = new byte[length - 1];
+        buffer.get((int) offset + 5, data);
+        return ChunkCompression.decompress(type, data, 0, data.length);
+    }
+
+    private CompoundTag readExternal(int index, byte type) throws IOException {
+        int chunkX = regionX * 32 + (index & 31);
+        int chunkZ = regionZ * 32 + (index >> 5);
+        Path external = path.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc");
+        byte[] data = Files.readAllBytes(external);
+        return ChunkCompression.decompress(type, data, 0, data.length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,142 @@
+package org.btuk.terralayers.converter.anvil;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the chunks of a region and writes them as an Anvil region file.
+ * <p>
+ * Chunks are compressed when they are added, so only the compressed region is held in memory.
+ */
+public final class RegionWriter {
+
+    /**
+     * Chunks larger than this are stored in a separate {@code .mcc} file, as the game does.
+     */
+    private static final int MAX_SECTORS = 255;
+
+    private final int regionX;
+    private final int regionZ;
+    private final int compressionLevel;
+    private final byte[][] chunks = new byte[RegionFile.CHUNK_COUNT][];
+    private final int[] timestamps = new int[RegionFile.CHUNK_COUNT];
+    private int chunkCount;
+
+    public RegionWriter(int regionX, int regionZ, int compressionLevel) {
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Adds a chunk, replacing an earlier chunk at the same index.
+     *
+     * @param index the chunk index in the region, {@code (z & 31) * 32 + (x & 31)}
+     * @param chunk the chunk data
+     */
+    public void putChunk(int index, CompoundTag chunk) throws IOException {
+        if (chunks[index] == null) {
+            chunkCount++;
+        }
+        chunks[index] = ChunkCompression.compress(chunk, compressionLevel);
+        timestamps[index] = (int) (System.currentTimeMillis() / 1000L);
+    }
+
+    public boolean isEmpty() {
+        return chunkCount == 0;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * Writes the region file, replacing an existing file.
+     * The region and the {@code .mcc} files of large chunks are written to temporary files and synced to disk first,
+     * so an interrupted write does not leave a corrupt region. Stale {@code .mcc} files of chunks that are now stored
+     * in the region are deleted once the region has been replaced.
+     *
+     * @param directory the region directory
+     */
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("r." + regionX + "." + regionZ + ".mca");
+        Path temp = directory.resolve(file.getFileName() + ".tmp");
+
+        ByteBuffer header = ByteBuffer.allocate(2 * RegionFile.SECTOR_SIZE);
+        List<Path> inline = new ArrayList<>();
+        int sector = 2;
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            out.write(header.array());
+            byte[] padding = new byte[RegionFile.SECTOR_SIZE];
+            for (int index = 0; index < RegionFile.CHUNK_COUNT; index++) {
+                byte[] data = chunks[index];
+                if (data == null) {
+                    continue;
+                }
+                boolean external = data.length + 5 > MAX_SECTORS * RegionFile.SECTOR_SIZE;
+                int chunkX = regionX * 32 + (index & 31);
+                int chunkZ = regionZ * 32 + (index >> 5);
+                Path externalFile = directory.resolve("c." + chunkX + "." + chunkZ + ".mcc");
+                if (external) {
+                    writeSynced(externalFile, data);
+                } else {
+                    inline.add(externalFile);
+                }
+
+                int length = external ? 5 : data.length + 5;
+                int sectors = (length + RegionFile.SECTOR_SIZE - 1) / RegionFile.SECTOR_SIZE;
+                ByteBuffer chunkHeader = ByteBuffer.allocate(5);
+                chunkHeader.putInt(length - 4);
+                chunkHeader.put(external ? (byte) (ChunkCompression.ZLIB | RegionFile.EXTERNAL_FLAG) : ChunkCompression.ZLIB);
+                out.write(chunkHeader.array());
+                if (!external) {
+                    out.write(data);
+                }
+                out.write(padding, 0, sectors * RegionFile.SECTOR_SIZE - length);
+
+                header.putInt(index * 4, sector << 8 | sectors);
+                header.putInt(RegionFile.SECTOR_SIZE + index * 4, timestamps[index]);
+                sector += sectors;
+            }
+        }
+
+        // Write the header now all chunk locations are known, and flush the region to disk before it replaces the old one.
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            header.rewind();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path stale : inline) {
+            Files.deleteIfExists(stale);
+        }
+    }
+
+    /**
+     * Writes a file through a temporary file synced to disk, replacing an existing file atomically.
+     */
+    private static void writeSynced(Path file, byte[] data) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
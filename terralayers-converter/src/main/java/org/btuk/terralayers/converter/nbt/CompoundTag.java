@@ -0,0 +1,80 @@
+package org.btuk.terralayers.converter.nbt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compound tag, a named collection of tags.
+ * <p>
+ * Values are stored as plain Java objects: {@link Byte}, {@link Short}, {@link Integer}, {@link Long}, {@link Float},
+ * {@link Double}, {@code byte[]}, {@link String}, {@link ListTag}, {@link CompoundTag}, {@code int[]} and {@code long[]}.
+ */
+public final class CompoundTag {
+
+    private final Map<String, Object> entries;
+
+    public CompoundTag() {
+        this.entries = new LinkedHashMap<>();
+    }
+
+    private CompoundTag(Map<String, Object> entries) {
+        this.entries = new LinkedHashMap<>(entries);
+    }
+
+    /**
+     * Creates a copy of this compound, the values are shared with this compound.
+     */
+    public CompoundTag shallowCopy() {
+        return new CompoundTag(entries);
+    }
+
+    public boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public Object get(String key) {
+        return entries.get(key);
+    }
+
+    public void put(String key, Object value) {
+        NbtIO.typeOf(value);
+        entries.put(key, value);
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return entries.entrySet();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public byte getByte(String key, byte defaultValue) {
+        return entries.get(key) instanceof Number number ? number.byteValue() : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return entries.get(key) instanceof Number number ? number.intValue() : defaultValue;
+    }
+
+    public String getString(String key) {
+        return entries.get(key) instanceof String value ? value : null;
+    }
+
+    public int[] getIntArray(String key) {
+        return entries.get(key) instanceof int[] value ? value : null;
+    }
+
+    public ListTag getList(String key) {
+        return entries.get(key) instanceof ListTag value ? value : null;
+    }
+
+    public CompoundTag getCompound(String key) {
+        return entries.get(key) instanceof CompoundTag value ? value : null;
+    }
+}
@@ -0,0 +1,54 @@
+package org.btuk.terralayers.converter.nbt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list tag, an ordered list of tags of the same type.
+ */
+public final class ListTag {
+
+    private final byte elementType;
+    private final List<Object> values;
+
+    /**
+     * Creates an empty list.
+     *
+     * @param elementType the tag type of the elements, see {@link NbtIO}
+     */
+    public ListTag(byte elementType) {
+        this(elementType, new ArrayList<>());
+    }
+
+    public ListTag(byte elementType, List<Object> values) {
+        this.elementType = elementType;
+        this.values = values;
+    }
+
+    public byte getElementType() {
+        return elementType;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public Object get(int index) {
+        return values.get(index);
+    }
+
+    public CompoundTag getCompound(int index) {
+        return values.get(index) instanceof CompoundTag value ? value : null;
+    }
+
+    public void add(Object value) {
+        if (NbtIO.typeOf(value) != elementType) {
+            throw new IllegalArgumentException("List of type " + elementType + " cannot contain tag of type " + NbtIO.typeOf(value));
+        }
+        values.add(value);
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+}
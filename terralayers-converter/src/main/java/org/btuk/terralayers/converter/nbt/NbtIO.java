@@ -0,0 +1,199 @@
+package org.btuk.terralayers.converter.nbt;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes uncompressed NBT data.
+ */
+public final class NbtIO {
+
+    public static final byte TAG_END = 0;
+    public static final byte TAG_BYTE = 1;
+    public static final byte TAG_SHORT = 2;
+    public static final byte TAG_INT = 3;
+    public static final byte TAG_LONG = 4;
+    public static final byte TAG_FLOAT = 5;
+    public static final byte TAG_DOUBLE = 6;
+    public static final byte TAG_BYTE_ARRAY = 7;
+    public static final byte TAG_STRING = 8;
+    public static final byte TAG_LIST = 9;
+    public static final byte TAG_COMPOUND = 10;
+    public static final byte TAG_INT_ARRAY = 11;
+    public static final byte TAG_LONG_ARRAY = 12;
+
+    /**
+     * Maximum nesting depth, the same limit the game uses.
+     */
+    private static final int MAX_DEPTH = 512;
+
+    private NbtIO() {
+    }
+
+    /**
+     * Reads a root compound tag, the name of the root tag is ignored.
+     *
+     * @param in the input
+     * @return the root compound
+     * @throws IOException if the data could not be read or is not a compound
+     */
+    public static CompoundTag read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        if (type != TAG_COMPOUND) {
+            throw new IOException("Root tag must be a compound, found type " + type);
+        }
+        in.readUTF();
+        return readCompound(in, 0);
+    }
+
+    /**
+     * Writes a compound as the unnamed root tag.
+     *
+     * @param out the output
+     * @param tag the root compound
+     * @throws IOException if the data could not be written
+     */
+    public static void write(DataOutput out, CompoundTag tag) throws IOException {
+        out.writeByte(TAG_COMPOUND);
+        out.writeUTF("");
+        writeCompound(out, tag);
+    }
+
+    /**
+     * Gets the tag type of a value.
+     *
+     * @param value the value
+     * @return the tag type
+     * @throws IllegalArgumentException if the value cannot be stored as NBT
+     */
+    public static byte typeOf(Object value) {
+        return switch (value) {
+            case Byte ignored -> TAG_BYTE;
+            case Short ignored -> TAG_SHORT;
+            case Integer ignored -> TAG_INT;
+            case Long ignored -> TAG_LONG;
+            case Float ignored -> TAG_FLOAT;
+            case Double ignored -> TAG_DOUBLE;
+            case byte[] ignored -> TAG_BYTE_ARRAY;
+            case String ignored -> TAG_STRING;
+            case ListTag ignored -> TAG_LIST;
+            case CompoundTag ignored -> TAG_COMPOUND;
+            case int[] ignored -> TAG_INT_ARRAY;
+            case long[] ignored -> TAG_LONG_ARRAY;
+            case null, default -> throw new IllegalArgumentException("Unsupported tag value: " + value);
+        };
+    }
+
+    private static CompoundTag readCompound(DataInput in, int depth) throws IOException {
+        CompoundTag tag = new CompoundTag();
+        byte type;
+        while ((type = in.readByte()) != TAG_END) {
+            String name = in.readUTF();
+            tag.put(name, readPayload(in, type, depth + 1));
+        }
+        return tag;
+    }
+
+    private static Object readPayload(DataInput in, byte type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT data is nested too deeply");
+        }
+        return switch (type) {
+            case TAG_BYTE -> in.readByte();
+            case TAG_SHORT -> in.readShort();
+            case TAG_INT -> in.readInt();
+            case TAG_LONG -> in.readLong();
+            case TAG_FLOAT -> in.readFloat();
+            case TAG_DOUBLE -> in.readDouble();
+            case TAG_BYTE_ARRAY -> {
+                byte[] value = new byte[readLength(in)];
+                in.readFully(value);
+                yield value;
+            }
+            case TAG_STRING -> in.readUTF();
+            case TAG_LIST -> {
+                byte elementType = in.readByte();
+                int length = readLength(in);
+                List<Object> values = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    values.add(readPayload(in, elementType, depth + 1));
+                }
+                yield new ListTag(length == 0 ? TAG_END : elementType, values);
+            }
+            case TAG_COMPOUND -> readCompound(in, depth);
+            case TAG_INT_ARRAY -> {
+                int[] value = new int[readLength(in)];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = in.readInt();
+                }
+                yield value;
+            }
+            case TAG_LONG_ARRAY -> {
+                long[] value = new long[readLength(in)];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = in.readLong();
+                }
+                yield value;
+            }
+            default -> throw new IOException("Unknown tag type " + type);
+        };
+    }
+
+    private static int readLength(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Negative length " + length);
+        }
+        return length;
+    }
+
+    private static void writeCompound(DataOutput out, CompoundTag tag) throws IOException {
+        for (Map.Entry<String, Object> entry : tag.entrySet()) {
+            out.writeByte(typeOf(entry.getValue()));
+            out.writeUTF(entry.getKey());
+            writePayload(out, entry.getValue());
+        }
+        out.writeByte(TAG_END);
+    }
+
+    private static void writePayload(DataOutput out, Object value) throws IOException {
+        switch (value) {
+            case Byte v -> out.writeByte(v);
+            case Short v -> out.writeShort(v);
+            case Integer v -> out.writeInt(v);
+            case Long v -> out.writeLong(v);
+            case Float v -> out.writeFloat(v);
+            case Double v -> out.writeDouble(v);
+            case byte[] v -> {
+                out.writeInt(v.length);
+                out.write(v);
+            }
+            case String v -> out.writeUTF(v);
+            case ListTag v -> {
+                out.writeByte(v.size() == 0 ? TAG_END : v.getElementType());
+                out.writeInt(v.size());
+                for (Object element : v.getValues()) {
+                    writePayload(out, element);
+                }
+            }
+            case CompoundTag v -> writeCompound(out, v);
+            case int[] v -> {
+                out.writeInt(v.length);
+                for (int i : v) {
+                    out.writeInt(i);
+                }
+            }
+            case long[] v -> {
+                out.writeInt(v.length);
+                for (long l : v) {
+                    out.writeLong(l);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported tag value: " + value);
+        }
+    }
+}
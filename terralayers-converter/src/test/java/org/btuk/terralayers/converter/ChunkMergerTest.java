@@ -0,0 +1,206 @@
+package org.btuk.terralayers.converter;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+import org.btuk.terralayers.converter.nbt.ListTag;
+import org.btuk.terralayers.converter.nbt.NbtIO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.btuk.terralayers.converter.ChunkSplitterTest.entity;
+import static org.btuk.terralayers.converter.ChunkSplitterTest.list;
+import static org.btuk.terralayers.converter.ChunkSplitterTest.positioned;
+import static org.btuk.terralayers.converter.ChunkSplitterTest.section;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkMergerTest {
+
+    private static final int DATA_VERSION = 3953;
+
+    private final LayerLayout layout = new LayerLayout("world", -512, 512, 256, 32);
+
+    private static CompoundTag layerChunk(int... sectionYs) {
+        CompoundTag chunk = new CompoundTag();
+        chunk.put("DataVersion", DATA_VERSION);
+        chunk.put("xPos", 2);
+        chunk.put("zPos", -3);
+        chunk.put("Heightmaps", new CompoundTag());
+        ListTag sections = new ListTag(NbtIO.TAG_COMPOUND);
+        for (int y : sectionYs) {
+            sections.add(section(y));
+        }
+        chunk.put("sections", sections);
+        return chunk;
+    }
+
+    private static CompoundTag filledSection(int y, String block) {
+        CompoundTag state = new CompoundTag();
+        state.put("Name", block);
+        CompoundTag blockStates = new CompoundTag();
+        blockStates.put("palette", list(state));
+        CompoundTag section = section(y);
+        section.put("block_states", blockStates);
+        return section;
+    }
+
+    private static List<Integer> sectionYs(CompoundTag chunk) {
+        List<Integer> ys = new ArrayList<>();
+        ListTag sections = chunk.getList("sections");
+        for (int i = 0; i < sections.size(); i++) {
+            ys.add(sections.getCompound(i).getInt("Y", Integer.MIN_VALUE));
+        }
+        return ys;
+    }
+
+    @Test
+    void bufferSectionsAreDropped() throws IOException {
+        ChunkMerger merger = new ChunkMerger(layout, 0, ExportFormat.ANVIL);
+        ChunkMerger.MergedChunk merged = new ChunkMerger.MergedChunk();
+        merger.addTerrain(merged, 1, layerChunk(-2, -1, 0, 15, 16, 17));
+
+        CompoundTag chunk = merger.finishTerrain(merged);
+        // Local sections 0 to 15 of layer 1 are global sections -16 to -1.
+        assertEquals(List.of(-16, -1), sectionYs(chunk));
+        assertInstanceOf(Byte.class, chunk.getList("sections").getCompound(0).get("Y"));
+        assertEquals(-32, chunk.getInt("yPos", 0));
+        assertEquals(0, chunk.getByte("isLightOn", (byte) 1));
+        assertFalse(chunk.contains("Heightmaps"));
+        assertFalse(chunk.getList("sections").getCompound(0).contains("BlockLight"));
+    }
+
+    @Test
+    void positionsAreShiftedToOutputY() throws IOException {
+        CompoundTag layer0 = layerChunk(0);
+        // y 262 is in the upper buffer of layer 0 and a copy of the block in layer 1.
+        layer0.put("block_entities", list(positioned("minecraft:chest", 10), positioned("minecraft:chest", 262)));
+        CompoundTag layer1 = layerChunk(0);
+        layer1.put("block_entities", list(positioned("minecraft:chest", 6)));
+        layer1.put("fluid_ticks", list(positioned("minecraft:water", -5)));
+
+        ChunkMerger merger = new ChunkMerger(layout, 0, ExportFormat.ANVIL);
+        ChunkMerger.MergedChunk merged = new ChunkMerger.MergedChunk();
+        merger.addTerrain(merged, 0, layer0);
+        merger.addTerrain(merged, 1, layer1);
+        CompoundTag chunk = merger.finishTerrain(merged);
+
+        ListTag blockEntities = chunk.getList("block_entities");
+        assertEquals(2, blockEntities.size());
+        assertEquals(-502, blockEntities.getCompound(0).getInt("y", 0));
+        assertEquals(-250, blockEntities.getCompound(1).getInt("y", 0));
+        assertEquals(0, chunk.getList("fluid_ticks").size());
+    }
+
+    @Test
+    void outputOffsetIsApplied() throws IOException {
+        ChunkMerger merger = new ChunkMerger(layout, -512, ExportFormat.ANVIL);
+        ChunkMerger.MergedChunk merged = new ChunkMerger.MergedChunk();
+        merger.addTerrain(merged, 0, layerChunk(0));
+        merger.addTerrain(merged, 3, layerChunk(15));
+
+        CompoundTag chunk = merger.finishTerrain(merged);
+        assertEquals(List.of(0, 63), sectionYs(chunk));
+        assertEquals(0, chunk.getInt("yPos", -1));
+    }
+
+    @Test
+    void entitiesAreShifted() throws IOException {
+        CompoundTag entities = new CompoundTag();
+        entities.put("DataVersion", DATA_VERSION);
+        entities.put("Entities", list(entity("minecraft:cow", 251.5)));
+
+        ChunkMerger merger = new ChunkMerger(layout, 0, ExportFormat.ANVIL);
+        ChunkMerger.MergedChunk merged = new ChunkMerger.MergedChunk();
+        merger.addEntities(merged, 0, entities);
+
+        assertNull(merger.finishTerrain(merged));
+        CompoundTag chunk = merger.finishEntities(merged);
+        assertEquals(-260.5, (double) chunk.getList("Entities").getCompound(0).getList("Pos").get(1));
+    }
+
+    @Test
+    void splitThenMergeRestoresTheWorld() throws IOException {
+        CompoundTag tall = layerChunk();
+        ListTag sections = tall.getList("sections");
+        for (int y = -34; y < 34; y++) {
+            sections.add(section(y));
+        }
+        tall.put("block_entities", list(positioned("minecraft:chest", -250), positioned("minecraft:sign", 10)));
+        CompoundTag entities = new CompoundTag();
+        entities.put("DataVersion", DATA_VERSION);
+        entities.put("Entities", list(entity("minecraft:cow", -260.5), entity("minecraft:pig", 300.25)));
+
+        ChunkSplitter splitter = new ChunkSplitter(layout, 0);
+        CompoundTag[] terrain = splitter.splitTerrain(tall);
+        CompoundTag[] entityChunks = splitter.splitEntities(entities);
+        ChunkMerger merger = new ChunkMerger(layout, 0, ExportFormat.ANVIL);
+        ChunkMerger.MergedChunk merged = new ChunkMerger.MergedChunk();
+        for (int layer = 0; layer < layout.getLayerCount(); layer++) {
+            merger.addTerrain(merged, layer, terrain[layer]);
+            if (entityChunks[layer] != null) {
+                merger.addEntities(merged, layer, entityChunks[layer]);
+            }
+        }
+
+        // Every section of the layers once, the sections outside the layers are gone.
+        List<Integer> expected = new ArrayList<>();
+        for (int y = -32; y < 32; y++) {
+            expected.add(y);
+        }
+        CompoundTag chunk = merger.finishTerrain(merged);
+        assertEquals(expected, sectionYs(chunk));
+        ListTag blockEntities = chunk.getList("block_entities");
+        assertEquals(2, blockEntities.size());
+        assertEquals(-250, blockEntities.getCompound(0).getInt("y", 0));
+        assertEquals(10, blockEntities.getCompound(1).getInt("y", 0));
+        ListTag mergedEntities = merger.finishEntities(merged).getList("Entities");
+        assertEquals(-260.5, (double) mergedEntities.getCompound(0).getList("Pos").get(1));
+        assertEquals(300.25, (double) mergedEntities.getCompound(1).getList("Pos").get(1));
+    }
+
+    @Test
+    void sectionsFormatKeepsGlobalSectionsWithoutAir() throws IOException {
+        CompoundTag layer3 = layerChunk(13);
+        layer3.getList("sections").add(filledSection(14, "minecraft:air"));
+        layer3.getList("sections").add(filledSection(15, "minecraft:stone"));
+        CompoundTag entities = new CompoundTag();
+        entities.put("DataVersion", DATA_VERSION);
+        entities.put("Position", new int[]{2, -3});
+        entities.put("Entities", list(entity("minecraft:cow", 0.0)));
+
+        ChunkMerger merger = new ChunkMerger(layout, 0, ExportFormat.SECTIONS);
+        ChunkMerger.MergedChunk merged = new ChunkMerger.MergedChunk();
+        merger.addTerrain(merged, 3, layer3);
+        merger.addEntities(merged, 3, entities);
+
+        CompoundTag chunk = merger.finishTerrain(merged);
+        assertEquals(List.of(31), sectionYs(chunk));
+        assertInstanceOf(Integer.class, chunk.getList("sections").getCompound(0).get("Y"));
+        assertEquals(2, chunk.getInt("xPos", 0));
+        assertEquals(-3, chunk.getInt("zPos", 0));
+        assertEquals(256.0, (double) chunk.getList("Entities").getCompound(0).getList("Pos").get(1));
+    }
+
+    @Test
+    void anvilIsLimitedToByteSections() {
+        LayerLayout tall = new LayerLayout("world", -4096, 4096, 256, 32);
+        assertThrows(IllegalArgumentException.class, () -> new ChunkMerger(tall, 0, ExportFormat.ANVIL));
+        // The offset moves the output into the range of an Anvil world.
+        new ChunkMerger(new LayerLayout("world", 0, 4096, 256, 32), 2048, ExportFormat.ANVIL);
+        new ChunkMerger(tall, 0, ExportFormat.SECTIONS);
+        assertThrows(IllegalArgumentException.class, () -> new ChunkMerger(layout, 8, ExportFormat.ANVIL));
+    }
+
+    @Test
+    void emptyChunk() {
+        ChunkMerger merger = new ChunkMerger(layout, 0, ExportFormat.ANVIL);
+        ChunkMerger.MergedChunk merged = new ChunkMerger.MergedChunk();
+        assertNull(merger.finishTerrain(merged));
+        assertNull(merger.finishEntities(merged));
+    }
+}
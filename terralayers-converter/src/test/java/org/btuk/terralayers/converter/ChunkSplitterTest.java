@@ -0,0 +1,183 @@
+package org.btuk.terralayers.converter;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+import org.btuk.terralayers.converter.nbt.ListTag;
+import org.btuk.terralayers.converter.nbt.NbtIO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkSplitterTest {
+
+    private static final int DATA_VERSION = 3953;
+
+    private final LayerLayout layout = new LayerLayout("world", -512, 512, 256, 32);
+
+    static CompoundTag section(int y) {
+        CompoundTag section = new CompoundTag();
+        section.put("Y", (byte) y);
+        section.put("BlockLight", new byte[2048]);
+        section.put("SkyLight", new byte[2048]);
+        return section;
+    }
+
+    static CompoundTag positioned(String id, int y) {
+        CompoundTag entry = new CompoundTag();
+        entry.put("id", id);
+        entry.put("x", 3);
+        entry.put("y", y);
+        entry.put("z", 5);
+        return entry;
+    }
+
+    static CompoundTag entity(String id, double y) {
+        CompoundTag entity = new CompoundTag();
+        entity.put("id", id);
+        ListTag pos = new ListTag(NbtIO.TAG_DOUBLE);
+        pos.add(1.5);
+        pos.add(y);
+        pos.add(2.5);
+        entity.put("Pos", pos);
+        return entity;
+    }
+
+    static ListTag list(CompoundTag... values) {
+        ListTag list = new ListTag(NbtIO.TAG_COMPOUND);
+        for (CompoundTag value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static CompoundTag terrainChunk(int... sectionYs) {
+        CompoundTag chunk = new CompoundTag();
+        chunk.put("DataVersion", DATA_VERSION);
+        chunk.put("xPos", 2);
+        chunk.put("zPos", -3);
+        chunk.put("Heightmaps", new CompoundTag());
+        chunk.put("isLightOn", (byte) 1);
+        ListTag sections = new ListTag(NbtIO.TAG_COMPOUND);
+        for (int y : sectionYs) {
+            sections.add(section(y));
+        }
+        chunk.put("sections", sections);
+        return chunk;
+    }
+
+    private static List<Integer> sectionYs(CompoundTag chunk) {
+        List<Integer> ys = new ArrayList<>();
+        ListTag sections = chunk.getList("sections");
+        for (int i = 0; i < sections.size(); i++) {
+            ys.add((int) sections.getCompound(i).getByte("Y", Byte.MIN_VALUE));
+        }
+        return ys;
+    }
+
+    @Test
+    void sectionsAreCopiedIntoEveryLayerContainingThem() throws IOException {
+        CompoundTag[] layers = new ChunkSplitter(layout, 0).splitTerrain(terrainChunk(-16, -14, 0));
+
+        assertEquals(4, layers.length);
+        // Global section -16 is the bottom of layer 1 and in the upper buffer of layer 0.
+        assertEquals(List.of(16), sectionYs(layers[0]));
+        assertEquals(List.of(0, 2, 16), sectionYs(layers[1]));
+        assertEquals(List.of(0), sectionYs(layers[2]));
+        assertNull(layers[3]);
+    }
+
+    @Test
+    void layerChunksStartBelowTheBuffer() throws IOException {
+        CompoundTag[] layers = new ChunkSplitter(layout, 0).splitTerrain(terrainChunk(0));
+
+        for (int layer = 1; layer <= 2; layer++) {
+            CompoundTag chunk = layers[layer];
+            assertEquals(-2, chunk.getInt("yPos", 0));
+            assertEquals(0, chunk.getByte("isLightOn", (byte) 1));
+            assertEquals(2, chunk.getInt("xPos", 0));
+            assertEquals(-3, chunk.getInt("zPos", 0));
+            assertFalse(chunk.contains("Heightmaps"));
+            assertFalse(chunk.getList("sections").getCompound(0).contains("BlockLight"));
+            assertFalse(chunk.getList("sections").getCompound(0).contains("SkyLight"));
+        }
+    }
+
+    @Test
+    void inputOffsetIsApplied() throws IOException {
+        // Section 0 of the input is global section -16 with an offset of -256.
+        CompoundTag[] layers = new ChunkSplitter(layout, -256).splitTerrain(terrainChunk(0));
+
+        assertEquals(List.of(16), sectionYs(layers[0]));
+        assertEquals(List.of(0), sectionYs(layers[1]));
+        assertNull(layers[2]);
+    }
+
+    @Test
+    void positionsAreShiftedToLocalY() throws IOException {
+        CompoundTag chunk = terrainChunk(-16, 0);
+        chunk.put("block_entities", list(positioned("minecraft:chest", -250)));
+        chunk.put("block_ticks", list(positioned("minecraft:water", 10)));
+
+        CompoundTag[] layers = new ChunkSplitter(layout, 0).splitTerrain(chunk);
+
+        // y -250 is in layer 1 and the upper buffer of layer 0.
+        assertEquals(262, layers[0].getList("block_entities").getCompound(0).getInt("y", 0));
+        assertEquals(6, layers[1].getList("block_entities").getCompound(0).getInt("y", 0));
+        assertEquals(0, layers[2].getList("block_entities").size());
+        // y 10 is in layer 2 and the upper buffer of layer 1.
+        assertEquals(0, layers[0].getList("block_ticks").size());
+        assertEquals(266, layers[1].getList("block_ticks").getCompound(0).getInt("y", 0));
+        assertEquals(10, layers[2].getList("block_ticks").getCompound(0).getInt("y", 0));
+        // The input is not changed.
+        assertEquals(-250, chunk.getList("block_entities").getCompound(0).getInt("y", 0));
+    }
+
+    @Test
+    void entitiesAreMovedIntoTheirLayerOnly() throws IOException {
+        CompoundTag passenger = entity("minecraft:zombie", -259.5);
+        CompoundTag horse = entity("minecraft:horse", -260.5);
+        horse.put("Passengers", list(passenger));
+        CompoundTag frame = entity("minecraft:item_frame", 300.0);
+        frame.put("TileY", 300);
+        CompoundTag outside = entity("minecraft:bat", 600.0);
+        CompoundTag chunk = new CompoundTag();
+        chunk.put("DataVersion", DATA_VERSION);
+        chunk.put("Entities", list(horse, frame, outside));
+
+        CompoundTag[] layers = new ChunkSplitter(layout, 0).splitEntities(chunk);
+
+        assertEquals(1, layers[0].getList("Entities").size());
+        CompoundTag shifted = layers[0].getList("Entities").getCompound(0);
+        assertEquals(251.5, (double) shifted.getList("Pos").get(1));
+        assertEquals(252.5, (double) shifted.getList("Passengers").getCompound(0).getList("Pos").get(1));
+        assertNull(layers[1]);
+        assertNull(layers[2]);
+        CompoundTag shiftedFrame = layers[3].getList("Entities").getCompound(0);
+        assertEquals(44.0, (double) shiftedFrame.getList("Pos").get(1));
+        assertEquals(44, shiftedFrame.getInt("TileY", 0));
+        assertNotNull(layers[3].get("DataVersion"));
+    }
+
+    @Test
+    void rejectsChunksFromBefore118() {
+        CompoundTag old = terrainChunk(0);
+        old.put("DataVersion", 2584);
+        assertThrows(IOException.class, () -> new ChunkSplitter(layout, 0).splitTerrain(old));
+
+        CompoundTag legacy = terrainChunk(0);
+        legacy.put("Level", new CompoundTag());
+        assertThrows(IOException.class, () -> new ChunkSplitter(layout, 0).splitTerrain(legacy));
+    }
+
+    @Test
+    void rejectsOffsetsThatAreNotSectionAligned() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkSplitter(layout, 8));
+    }
+}
@@ -0,0 +1,90 @@
+package org.btuk.terralayers.converter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LayerLayoutTest {
+
+    // Four layers from y -512 to 512, each world reaching 32 blocks into the adjacent layers.
+    private final LayerLayout layout = new LayerLayout("world", -512, 512, 256, 32);
+
+    @Test
+    void layers() {
+        assertEquals(4, layout.getLayerCount());
+        assertEquals(-512, layout.getLayerMin(0));
+        assertEquals(256, layout.getLayerMin(3));
+        assertEquals("world_-512_-256", layout.getLayerName(0));
+        assertEquals("world_256_512", layout.getLayerName(3));
+    }
+
+    @Test
+    void layerIndex() {
+        assertEquals(0, layout.getLayerIndex(-512));
+        assertEquals(0, layout.getLayerIndex(-256.5));
+        assertEquals(1, layout.getLayerIndex(-256));
+        assertEquals(1, layout.getLayerIndex(-0.5));
+        assertEquals(2, layout.getLayerIndex(0));
+        assertEquals(3, layout.getLayerIndex(511.5));
+        assertEquals(-1, layout.getLayerIndex(-512.5));
+        assertEquals(-1, layout.getLayerIndex(512));
+        assertEquals(-1, layout.getLayerIndex(Double.NaN));
+    }
+
+    @Test
+    void sectionInsideOneLayer() {
+        // y -224 to -208, just above the upper buffer of layer 0.
+        assertEquals(1, layout.getFirstLayerForSection(-14));
+        assertEquals(1, layout.getLastLayerForSection(-14));
+    }
+
+    @Test
+    void sectionInTheBuffers() {
+        // y -256 to -240, the bottom of layer 1 and the upper buffer of layer 0.
+        assertEquals(0, layout.getFirstLayerForSection(-16));
+        assertEquals(1, layout.getLastLayerForSection(-16));
+        // y 0 to 16, the bottom of layer 2 and the upper buffer of layer 1.
+        assertEquals(1, layout.getFirstLayerForSection(0));
+        assertEquals(2, layout.getLastLayerForSection(0));
+        // y -32 to -16, the top of layer 1 and the lower buffer of layer 2.
+        assertEquals(1, layout.getFirstLayerForSection(-2));
+        assertEquals(2, layout.getLastLayerForSection(-2));
+    }
+
+    @Test
+    void sectionsAtTheEdges() {
+        // The lower buffer of the lowest layer and the upper buffer of the highest layer.
+        assertEquals(0, layout.getFirstLayerForSection(-34));
+        assertEquals(0, layout.getLastLayerForSection(-34));
+        assertEquals(3, layout.getFirstLayerForSection(33));
+        assertEquals(3, layout.getLastLayerForSection(33));
+    }
+
+    @Test
+    void sectionsOutsideAllLayers() {
+        assertTrue(layout.getLastLayerForSection(-35) < layout.getFirstLayerForSection(-35));
+        assertTrue(layout.getLastLayerForSection(34) < layout.getFirstLayerForSection(34));
+        assertTrue(layout.getLastLayerForSection(-1000) < layout.getFirstLayerForSection(-1000));
+        assertTrue(layout.getLastLayerForSection(1000) < layout.getFirstLayerForSection(1000));
+    }
+
+    @Test
+    void withoutBuffers() {
+        LayerLayout noBuffers = new LayerLayout("world", -512, 512, 256, 0);
+        assertEquals(0, noBuffers.getFirstLayerForSection(-17));
+        assertEquals(0, noBuffers.getLastLayerForSection(-17));
+        assertEquals(1, noBuffers.getFirstLayerForSection(-16));
+        assertEquals(1, noBuffers.getLastLayerForSection(-16));
+    }
+
+    @Test
+    void rejectsInvalidLayouts() {
+        assertThrows(IllegalArgumentException.class, () -> new LayerLayout("world", 0, 0, 256, 32));
+        assertThrows(IllegalArgumentException.class, () -> new LayerLayout("world", -512, 512, 100, 32));
+        assertThrows(IllegalArgumentException.class, () -> new LayerLayout("world", -512, 512, 256, 20));
+        assertThrows(IllegalArgumentException.class, () -> new LayerLayout("world", -500, 512, 256, 32));
+        assertThrows(IllegalArgumentException.class, () -> new LayerLayout("world", -512, 512, 256, -16));
+    }
+}
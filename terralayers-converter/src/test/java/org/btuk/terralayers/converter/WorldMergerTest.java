@@ -0,0 +1,107 @@
+package org.btuk.terralayers.converter;
+
+import org.btuk.terralayers.converter.anvil.RegionFile;
+import org.btuk.terralayers.converter.anvil.RegionWriter;
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+import org.btuk.terralayers.converter.nbt.ListTag;
+import org.btuk.terralayers.converter.nbt.NbtIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+
+import static org.btuk.terralayers.converter.ChunkSplitterTest.section;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorldMergerTest {
+
+    private static final Logger LOGGER = Logger.getLogger(WorldMergerTest.class.getName());
+    private static final String REGION = "r.0.0.mca";
+
+    private final LayerLayout layout = new LayerLayout("world", -512, 512, 256, 32);
+
+    @TempDir
+    Path directory;
+
+    private static CompoundTag chunk(int index) {
+        CompoundTag chunk = new CompoundTag();
+        chunk.put("DataVersion", 3953);
+        chunk.put("xPos", index & 31);
+        chunk.put("zPos", index >> 5);
+        ListTag sections = new ListTag(NbtIO.TAG_COMPOUND);
+        sections.add(section(0));
+        chunk.put("sections", sections);
+        return chunk;
+    }
+
+    /**
+     * Writes the same chunks into the region of every layer world.
+     */
+    private Path writeLayers(int... indices) throws IOException {
+        Path input = directory.resolve("input");
+        for (int layer = 0; layer < layout.getLayerCount(); layer++) {
+            RegionWriter writer = new RegionWriter(0, 0, 1);
+            for (int index : indices) {
+                writer.putChunk(index, chunk(index));
+            }
+            writer.write(input.resolve(layout.getLayerName(layer)).resolve("region"));
+        }
+        return input;
+    }
+
+    private static int countChunks(Path region) throws IOException {
+        try (RegionFile file = RegionFile.open(region)) {
+            return file.getChunksInFileOrder().length;
+        }
+    }
+
+    @Test
+    void mergesEveryChunkAcrossBatches() throws Exception {
+        int[] indices = {0, 1, 31, 32, 500, 1023};
+        Path input = writeLayers(indices);
+        Path output = directory.resolve("output");
+
+        // Batches of 2 chunks split the chunks of every layer over several batches.
+        assertTrue(new WorldMerger(LOGGER, layout, 0, ExportFormat.ANVIL, 2, 1, 2).merge(input, output));
+
+        Path region = output.resolve("region").resolve(REGION);
+        assertEquals(indices.length, countChunks(region));
+        try (RegionFile file = RegionFile.open(region)) {
+            CompoundTag merged = file.readChunk(500);
+            assertNotNull(merged);
+            assertEquals(layout.getLayerCount(), merged.getList("sections").size());
+        }
+        assertEquals(REGION, Files.readString(output.resolve("merge-checkpoint.txt")).trim());
+    }
+
+    @Test
+    void regionsWithFailedChunksAreMergedAgain() throws Exception {
+        Path input = writeLayers(0, 1, 2);
+        // Corrupt the compression type of the first chunk of layer 1, stored after the two header sectors.
+        Path corrupt = input.resolve(layout.getLayerName(1)).resolve("region").resolve(REGION);
+        try (FileChannel channel = FileChannel.open(corrupt, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{99}), 2L * 4096 + 4);
+        }
+        Path output = directory.resolve("output");
+
+        assertFalse(new WorldMerger(LOGGER, layout, 0, ExportFormat.ANVIL, 1, 1, 128).merge(input, output));
+        // The chunks that could be read are kept, the region is not recorded as completed.
+        assertEquals(3, countChunks(output.resolve("region").resolve(REGION)));
+        Path checkpoint = output.resolve("merge-checkpoint.txt");
+        assertTrue(!Files.exists(checkpoint) || Files.readString(checkpoint).isBlank());
+
+        // Once the layer region is fixed, the next run merges the region again.
+        writeLayers(0, 1, 2);
+        assertTrue(new WorldMerger(LOGGER, layout, 0, ExportFormat.ANVIL, 1, 1, 128).merge(input, output));
+        assertEquals(REGION, Files.readString(checkpoint).trim());
+    }
+}
@@ -0,0 +1,70 @@
+package org.btuk.terralayers.converter.anvil;
+
+import org.btuk.terralayers.converter.nbt.CompoundTag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private static CompoundTag chunk(int size) {
+        // Random data does not compress, so the size decides whether the chunk fits in the region.
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        CompoundTag chunk = new CompoundTag();
+        chunk.put("data", data);
+        return chunk;
+    }
+
+    @Test
+    void chunksAreReadBack() throws IOException {
+        RegionWriter writer = new RegionWriter(-1, 2, 1);
+        writer.putChunk(0, chunk(10));
+        writer.putChunk(1023, chunk(20_000));
+        writer.write(directory);
+
+        try (RegionFile region = RegionFile.open(directory.resolve("r.-1.2.mca"))) {
+            assertArrayEquals((byte[]) chunk(10).get("data"), (byte[]) region.readChunk(0).get("data"));
+            assertArrayEquals((byte[]) chunk(20_000).get("data"), (byte[]) region.readChunk(1023).get("data"));
+            assertNull(region.readChunk(1));
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void largeChunksAreStoredExternally() throws IOException {
+        RegionWriter writer = new RegionWriter(0, 0, 1);
+        writer.putChunk(33, chunk(1_100_000));
+        writer.write(directory);
+
+        Path external = directory.resolve("c.1.1.mcc");
+        assertTrue(Files.exists(external));
+        assertFalse(Files.exists(directory.resolve("c.1.1.mcc.tmp")));
+        try (RegionFile region = RegionFile.open(directory.resolve("r.0.0.mca"))) {
+            assertArrayEquals((byte[]) chunk(1_100_000).get("data"), (byte[]) region.readChunk(33).get("data"));
+        }
+
+        // Once the chunk fits in the region again, the external file is stale.
+        writer.putChunk(33, chunk(100));
+        writer.write(directory);
+        assertFalse(Files.exists(external));
+        try (RegionFile region = RegionFile.open(directory.resolve("r.0.0.mca"))) {
+            assertArrayEquals((byte[]) chunk(100).get("data"), (byte[]) region.readChunk(33).get("data"));
+        }
+    }
+}
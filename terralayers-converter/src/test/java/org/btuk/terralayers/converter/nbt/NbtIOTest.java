@@ -0,0 +1,107 @@
+package org.btuk.terralayers.converter.nbt;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NbtIOTest {
+
+    private static byte[] write(CompoundTag tag) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        NbtIO.write(new DataOutputStream(bytes), tag);
+        return bytes.toByteArray();
+    }
+
+    private static CompoundTag read(byte[] bytes) throws IOException {
+        return NbtIO.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private static CompoundTag allTypes() {
+        CompoundTag nested = new CompoundTag();
+        nested.put("Name", "minecraft:stone");
+
+        ListTag compounds = new ListTag(NbtIO.TAG_COMPOUND);
+        compounds.add(nested);
+        ListTag doubles = new ListTag(NbtIO.TAG_DOUBLE);
+        doubles.add(1.5);
+        doubles.add(-64.25);
+
+        CompoundTag tag = new CompoundTag();
+        tag.put("byte", (byte) -7);
+        tag.put("short", (short) 1234);
+        tag.put("int", -123456);
+        tag.put("long", Long.MIN_VALUE);
+        tag.put("float", 0.25f);
+        tag.put("double", -1e300);
+        tag.put("bytes", new byte[]{1, -2, 3});
+        tag.put("string", "layer \u00e9");
+        tag.put("compounds", compounds);
+        tag.put("doubles", doubles);
+        tag.put("empty", new ListTag(NbtIO.TAG_END));
+        tag.put("nested", nested);
+        tag.put("ints", new int[]{Integer.MIN_VALUE, 0, Integer.MAX_VALUE});
+        tag.put("longs", new long[]{-1L, 1L << 40});
+        return tag;
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        byte[] bytes = write(allTypes());
+        CompoundTag tag = read(bytes);
+
+        assertEquals((byte) -7, tag.get("byte"));
+        assertEquals((short) 1234, tag.get("short"));
+        assertEquals(-123456, tag.get("int"));
+        assertEquals(Long.MIN_VALUE, tag.get("long"));
+        assertEquals(0.25f, tag.get("float"));
+        assertEquals(-1e300, tag.get("double"));
+        assertArrayEquals(new byte[]{1, -2, 3}, (byte[]) tag.get("bytes"));
+        assertEquals("layer \u00e9", tag.getString("string"));
+        assertEquals("minecraft:stone", tag.getList("compounds").getCompound(0).getString("Name"));
+        assertEquals(NbtIO.TAG_DOUBLE, tag.getList("doubles").getElementType());
+        assertEquals(List.of(1.5, -64.25), tag.getList("doubles").getValues());
+        assertEquals(0, tag.getList("empty").size());
+        assertEquals("minecraft:stone", tag.getCompound("nested").getString("Name"));
+        assertArrayEquals(new int[]{Integer.MIN_VALUE, 0, Integer.MAX_VALUE}, tag.getIntArray("ints"));
+        assertArrayEquals(new long[]{-1L, 1L << 40}, (long[]) tag.get("longs"));
+
+        // Writing the read tag gives the same bytes, including the order of the entries.
+        assertArrayEquals(bytes, write(tag));
+    }
+
+    @Test
+    void emptyListsAreWrittenAsEndLists() throws IOException {
+        CompoundTag tag = new CompoundTag();
+        tag.put("sections", new ListTag(NbtIO.TAG_COMPOUND));
+        assertEquals(NbtIO.TAG_END, read(write(tag)).getList("sections").getElementType());
+    }
+
+    @Test
+    void rejectsRootThatIsNotACompound() {
+        byte[] bytes = {NbtIO.TAG_INT, 0, 0, 0, 0, 0, 1};
+        assertThrows(IOException.class, () -> read(bytes));
+    }
+
+    @Test
+    void rejectsNegativeLengths() {
+        byte[] bytes = {NbtIO.TAG_COMPOUND, 0, 0, NbtIO.TAG_INT_ARRAY, 0, 1, 'a', -1, -1, -1, -1};
+        assertThrows(IOException.class, () -> read(bytes));
+    }
+
+    @Test
+    void rejectsUnsupportedValues() {
+        CompoundTag tag = new CompoundTag();
+        assertThrows(IllegalArgumentException.class, () -> tag.put("char", 'c'));
+        ListTag list = new ListTag(NbtIO.TAG_INT);
+        assertThrows(IllegalArgumentException.class, () -> list.add("text"));
+    }
+}
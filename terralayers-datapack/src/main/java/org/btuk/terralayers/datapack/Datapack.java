@@ -2,14 +2,23 @@ package org.btuk.terralayers.datapack;
 
 import org.btuk.terralayers.datapack.compatability.FileHelper;
 import org.btuk.terralayers.datapack.compatability.PackVersion;
+import tools.jackson.core.JacksonException;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Comparator;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -19,6 +28,14 @@ import java.util.stream.StreamSupport;
  */
 public class Datapack {
 
+    private static final String PACK_MCMETA = "pack.mcmeta";
+    private static final String OVERWORLD = "data/minecraft/dimension_type/overworld.json";
+
+    /**
+     * Shared mapper, Jackson mappers are thread-safe once configured.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     private final Logger logger;
 
     private final String version;
@@ -27,6 +44,8 @@ public class Datapack {
     private final int worldHeight;
     private final String name;
 
+    private Map<String, byte[]> rendered;
+
     /**
      * Creates a new datapack instance based on a datapack in the file system.
      *
@@ -38,15 +57,17 @@ public class Datapack {
         if (!Files.exists(datapackPath)) {
             throw new IllegalArgumentException("Datapack does not exist at " + datapackPath);
         }
-        Path packMcMeta = datapackPath.resolve("pack.mcmeta");
-        Path packOverworld = datapackPath.resolve("data/minecraft/dimension_type/overworld.json");
+        Path packMcMeta = datapackPath.resolve(PACK_MCMETA);
+        Path packOverworld = datapackPath.resolve(OVERWORLD);
 
         this.name = name;
         try {
-            this.version = getPackVersion(packMcMeta);
-            this.yMin = getMinY(packOverworld);
-            this.worldHeight = getHeight(packOverworld);
-        } catch (IOException e) {
+            this.version = getPackVersion(MAPPER.readTree(Files.readString(packMcMeta)));
+            // Parse the dimension type once for both values.
+            JsonNode overworld = MAPPER.readTree(Files.readString(packOverworld));
+            this.yMin = overworld.path("min_y").asInt();
+            this.worldHeight = overworld.path("height").asInt();
+        } catch (IOException | JacksonException e) {
             throw new RuntimeException("Failed to read values from datapack", e);
         }
     }
@@ -68,78 +89,105 @@ public class Datapack {
 
     /**
      * Saves the datapack to the disk.
+     * Only files whose contents differ from the rendered datapack are written, each file is written atomically.
+     * Files in the datapack directory that are not part of the datapack are removed.
      *
      * @param pathToDatapacks the path to the datapack directory
-     * @return true if the pack was saved successfully
+     * @return whether the pack was unchanged, updated or could not be saved
      */
-    public boolean saveToDisk(Path pathToDatapacks) {
-        boolean success = true;
-
-        // Check if the datapack already exists, if true, delete it.
+    public SaveResult saveToDisk(Path pathToDatapacks) {
         Path datapackPath = pathToDatapacks.resolve(name);
-        if (Files.exists(datapackPath)) {
-            success = deleteFromDisk(datapackPath);
-        }
-
         try {
-            Files.createDirectories(datapackPath);
-
-            // Get the pack.mcmeta file for this version and save it datapack directory.
-            Path packMcMetaTarget = datapackPath.resolve("pack.mcmeta");
-            try (InputStream is = FileHelper.getPackMCMeta(version).openStream()) {
-                Files.copy(is, packMcMetaTarget);
+            Map<String, byte[]> files = render();
+            boolean changed = false;
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                Path target = datapackPath.resolve(file.getKey());
+                if (!Arrays.equals(hash(file.getValue()), hashOnDisk(target))) {
+                    writeAtomically(target, file.getValue());
+                    changed = true;
+                }
             }
+            changed |= deleteUnknownFiles(datapackPath, files.keySet());
+            return changed ? SaveResult.UPDATED : SaveResult.UNCHANGED;
+        } catch (IOException | UncheckedIOException e) {
+            logger.severe("Failed to save datapack to disk: " + e.getMessage());
+            return SaveResult.FAILED;
+        }
+    }
 
-            // Create the data/minecraft/dimension_type directory.
-            Files.createDirectories(datapackPath.resolve("data/minecraft/dimension_type"));
-
-            // Get the overworld.json dimension_type and replace the template values.
-            Path targetPath = datapackPath.resolve("data/minecraft/dimension_type/overworld.json");
-            try (InputStream is = FileHelper.getOverworldDimensionType(version).openStream()) {
-                // Read the content of the template file
-                String content = new String(is.readAllBytes());
-
-                // Replace the placeholders for the yMin and worldHeight.
-                content = content.replace("%yMin%", String.valueOf(yMin));
-                content = content.replace("%worldHeight%", String.valueOf(worldHeight));
-
-                // Write the modified content to the new file location.
-                Files.writeString(targetPath, content);
-            }
+    /**
+     * Renders the files of this datapack from the cached templates, by path relative to the datapack directory.
+     */
+    private Map<String, byte[]> render() {
+        if (rendered == null) {
+            // Replace the placeholders for the yMin and worldHeight.
+            String overworld = FileHelper.readOverworldDimensionType(version)
+                    .replace("%yMin%", String.valueOf(yMin))
+                    .replace("%worldHeight%", String.valueOf(worldHeight));
+            rendered = Map.of(
+                    PACK_MCMETA, FileHelper.readPackMCMeta(version).getBytes(StandardCharsets.UTF_8),
+                    OVERWORLD, overworld.getBytes(StandardCharsets.UTF_8));
+        }
+        return rendered;
+    }
 
-        } catch (IOException e) {
-            logger.severe("Failed to save datapack to disk: " + e.getMessage());
-            success = false;
+    private static byte[] hashOnDisk(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
         }
+        return hash(Files.readAllBytes(path));
+    }
 
-        return success;
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    private boolean deleteFromDisk(Path relativePathFromServer) {
+    /**
+     * Writes a file through a temporary file in the same directory, so the file is never seen half-written.
+     */
+    private static void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
         try {
-            try (var stream = Files.walk(relativePathFromServer)) {
-                stream.sorted(Comparator.reverseOrder()).forEach(path -> {
-                    try {
-                        Files.delete(path);
-                    } catch (IOException e) {
-                        logger.severe("Failed to delete file: " + path);
-                    }
-                });
+            Files.write(temp, content);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (IOException e) {
-            logger.severe("Failed to delete directory: " + relativePathFromServer);
-            return false;
+        } finally {
+            Files.deleteIfExists(temp);
         }
-
-        return !Files.exists(relativePathFromServer);
     }
 
-    private static String getPackVersion(Path path) throws IOException {
-        String jsonContent = Files.readString(path);
+    /**
+     * Deletes the files in the datapack directory that are not part of the datapack.
+     *
+     * @return whether any file was deleted
+     */
+    private boolean deleteUnknownFiles(Path datapackPath, Set<String> known) throws IOException {
+        if (!Files.isDirectory(datapackPath)) {
+            return false;
+        }
+        List<Path> unknown;
+        try (var stream = Files.walk(datapackPath)) {
+            unknown = stream.filter(Files::isRegularFile)
+                    .filter(path -> !known.contains(datapackPath.relativize(path).toString().replace('\\', '/')))
+                    .toList();
+        }
+        for (Path path : unknown) {
+            logger.info("Removing unknown file from datapack: " + path);
+            Files.delete(path);
+        }
+        return !unknown.isEmpty();
+    }
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode rootNode = objectMapper.readTree(jsonContent);
-        JsonNode minFormatNode = rootNode.path("pack").path("min_format");
+    private static String getPackVersion(JsonNode packMcMeta) {
+        JsonNode minFormatNode = packMcMeta.path("pack").path("min_format");
 
         // Convert the array to a string with periods
         if (minFormatNode.isArray()) {
@@ -151,25 +199,6 @@ public class Datapack {
         }
     }
 
-    private static int getHeight(Path path) throws IOException {
-        String jsonContent = Files.readString(path);
-
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode rootNode = objectMapper.readTree(jsonContent);
-
-        return rootNode.path("height").asInt();
-    }
-
-    private static int getMinY(Path path) throws IOException {
-        String jsonContent = Files.readString(path);
-
-        // Parse the JSON using Jackson
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode rootNode = objectMapper.readTree(jsonContent);
-
-        return rootNode.path("min_y").asInt();
-    }
-
     public String getVersion() {
         return version;
     }
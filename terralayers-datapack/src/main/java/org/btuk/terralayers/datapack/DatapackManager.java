@@ -46,31 +46,39 @@ public class DatapackManager {
     }
 
     /**
-     * Saves the datapack to the given world in the file system.
+     * Saves the datapack to the given world in the file system, only writing the files that changed.
      *
      * @param datapack  the datapack
      * @param worldName the world name
-     * @return whether the datapack was successfully saved
+     * @return whether the datapack was unchanged, updated or could not be saved
      */
-    public boolean saveDatapackToWorld(Datapack datapack, Path serverPath, String worldName) {
+    public SaveResult saveDatapackToWorld(Datapack datapack, Path serverPath, String worldName) {
         return datapack.saveToDisk(serverPath.resolve(worldName).resolve(DATAPACK_DIRECTORY));
     }
 
     /**
-     * Reloads the datapack on the server.
+     * Enables the datapack on the server.
+     * Refreshing the packs is expensive, so they are only refreshed when the datapack changed on disk
+     * or the server does not know the datapack yet.
      *
-     * @param logger logger
-     * @return true if the datapack was reloaded
+     * @param logger  logger
+     * @param changed whether the contents of the datapack on disk changed
+     * @return true if the datapack is enabled
      */
-    public boolean enableDatapack(Logger logger, Datapack datapack) {
+    public boolean enableDatapack(Logger logger, Datapack datapack, boolean changed) {
         io.papermc.paper.datapack.DatapackManager manager = Bukkit.getDatapackManager();
-        manager.refreshPacks();
-        io.papermc.paper.datapack.Datapack pack = manager.getPack("file/" + datapack.getName());
+        io.papermc.paper.datapack.Datapack pack = changed ? null : manager.getPack("file/" + datapack.getName());
+        if (pack == null) {
+            manager.refreshPacks();
+            pack = manager.getPack("file/" + datapack.getName());
+        }
         if (pack == null) {
             logger.severe("Failed to reload datapack: " + datapack.getName());
             return false;
         }
-        pack.setEnabled(true);
+        if (!pack.isEnabled()) {
+            pack.setEnabled(true);
+        }
         return true;
     }
 }
@@ -0,0 +1,23 @@
+package org.btuk.terralayers.datapack;
+
+/**
+ * Result of saving a datapack to disk.
+ */
+public enum SaveResult {
+    /**
+     * The datapack on disk already had the same contents, nothing was written.
+     */
+    UNCHANGED,
+    /**
+     * One or more files of the datapack were written or removed.
+     */
+    UPDATED,
+    /**
+     * The datapack could not be saved.
+     */
+    FAILED;
+
+    public boolean isSuccess() {
+        return this != FAILED;
+    }
+}
@@ -1,14 +1,23 @@
 package org.btuk.terralayers.datapack.compatability;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URL;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Helper for getting datapack files for a specific datapack version.
  */
 public class FileHelper {
 
+    /**
+     * Contents of the resources that have been read, by resource path.
+     */
+    private static final Map<String, String> CONTENTS = new ConcurrentHashMap<>();
+
     /**
      * Get the pack mc meta file for the specified datapack version.
      *
@@ -40,4 +49,34 @@ public class FileHelper {
             throw new IllegalArgumentException("Resource not found: " + resourcePath);
         }
     }
+
+    /**
+     * Get the contents of the pack mc meta file for the specified datapack version.
+     * The file is read once and cached.
+     *
+     * @param version the datapack version
+     * @return the contents of the pack mc meta file
+     */
+    public static String readPackMCMeta(String version) {
+        return CONTENTS.computeIfAbsent("TerraLayers/pack.mcmeta." + version, path -> read(getPackMCMeta(version)));
+    }
+
+    /**
+     * Get the contents of the overworld dimension type template for the specified datapack version.
+     * The file is read once and cached.
+     *
+     * @param version the datapack version
+     * @return the contents of the template, with placeholders for the yMin and worldHeight
+     */
+    public static String readOverworldDimensionType(String version) {
+        return CONTENTS.computeIfAbsent("TerraLayers/dimension_type/overworld.json." + version, path -> read(getOverworldDimensionType(version)));
+    }
+
+    private static String read(URL url) {
+        try (InputStream is = url.openStream()) {
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read resource " + url, e);
+        }
+    }
 }
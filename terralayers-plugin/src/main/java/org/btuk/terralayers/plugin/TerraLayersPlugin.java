@@ -1,27 +1,53 @@
 package org.btuk.terralayers.plugin;
 
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import io.papermc.paper.command.brigadier.Commands;
+import io.papermc.paper.command.brigadier.argument.ArgumentTypes;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
 import org.btuk.terralayers.api.LayerManager;
 import org.btuk.terralayers.datapack.Datapack;
 import org.btuk.terralayers.datapack.DatapackManager;
 import org.btuk.terralayers.plugin.command.TerraLayersCommand;
 import org.btuk.terralayers.plugin.config.ConfigManager;
+import org.btuk.terralayers.plugin.edit.EditEngine;
+import org.btuk.terralayers.plugin.generator.LayerChunkGenerator;
+import org.btuk.terralayers.plugin.hud.GlobalYHud;
+import org.btuk.terralayers.plugin.impl.ChunkTickets;
+import org.btuk.terralayers.plugin.impl.LayerWorldLoader;
+import org.btuk.terralayers.plugin.io.IoExecutor;
 import org.btuk.terralayers.plugin.impl.SimpleLayerManager;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
+import org.btuk.terralayers.plugin.listeners.BufferMirrorListener;
 import org.btuk.terralayers.plugin.listeners.SwitchLayerListener;
 import org.btuk.terralayers.plugin.listeners.TerraLayersListener;
 import org.btuk.terralayers.plugin.listeners.WorldLoadListener;
+import org.btuk.terralayers.plugin.mirror.BufferMirror;
 import org.btuk.terralayers.plugin.multiverse.WorldManager;
+import org.btuk.terralayers.plugin.prefetch.LayerPrefetcher;
+import org.btuk.terralayers.plugin.pregen.ChunkPregenerator;
+import org.btuk.terralayers.plugin.presence.PresenceMirror;
+import org.btuk.terralayers.plugin.scheduler.FoliaSupport;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
+import org.btuk.terralayers.plugin.scheduler.TickMonitor;
+import org.btuk.terralayers.plugin.transition.LayerSwitcher;
+import org.btuk.terralayers.plugin.transition.TransitionEngine;
 import org.bukkit.Bukkit;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 
 public final class TerraLayersPlugin extends JavaPlugin {
 
@@ -29,6 +55,19 @@ public final class TerraLayersPlugin extends JavaPlugin {
     private SimpleLayerManager layerManager;
     private final List<TerraLayersListener> listeners = new ArrayList<>();
     private WorldManager worldManager;
+    private GlobalYHud hud;
+    private ChunkTickets tickets;
+    private LayerPrefetcher prefetcher;
+    private LayerWorldLoader worldLoader;
+    private BufferMirror mirror;
+    private PresenceMirror presence;
+    private TransitionEngine transitionEngine;
+    private LayerSwitcher layerSwitcher;
+    private EditEngine editEngine;
+    private ChunkPregenerator pregenerator;
+    private TerraLayersScheduler scheduler;
+    private IoExecutor io;
+    private final TerraLayersMetrics metrics = new TerraLayersMetrics();
 
     @Override
     public void onEnable() {
@@ -36,23 +75,86 @@ public final class TerraLayersPlugin extends JavaPlugin {
         this.configManager = new ConfigManager(this);
         this.configManager.load();
 
+        if (FoliaSupport.isFolia()) {
+            getLogger().warning("Running on Folia: world creation, pregeneration, lazy loading, buffer mirroring, player presence and edits are not supported and are disabled, "
+                    + "layer transitions always use asynchronous teleports.");
+        }
+
         // Initialize services based on config
         initializeServicesFromConfig();
 
         // Register services so other plugins (depending on terralayers-api) can use them
         registerServices();
 
-        this.listeners.add(new SwitchLayerListener(this, layerManager, configManager));
-        this.listeners.add(new WorldLoadListener(this, layerManager, configManager));
-
         this.worldManager = new WorldManager();
+        this.io = new IoExecutor(getLogger());
+
+        // Heavy main-thread work is run by the scheduler, paced by the measured tick duration.
+        TickMonitor tickMonitor = new TickMonitor(this);
+        this.listeners.add(tickMonitor);
+        this.scheduler = new TerraLayersScheduler(this, tickMonitor, metrics, configManager.getSchedulerTargetMspt(), configManager.getSchedulerTickBudgetMillis());
+        this.scheduler.start();
+
+        this.tickets = new ChunkTickets(this);
+        this.worldLoader = new LayerWorldLoader(this, layerManager, worldManager, scheduler, tickets,
+                configManager.getLazyLoadingIdleSeconds(), configManager.getLazyLoadingMaxLoadedLayers());
+        configureWorldLoader();
+
+        this.hud = new GlobalYHud(this, configManager.isHudEnabled());
+        this.hud.start();
+
+        this.prefetcher = new LayerPrefetcher(this, layerManager, tickets, configManager.isPrefetchEnabled(),
+                configManager.getPrefetchRadius(), configManager.getPrefetchLookaheadTicks());
+
+        this.mirror = new BufferMirror(this, layerManager, metrics, scheduler, isMirroringEnabled(), configManager.getMirroringTickBudgetMillis());
+        this.mirror.start();
+
+        this.presence = new PresenceMirror(this, layerManager, scheduler, isPresenceEnabled(), configManager.getPresenceRange());
+        this.presence.start();
+
+        this.transitionEngine = new TransitionEngine(this, layerManager, metrics, prefetcher, configManager.getTransitionsMaxPerTick());
+        this.layerSwitcher = new LayerSwitcher(getLogger(), layerManager, hud, metrics, prefetcher, presence, layerManager.getPlayerIndex());
+        configureTransitions();
+        this.listeners.add(new SwitchLayerListener(this, layerSwitcher, hud));
+        this.listeners.add(new WorldLoadListener(this, layerManager, configManager, metrics, tickets));
+        this.listeners.add(new BufferMirrorListener(this, mirror));
+
+        this.editEngine = new EditEngine(this, layerManager, scheduler, tickets, configManager.getEditsBlocksPerTick(), configManager.getEditsMaxUndoBlocks());
+        this.editEngine.start();
+
+        this.pregenerator = new ChunkPregenerator(this, layerManager, scheduler, configManager.getPregenMaxInFlight());
 
         // Register command(s)
-        TerraLayersCommand terraLayersCommand = new TerraLayersCommand(this, layerManager, configManager, worldManager);
+        TerraLayersCommand terraLayersCommand = new TerraLayersCommand(this, layerManager, configManager, worldManager, hud, metrics, scheduler, editEngine, io, pregenerator);
         this.getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS, commands -> {
-            LiteralArgumentBuilder<CommandSourceStack> command = Commands.literal("terralayers")
+            LiteralArgumentBuilder<CommandSourceStack> command = Commands.literal("terralayers").executes(terraLayersCommand::help)
+                    .then(Commands.literal("help").executes(terraLayersCommand::help))
                     .then(Commands.literal("reload").executes(terraLayersCommand::reload))
-                    .then(Commands.literal("init").executes(terraLayersCommand::init));
+                    .then(Commands.literal("init").executes(terraLayersCommand::init)
+                            .then(Commands.literal("cancel").executes(terraLayersCommand::initCancel)))
+                    .then(Commands.literal("hud").executes(terraLayersCommand::hud))
+                    .then(Commands.literal("stats").executes(terraLayersCommand::stats)
+                            .then(Commands.literal("reset").executes(terraLayersCommand::statsReset)))
+                    .then(Commands.literal("edit")
+                            .then(Commands.literal("fill").then(cuboid(z2 -> z2
+                                    .then(Commands.argument("block", ArgumentTypes.blockState()).executes(terraLayersCommand::editFill)))))
+                            .then(Commands.literal("replace").then(cuboid(z2 -> z2
+                                    .then(Commands.argument("from", ArgumentTypes.blockState())
+                                            .then(Commands.argument("to", ArgumentTypes.blockState()).executes(terraLayersCommand::editReplace))))))
+                            .then(Commands.literal("clear").then(cuboid(z2 -> z2.executes(terraLayersCommand::editClear))))
+                            .then(Commands.literal("undo").executes(terraLayersCommand::editUndo))
+                            .then(Commands.literal("cancel").executes(terraLayersCommand::editCancel))
+                            .then(Commands.literal("status").executes(terraLayersCommand::editStatus)))
+                    .then(Commands.literal("pregen")
+                            .then(Commands.argument("x1", IntegerArgumentType.integer())
+                                    .then(Commands.argument("z1", IntegerArgumentType.integer())
+                                            .then(Commands.argument("x2", IntegerArgumentType.integer())
+                                                    .then(Commands.argument("z2", IntegerArgumentType.integer()).executes(terraLayersCommand::pregen)
+                                                            .then(Commands.argument("fromLayer", IntegerArgumentType.integer(0))
+                                                                    .then(Commands.argument("toLayer", IntegerArgumentType.integer(0)).executes(terraLayersCommand::pregenLayers)))))))
+                            .then(Commands.literal("resume").executes(terraLayersCommand::pregenResume))
+                            .then(Commands.literal("cancel").executes(terraLayersCommand::pregenCancel))
+                            .then(Commands.literal("status").executes(terraLayersCommand::pregenStatus)));
 
             LiteralCommandNode<CommandSourceStack> buildCommand = command.build();
             commands.registrar().register(buildCommand);
@@ -64,11 +166,54 @@ public final class TerraLayersPlugin extends JavaPlugin {
     @Override
     public void onDisable() {
         this.listeners.forEach(TerraLayersListener::unregister);
+        this.hud.stop();
+        this.worldLoader.stop();
+        this.mirror.stop();
+        this.presence.stop();
+        this.transitionEngine.stop();
+        this.editEngine.stop();
+        // Save the pregeneration progress before the I/O executor stops.
+        this.pregenerator.stop();
+        this.scheduler.stop();
+        // Let pending writes finish before the plugin is gone.
+        this.io.stop();
 
         // Unregister services
         unregisterServices();
     }
 
+    /**
+     * The generator of the layer worlds, {@code TerraLayers:<offset>}, wrapping Terraplusminus with the same offset.
+     */
+    @Override
+    public ChunkGenerator getDefaultWorldGenerator(String worldName, String id) {
+        Plugin terraplusminus = getServer().getPluginManager().getPlugin("Terraplusminus");
+        ChunkGenerator delegate = terraplusminus == null ? null : terraplusminus.getDefaultWorldGenerator(worldName, id);
+        if (delegate == null) {
+            getLogger().severe("Terraplusminus did not provide a generator for world " + worldName + " with offset " + id + ".");
+            return null;
+        }
+        if (configManager == null || !configManager.isGenerationSkipEmptyChunks()) {
+            return delegate;
+        }
+        return new LayerChunkGenerator(getLogger(), delegate, configManager.getGenerationSurfaceMargin(), configManager.getGenerationSolidDepth());
+    }
+
+    /**
+     * The arguments of a global cuboid, from {@code x1 y1 z1} to {@code x2 y2 z2}.
+     *
+     * @param last adds the arguments following {@code z2}
+     */
+    private static RequiredArgumentBuilder<CommandSourceStack, Integer> cuboid(
+            UnaryOperator<ArgumentBuilder<CommandSourceStack, ?>> last) {
+        return Commands.argument("x1", IntegerArgumentType.integer())
+                .then(Commands.argument("y1", IntegerArgumentType.integer())
+                        .then(Commands.argument("z1", IntegerArgumentType.integer())
+                                .then(Commands.argument("x2", IntegerArgumentType.integer())
+                                        .then(Commands.argument("y2", IntegerArgumentType.integer())
+                                                .then(last.apply(Commands.argument("z2", IntegerArgumentType.integer())))))));
+    }
+
     private void registerServices() {
         Bukkit.getServicesManager().register(LayerManager.class, this.layerManager, this, ServicePriority.Normal);
     }
@@ -83,12 +228,92 @@ public final class TerraLayersPlugin extends JavaPlugin {
         this.layerManager = new SimpleLayerManager(this, worldHeight, bufferSize);
     }
 
+    private void configureWorldLoader() {
+        if (isLazyLoadingEnabled()) {
+            layerManager.setWorldLoader(worldLoader);
+            worldLoader.start();
+        } else {
+            layerManager.setWorldLoader(null);
+            worldLoader.stop();
+            // Undo the autoload changes of lazy loading, the worlds would otherwise never be loaded again.
+            worldLoader.restoreAutoLoad();
+        }
+    }
+
+    /**
+     * Whether layer worlds are loaded on demand, worlds cannot be loaded while the server is running on Folia.
+     */
+    private boolean isLazyLoadingEnabled() {
+        return configManager.isLazyLoadingEnabled() && !FoliaSupport.isFolia();
+    }
+
+    private void configureTransitions() {
+        // On Folia, players can only change worlds through an asynchronous teleport.
+        if (configManager.isAsyncTransitionsEnabled() || FoliaSupport.isFolia()) {
+            layerSwitcher.setTransitionEngine(transitionEngine);
+            transitionEngine.start();
+        } else {
+            layerSwitcher.setTransitionEngine(null);
+            transitionEngine.stop();
+        }
+    }
+
+    /**
+     * Whether blocks are mirrored between the buffers of adjacent layers, which changes blocks in other worlds
+     * from the main thread and is therefore not supported on Folia.
+     */
+    private boolean isMirroringEnabled() {
+        return configManager.isMirroringEnabled() && !FoliaSupport.isFolia();
+    }
+
+    /**
+     * Whether players in the overlap are shown in the adjacent layer, which spawns entities in other worlds
+     * from the main thread and is therefore not supported on Folia.
+     */
+    private boolean isPresenceEnabled() {
+        return configManager.isPresenceEnabled() && !FoliaSupport.isFolia();
+    }
+
     public void reloadFromDisk() {
         // Reload config and reinitialize services
         this.configManager.reload();
-        unregisterServices();
-        initializeServicesFromConfig();
-        registerServices();
+        this.scheduler.configure(configManager.getSchedulerTargetMspt(), configManager.getSchedulerTickBudgetMillis());
+        this.hud.setEnabled(configManager.isHudEnabled());
+        this.prefetcher.configure(configManager.isPrefetchEnabled(), configManager.getPrefetchRadius(), configManager.getPrefetchLookaheadTicks());
+        this.worldLoader.configure(configManager.getLazyLoadingIdleSeconds(), configManager.getLazyLoadingMaxLoadedLayers());
+        this.mirror.configure(isMirroringEnabled(), configManager.getMirroringTickBudgetMillis());
+        this.presence.configure(isPresenceEnabled(), configManager.getPresenceRange());
+        this.transitionEngine.configure(configManager.getTransitionsMaxPerTick());
+        configureTransitions();
+        this.editEngine.configure(configManager.getEditsBlocksPerTick(), configManager.getEditsMaxUndoBlocks());
+        this.pregenerator.configure(configManager.getPregenMaxInFlight());
+        configureWorldLoader();
+        // Rebuild the layers in place, the layer manager stays registered and referenced by the listeners.
+        if (getServer().getRespawnWorld() != null) {
+            loadLayers().exceptionally(e -> {
+                getLogger().severe("Failed to reload layers, keeping the current layers: " + e.getMessage());
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Loads the layers from the configuration and the datapack of the main world.
+     * The datapack is read on the I/O executor, the layers are replaced on the main thread.
+     * Must be called once the main world has loaded.
+     *
+     * @return a future completing once the layers have been loaded
+     */
+    public CompletableFuture<Void> loadLayers() {
+        DatapackManager datapackManager = new DatapackManager(getLogger(), -configManager.getBufferSize(), configManager.getWorldHeight() + 2 * configManager.getBufferSize());
+        Path worldPath = getServer().getRespawnWorld().getWorldPath();
+        return io.supply(() -> datapackManager.loadDatapack(worldPath))
+                .thenCompose(datapack -> scheduler.submit(TerraLayersScheduler.Priority.HIGH, () -> {
+                    layerManager.loadLayers(configManager, datapack);
+                    if (!isLazyLoadingEnabled()) {
+                        worldLoader.restoreAutoLoad();
+                    }
+                }));
     }
 
     public ConfigManager getConfigManager() {
@@ -1,31 +1,57 @@
 package org.btuk.terralayers.plugin.command;
 
 import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import org.btuk.terralayers.api.LayeredWorld;
 import org.btuk.terralayers.datapack.Datapack;
 import org.btuk.terralayers.datapack.DatapackManager;
+import org.btuk.terralayers.datapack.SaveResult;
 import org.btuk.terralayers.plugin.TerraLayersPlugin;
 import org.btuk.terralayers.plugin.config.ConfigManager;
+import org.btuk.terralayers.plugin.edit.EditEngine;
+import org.btuk.terralayers.plugin.edit.EditOperation;
+import org.btuk.terralayers.plugin.edit.EditTask;
+import org.btuk.terralayers.plugin.edit.GlobalCuboid;
+import org.btuk.terralayers.plugin.hud.GlobalYHud;
 import org.btuk.terralayers.plugin.impl.SimpleLayerManager;
+import org.btuk.terralayers.plugin.init.InitCheckpoint;
+import org.btuk.terralayers.plugin.init.WorldCreationPipeline;
+import org.btuk.terralayers.plugin.io.AtomicFiles;
+import org.btuk.terralayers.plugin.io.IoExecutor;
+import org.btuk.terralayers.plugin.metrics.LatencyHistogram;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
 import org.btuk.terralayers.plugin.multiverse.WorldManager;
+import org.btuk.terralayers.plugin.pregen.ChunkPregenerator;
+import org.btuk.terralayers.plugin.pregen.PregenCheckpoint;
+import org.btuk.terralayers.plugin.pregen.PregenRegion;
+import org.btuk.terralayers.plugin.scheduler.FoliaSupport;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
 import org.bukkit.World;
+import org.bukkit.block.BlockState;
 import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.mvplugins.multiverse.core.world.LoadedMultiverseWorld;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.CompletableFuture;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.LongAdder;
 
 public class TerraLayersCommand {
 
@@ -33,15 +59,48 @@ public class TerraLayersCommand {
     private final SimpleLayerManager layerManager;
     private final ConfigManager configManager;
     private final WorldManager worldManager;
+    private final GlobalYHud hud;
+    private final TerraLayersMetrics metrics;
+    private final TerraLayersScheduler scheduler;
+    private final EditEngine editEngine;
+    private final IoExecutor io;
+    private final ChunkPregenerator pregenerator;
+
+    private WorldCreationPipeline pipeline;
+    private boolean preparing;
+
+    /**
+     * The files read before the layer worlds are created.
+     *
+     * @param serverProperties the server properties
+     * @param checkpoint       the checkpoint of a previous init
+     * @param datapackSaved    the result of saving the datapack to the current default world
+     */
+    private record InitFiles(Properties serverProperties, InitCheckpoint checkpoint, SaveResult datapackSaved) {
+    }
 
-    public TerraLayersCommand(TerraLayersPlugin plugin, SimpleLayerManager layerManager, ConfigManager configManager, WorldManager worldManager) {
+    public TerraLayersCommand(TerraLayersPlugin plugin, SimpleLayerManager layerManager, ConfigManager configManager, WorldManager worldManager,
+                              GlobalYHud hud, TerraLayersMetrics metrics, TerraLayersScheduler scheduler, EditEngine editEngine, IoExecutor io,
+                              ChunkPregenerator pregenerator) {
         this.plugin = plugin;
         this.layerManager = layerManager;
         this.configManager = configManager;
         this.worldManager = worldManager;
+        this.hud = hud;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.editEngine = editEngine;
+        this.io = io;
+        this.pregenerator = pregenerator;
     }
 
     // Command handlers
+    public int help(CommandContext<CommandSourceStack> context) {
+        String label = context.getInput().split(" ", 2)[0];
+        info(context.getSource().getSender(), label.startsWith("/") ? label.substring(1) : label);
+        return Command.SINGLE_SUCCESS;
+    }
+
     public int reload(CommandContext<CommandSourceStack> context) {
         CommandSender sender = context.getSource().getSender();
         if (!sender.hasPermission("terralayers.reload")) {
@@ -65,51 +124,358 @@ public class TerraLayersCommand {
             noPermission(sender);
             return Command.SINGLE_SUCCESS;
         }
+        if (FoliaSupport.isFolia()) {
+            notSupportedOnFolia(sender);
+            return Command.SINGLE_SUCCESS;
+        }
         initLayers(sender);
         return Command.SINGLE_SUCCESS;
     }
 
+    public int initCancel(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.init")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (pipeline == null || !pipeline.isRunning()) {
+            sender.sendMessage(Component.text("No initialisation is running.", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+        pipeline.cancel();
+        sender.sendMessage(Component.text("Cancelling initialisation after the worlds currently being created.", NamedTextColor.YELLOW));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int hud(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!(sender instanceof Player player)) {
+            sender.sendMessage(Component.text("Only players can toggle the y-level display.", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+        if (!sender.hasPermission("terralayers.hud")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (!hud.isEnabled()) {
+            sender.sendMessage(Component.text("The y-level display is disabled on this server.", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+        boolean hidden = !hud.isHidden(player);
+        hud.setHidden(player, hidden);
+        sender.sendMessage(Component.text("Y-level display " + (hidden ? "hidden" : "shown") + ".", NamedTextColor.GREEN));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int stats(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.stats")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        sender.sendMessage(Component.text("TerraLayers stats", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Ready layers: ", NamedTextColor.GRAY)
+                .append(Component.text(layerManager.getReadyLayers().size() + "/" + layerManager.getLayerCount(), NamedTextColor.YELLOW)));
+        sendHistogram(sender, "Move handler", metrics.getMoveHandler());
+        sendHistogram(sender, "World load", metrics.getWorldLoad());
+        sender.sendMessage(Component.text("Cancelled out-of-range moves: ", NamedTextColor.GRAY)
+                .append(Component.text(metrics.getCancelledMoves(), NamedTextColor.YELLOW)));
+        sender.sendMessage(Component.text("Mirrored buffer blocks: ", NamedTextColor.GRAY)
+                .append(Component.text(metrics.getMirroredBlocks(), NamedTextColor.YELLOW)));
+        sendHistogram(sender, "Scheduler lag", metrics.getSchedulerLag());
+        sender.sendMessage(Component.text("Scheduler queue: ", NamedTextColor.GRAY)
+                .append(Component.text(scheduler.getQueueDepth() + " tasks, " + scheduler.getWorkerCount() + " workers, "
+                        + metrics.getSchedulerDeferredTicks() + " deferred ticks", NamedTextColor.YELLOW)));
+
+        Map<String, LongAdder> transitions = new TreeMap<>(metrics.getTransitions());
+        sender.sendMessage(Component.text("Layer transitions: ", NamedTextColor.GRAY)
+                .append(Component.text(transitions.values().stream().mapToLong(LongAdder::sum).sum(), NamedTextColor.YELLOW)));
+        transitions.forEach((pair, count) -> sender.sendMessage(Component.text("  " + pair + ": ", NamedTextColor.GRAY)
+                .append(Component.text(count.sum(), NamedTextColor.YELLOW))));
+
+        new TreeMap<>(metrics.getInitPhases()).forEach((phase, histogram) -> sendHistogram(sender, "Init " + phase, histogram));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int statsReset(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.stats")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        metrics.reset();
+        sender.sendMessage(Component.text("TerraLayers stats reset.", NamedTextColor.GREEN));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int editFill(CommandContext<CommandSourceStack> context) {
+        BlockState block = context.getArgument("block", BlockState.class);
+        return submitEdit(context, EditOperation.fill(block.getBlockData()));
+    }
+
+    public int editReplace(CommandContext<CommandSourceStack> context) {
+        BlockState from = context.getArgument("from", BlockState.class);
+        BlockState to = context.getArgument("to", BlockState.class);
+        return submitEdit(context, EditOperation.replace(from.getBlockData(), to.getBlockData()));
+    }
+
+    public int editClear(CommandContext<CommandSourceStack> context) {
+        return submitEdit(context, EditOperation.clear());
+    }
+
+    public int editUndo(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.edit")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (editEngine.undo(sender) == null) {
+            sender.sendMessage(Component.text("You have no edit that can be undone.", NamedTextColor.RED));
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int editCancel(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.edit")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        EditTask cancelled = editEngine.cancel();
+        if (cancelled == null) {
+            sender.sendMessage(Component.text("No edit is running.", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+        sender.sendMessage(Component.text("Cancelling " + cancelled.getDescription() + ".", NamedTextColor.YELLOW));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int editStatus(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.edit")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        EditTask current = editEngine.getCurrent();
+        if (current == null) {
+            sender.sendMessage(Component.text("No edit is running.", NamedTextColor.GRAY));
+            return Command.SINGLE_SUCCESS;
+        }
+        sender.sendMessage(Component.text("Running " + current.getDescription() + " by " + current.getSender().getName() + ": "
+                + current.getProcessedBlocks() + "/" + current.getTotalBlocks() + " blocks, "
+                + editEngine.getQueueSize() + " edit(s) queued.", NamedTextColor.GRAY));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int pregen(CommandContext<CommandSourceStack> context) {
+        PregenRegion region = PregenRegion.between(
+                IntegerArgumentType.getInteger(context, "x1"), IntegerArgumentType.getInteger(context, "z1"),
+                IntegerArgumentType.getInteger(context, "x2"), IntegerArgumentType.getInteger(context, "z2"),
+                0, layerManager.getLayerCount() - 1);
+        return startPregen(context, region);
+    }
+
+    public int pregenLayers(CommandContext<CommandSourceStack> context) {
+        PregenRegion region = PregenRegion.between(
+                IntegerArgumentType.getInteger(context, "x1"), IntegerArgumentType.getInteger(context, "z1"),
+                IntegerArgumentType.getInteger(context, "x2"), IntegerArgumentType.getInteger(context, "z2"),
+                IntegerArgumentType.getInteger(context, "fromLayer"), IntegerArgumentType.getInteger(context, "toLayer"));
+        return startPregen(context, region);
+    }
+
+    public int pregenResume(CommandContext<CommandSourceStack> context) {
+        return startPregen(context, null);
+    }
+
+    public int pregenCancel(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.pregen")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (!pregenerator.cancel()) {
+            sender.sendMessage(Component.text("No pregeneration is running.", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+        sender.sendMessage(Component.text("Cancelling pregeneration after the chunks currently being generated.", NamedTextColor.YELLOW));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    public int pregenStatus(CommandContext<CommandSourceStack> context) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.pregen")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (!pregenerator.isRunning()) {
+            sender.sendMessage(Component.text("No pregeneration is running.", NamedTextColor.GRAY));
+            return Command.SINGLE_SUCCESS;
+        }
+        sender.sendMessage(Component.text("Pregenerating " + pregenerator.getRegion().describe() + ": "
+                + pregenerator.getProgress() + ", " + pregenerator.getInFlight() + " chunk(s) in flight.", NamedTextColor.GRAY));
+        return Command.SINGLE_SUCCESS;
+    }
+
     // Utility methods
+    private int submitEdit(CommandContext<CommandSourceStack> context, EditOperation operation) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.edit")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (FoliaSupport.isFolia()) {
+            notSupportedOnFolia(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        GlobalCuboid cuboid = GlobalCuboid.between(
+                IntegerArgumentType.getInteger(context, "x1"), IntegerArgumentType.getInteger(context, "y1"), IntegerArgumentType.getInteger(context, "z1"),
+                IntegerArgumentType.getInteger(context, "x2"), IntegerArgumentType.getInteger(context, "y2"), IntegerArgumentType.getInteger(context, "z2"));
+        try {
+            editEngine.submit(sender, cuboid, operation);
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(Component.text(e.getMessage(), NamedTextColor.RED));
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    /**
+     * Starts a pregeneration, resuming from the checkpoint if it is for the same region.
+     *
+     * @param region the region to generate, or {@code null} to resume the region of the checkpoint
+     */
+    private int startPregen(CommandContext<CommandSourceStack> context, PregenRegion region) {
+        CommandSender sender = context.getSource().getSender();
+        if (!sender.hasPermission("terralayers.pregen")) {
+            noPermission(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (FoliaSupport.isFolia()) {
+            notSupportedOnFolia(sender);
+            return Command.SINGLE_SUCCESS;
+        }
+        if (pregenerator.isRunning()) {
+            sender.sendMessage(Component.text("A pregeneration is already running, use /terralayers pregen cancel to stop it.", NamedTextColor.RED));
+            return Command.SINGLE_SUCCESS;
+        }
+        File checkpointFile = new File(plugin.getDataFolder(), "pregen-checkpoint.yml");
+        // Read the checkpoint on the I/O executor, continue on the main thread.
+        io.supply(() -> PregenCheckpoint.load(plugin.getLogger(), checkpointFile, io))
+                .whenComplete((checkpoint, error) -> scheduler.submit(TerraLayersScheduler.Priority.HIGH, () -> {
+                    if (error != null) {
+                        plugin.getLogger().severe("Failed to load the pregen checkpoint: " + error.getMessage());
+                        sender.sendMessage(Component.text("Failed to load the pregen checkpoint, please check the server logs for more information", NamedTextColor.RED));
+                        return;
+                    }
+                    PregenRegion target = region == null ? checkpoint.getRegion() : region;
+                    if (target == null) {
+                        sender.sendMessage(Component.text("There is no pregeneration to resume.", NamedTextColor.RED));
+                        return;
+                    }
+                    long from = target.equals(checkpoint.getRegion()) ? checkpoint.getNext() : 0;
+                    try {
+                        pregenerator.start(sender, target, checkpoint, from);
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        sender.sendMessage(Component.text(e.getMessage(), NamedTextColor.RED));
+                        return;
+                    }
+                    sender.sendMessage(Component.text((from > 0 ? "Resuming pregeneration of " : "Pregenerating ") + target.describe()
+                            + ", " + from + "/" + target.getChunkCount() + " chunks done.", NamedTextColor.GREEN));
+                }));
+        return Command.SINGLE_SUCCESS;
+    }
+
     private void info(CommandSender sender, String label) {
         sender.sendMessage(Component.text("TerraLayers", NamedTextColor.GOLD).append(Component.text(plugin.getPluginMeta().getVersion(), NamedTextColor.YELLOW)));
         sender.sendMessage(Component.text("/" + label + " reload", NamedTextColor.GRAY).append(Component.text(" - reload config and reinitialize services", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " init", NamedTextColor.GRAY).append(Component.text(" - create the layer worlds and configure the server", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " init cancel", NamedTextColor.GRAY).append(Component.text(" - stop a running initialisation, it resumes on the next init", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " hud", NamedTextColor.GRAY).append(Component.text(" - toggle the global y-level display", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " stats", NamedTextColor.GRAY).append(Component.text(" - show runtime statistics, reset them with stats reset", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " edit <fill|replace|clear> <x1> <y1> <z1> <x2> <y2> <z2> ...", NamedTextColor.GRAY).append(Component.text(" - edit a global region across layers", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " edit <undo|cancel|status>", NamedTextColor.GRAY).append(Component.text(" - undo your last edit, cancel or show the running edit", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " pregen <x1> <z1> <x2> <z2> [fromLayer toLayer]", NamedTextColor.GRAY).append(Component.text(" - generate the chunks of an area in the layers", NamedTextColor.DARK_GRAY)));
+        sender.sendMessage(Component.text("/" + label + " pregen <resume|cancel|status>", NamedTextColor.GRAY).append(Component.text(" - resume, cancel or show the pregeneration", NamedTextColor.DARK_GRAY)));
+    }
+
+    private void sendHistogram(CommandSender sender, String label, LatencyHistogram histogram) {
+        sender.sendMessage(Component.text(label + ": ", NamedTextColor.GRAY)
+                .append(Component.text("n=" + histogram.getCount()
+                        + " p50=" + formatNanos(histogram.getPercentile(50))
+                        + " p99=" + formatNanos(histogram.getPercentile(99))
+                        + " max=" + formatNanos(histogram.getMax()), NamedTextColor.YELLOW)));
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format("%.1fµs", nanos / 1_000.0);
+        } else if (nanos < 1_000_000_000) {
+            return String.format("%.1fms", nanos / 1_000_000.0);
+        }
+        return String.format("%.2fs", nanos / 1_000_000_000.0);
     }
 
     private void noPermission(CommandSender sender) {
         sender.sendMessage(Component.text("You do not have permission to do that.", NamedTextColor.RED));
     }
 
+    private void notSupportedOnFolia(CommandSender sender) {
+        sender.sendMessage(Component.text("This command is not supported on Folia.", NamedTextColor.RED));
+    }
+
     // Main init logic
     private void initLayers(CommandSender sender) {
         long start = System.currentTimeMillis();
+        long phaseStart = System.nanoTime();
 
-        if (!isValidInitializationState(sender)) {
+        if (preparing || (pipeline != null && pipeline.isRunning())) {
+            sender.sendMessage(Component.text("Initialisation is already running, use /terralayers init cancel to stop it.", NamedTextColor.RED));
             return;
         }
-
-        Properties serverProperties = loadServerProperties();
-        String defaultWorldName = serverProperties.getProperty("level-name");
-        if (defaultWorldName == null) {
-            sender.sendMessage(Component.text("Failed to load server.properties, please check the server logs for more information", NamedTextColor.RED));
+        if (!isValidInitializationState(sender)) {
             return;
         }
+        metrics.recordInitPhase("validate", System.nanoTime() - phaseStart);
+        long datapackStart = System.nanoTime();
 
         DatapackManager datapackManager = createDatapackManager();
         Datapack datapack = datapackManager.createDatapack(plugin.getServer().getMinecraftVersion());
-
-        if (!prepareDatapackForWorld(datapackManager, datapack, sender, defaultWorldName)) {
-            return;
-        }
-
-        List<CompletableFuture<LoadedMultiverseWorld>> worldFutures = createLayeredWorlds(sender);
-
-        CompletableFuture.allOf(worldFutures.toArray(new CompletableFuture[0])).thenRunAsync(() ->
-            finalizeInitialization(worldFutures, serverProperties, datapackManager, datapack, sender, defaultWorldName, start));
+        Path serverPath = plugin.getServer().getWorldContainer().toPath();
+        // The checkpoint is only valid for the same layer layout.
+        String settings = configManager.getWorldBaseName() + ":" + configManager.getGlobalMin() + ":" + configManager.getGlobalMax()
+                + ":" + configManager.getWorldHeight() + ":" + configManager.getBufferSize();
+        File checkpointFile = new File(plugin.getDataFolder(), "init-checkpoint.yml");
+
+        // Read the files and save the datapack on the I/O executor, continue on the main thread.
+        preparing = true;
+        io.supply(() -> {
+            Properties serverProperties = loadServerProperties(serverPath);
+            String defaultWorldName = serverProperties.getProperty("level-name");
+            SaveResult saved = defaultWorldName == null ? SaveResult.FAILED
+                    : datapackManager.saveDatapackToWorld(datapack, serverPath, defaultWorldName);
+            return new InitFiles(serverProperties, InitCheckpoint.load(plugin.getLogger(), checkpointFile, settings, io), saved);
+        }).whenComplete((files, error) -> scheduler.submit(TerraLayersScheduler.Priority.HIGH, () -> {
+            preparing = false;
+            if (error != null) {
+                plugin.getLogger().severe("Error loading server.properties: " + error.getMessage());
+            }
+            String defaultWorldName = files == null ? null : files.serverProperties().getProperty("level-name");
+            if (defaultWorldName == null) {
+                sender.sendMessage(Component.text("Failed to load server.properties, please check the server logs for more information", NamedTextColor.RED));
+                return;
+            }
+            if (!enableDatapack(datapackManager, datapack, files.datapackSaved(), sender)) {
+                return;
+            }
+            metrics.recordInitPhase("datapack", System.nanoTime() - datapackStart);
+            createLayeredWorlds(sender, files, datapackManager, datapack, defaultWorldName, start);
+        }));
     }
 
     // Validation and checks
     private boolean isValidInitializationState(CommandSender sender) {
-        if (!layerManager.getLayers().isEmpty()) {
+        if (isInitialized()) {
             sender.sendMessage(Component.text("Cannot initialize layers: already initialized", NamedTextColor.RED));
             return false;
         }
@@ -133,101 +499,134 @@ public class TerraLayersCommand {
         return true;
     }
 
+    /**
+     * Whether a previous init has completed. The layers are registered from the configuration before their worlds
+     * exist, so an init interrupted by a crash is recognised by its checkpoint or by a layer world that was never
+     * created, and can be resumed.
+     */
+    private boolean isInitialized() {
+        List<LayeredWorld> layers = layerManager.getLayers();
+        if (layers.isEmpty() || new File(plugin.getDataFolder(), "init-checkpoint.yml").exists()) {
+            return false;
+        }
+        return layers.stream().allMatch(layer -> layer.isReady() || worldManager.hasWorld(layer.getName()));
+    }
+
     private DatapackManager createDatapackManager() {
         int bufferSize = configManager.getBufferSize();
         int worldHeight = configManager.getWorldHeight();
         return new DatapackManager(plugin.getLogger(), -bufferSize, worldHeight + 2 * bufferSize);
     }
 
-    private boolean prepareDatapackForWorld(DatapackManager datapackManager, Datapack datapack, CommandSender sender, String worldName) {
-        return saveAndEnableDatapack(datapackManager, datapack, sender, worldName);
-    }
-
     // World creation
-    private List<CompletableFuture<LoadedMultiverseWorld>> createLayeredWorlds(CommandSender sender) {
-        List<CompletableFuture<LoadedMultiverseWorld>> worldFutures = new ArrayList<>();
+    private void createLayeredWorlds(CommandSender sender, InitFiles files, DatapackManager datapackManager, Datapack datapack,
+                                     String defaultWorldName, long start) {
+        List<WorldCreationPipeline.WorldSpec> worlds = new ArrayList<>();
         int minY = configManager.getGlobalMin();
         int maxY = configManager.getGlobalMax();
         int worldHeight = configManager.getWorldHeight();
         String worldBaseName = configManager.getWorldBaseName();
 
-        int delayTicks = 0;
-        int delayIncrement = 20;
-
         for (int y = minY; y < maxY; y += worldHeight) {
             String worldName = worldBaseName + "_" + y + "_" + (y + worldHeight);
-            String generator = "Terraplusminus:" + (-y);
-            worldFutures.add(worldManager.createWorld(plugin, sender, worldName, generator, delayTicks));
-            delayTicks += delayIncrement;
+            // The TerraLayers generator wraps Terraplusminus with the same offset, skipping chunks without terrain.
+            String generator = plugin.getName() + ":" + (-y);
+            worlds.add(new WorldCreationPipeline.WorldSpec(worldName, generator));
         }
-        return worldFutures;
+
+        long createStart = System.nanoTime();
+        WorldCreationPipeline creation = new WorldCreationPipeline(plugin, worldManager, scheduler, files.checkpoint(), sender, worlds,
+                configManager.getInitMaxConcurrentCreations());
+        this.pipeline = creation;
+
+        creation.start().whenComplete((created, error) -> {
+            if (error instanceof CancellationException) {
+                sender.sendMessage(Component.text("Initialisation cancelled, run /terralayers init again to resume.", NamedTextColor.YELLOW));
+                return;
+            }
+            if (error != null) {
+                sender.sendMessage(Component.text("Initialisation failed, run /terralayers init again to resume. Check the server logs for more information.", NamedTextColor.RED));
+                return;
+            }
+            metrics.recordInitPhase("create-worlds", System.nanoTime() - createStart);
+            finalizeInitialization(created, files, datapackManager, datapack, sender, defaultWorldName, start);
+        });
     }
 
     // Finalization after worlds are created
-    private void finalizeInitialization(List<CompletableFuture<LoadedMultiverseWorld>> worldFutures, Properties serverProperties,
-                                       DatapackManager datapackManager, Datapack datapack, CommandSender sender,
-                                       String oldDefaultWorldName, long startTime) {
-        List<LoadedMultiverseWorld> worlds = worldFutures.stream().map(CompletableFuture::join).toList();
+    private void finalizeInitialization(List<LoadedMultiverseWorld> worlds, InitFiles files, DatapackManager datapackManager,
+                                        Datapack datapack, CommandSender sender, String oldDefaultWorldName, long startTime) {
+        long phaseStart = System.nanoTime();
         World newDefaultWorld = worlds.getFirst().getBukkitWorld().get();
+        String newDefaultWorldName = newDefaultWorld.getName();
+        String generator = worlds.getFirst().getGenerator();
+        Path serverPath = plugin.getServer().getWorldContainer().toPath();
+
+        // Write the server configuration and the datapack of the new default world on the I/O executor.
+        io.supply(() -> {
+            updateServerConfig(serverPath, files.serverProperties(), newDefaultWorldName, generator);
+            return datapackManager.saveDatapackToWorld(datapack, serverPath, newDefaultWorldName);
+        }).whenComplete((saved, error) -> scheduler.submit(TerraLayersScheduler.Priority.HIGH, () -> {
+            unloadOldWorld(oldDefaultWorldName);
+            metrics.recordInitPhase("server-config", System.nanoTime() - phaseStart);
+            if (error != null) {
+                plugin.getLogger().severe("Error updating the server configuration: " + error.getMessage());
+                sender.sendMessage(Component.text("Failed to update the server configuration, please check the server logs for more information", NamedTextColor.RED));
+                return;
+            }
 
-        updateServerConfig(serverProperties, newDefaultWorld, worlds.getFirst().getGenerator());
-        unloadOldWorld(oldDefaultWorldName);
-
-        plugin.getServer().getScheduler().runTask(plugin, () -> {
-            if (!prepareDatapackForWorld(datapackManager, datapack, sender, newDefaultWorld.getName())) {
+            long datapackStart = System.nanoTime();
+            if (!enableDatapack(datapackManager, datapack, saved, sender)) {
                 return;
             }
+            metrics.recordInitPhase("finalize-datapack", System.nanoTime() - datapackStart);
 
             plugin.getServer().setRespawnWorld(newDefaultWorld);
+            files.checkpoint().delete();
 
             long took = System.currentTimeMillis() - startTime;
+            metrics.recordInitPhase("total", took * 1_000_000L);
             sender.sendMessage(Component.text("TerraLayers initialized (" + took + "ms).", NamedTextColor.GREEN));
             sender.sendMessage(Component.text("Created " + worlds.size() + " worlds, between y " + configManager.getGlobalMin() + " and " + configManager.getGlobalMax(), NamedTextColor.GREEN));
             sender.sendMessage(Component.text("Restart the server to apply the changes.", NamedTextColor.GREEN));
-        });
+        }));
     }
 
-    private void updateServerConfig(Properties serverProperties, World newDefaultWorld, String generator) {
-        serverProperties.setProperty("level-name", newDefaultWorld.getName());
-        saveServerProperties(serverProperties);
-        updateBukkitYml(newDefaultWorld.getName(), generator);
+    /**
+     * Points the server at the new default world, must be called on the I/O executor.
+     */
+    private void updateServerConfig(Path serverPath, Properties serverProperties, String newDefaultWorldName, String generator) throws IOException {
+        serverProperties.setProperty("level-name", newDefaultWorldName);
+        saveServerProperties(serverPath, serverProperties);
+        updateBukkitYml(serverPath, newDefaultWorldName, generator);
     }
 
     private void unloadOldWorld(String worldName) {
         worldManager.unloadWorld(worldName);
     }
 
-    // File operations
-    private Properties loadServerProperties() {
+    // File operations, called on the I/O executor
+    private static Properties loadServerProperties(Path serverPath) throws IOException {
         Properties serverProperties = new Properties();
-        try {
-            Path serverPropertiesPath = plugin.getServer().getWorldContainer().toPath().resolve("server.properties");
-            try (FileInputStream fis = new FileInputStream(serverPropertiesPath.toFile())) {
-                serverProperties.load(fis);
-            }
-        } catch (IOException e) {
-            plugin.getLogger().severe("Error loading server.properties: " + e.getMessage());
+        try (Reader reader = Files.newBufferedReader(serverPath.resolve("server.properties"), StandardCharsets.ISO_8859_1)) {
+            serverProperties.load(reader);
         }
         return serverProperties;
     }
 
-    private void saveServerProperties(Properties serverProperties) {
-        Path serverPropertiesPath = plugin.getServer().getWorldContainer().toPath().resolve("server.properties");
-        try (FileOutputStream outputStream = new FileOutputStream(serverPropertiesPath.toFile())) {
-            serverProperties.store(outputStream, null);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Error updating server.properties: " + e.getMessage());
-        }
+    private static void saveServerProperties(Path serverPath, Properties serverProperties) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        serverProperties.store(content, null);
+        AtomicFiles.write(serverPath.resolve("server.properties"), content.toByteArray());
     }
 
-    private boolean saveAndEnableDatapack(DatapackManager datapackManager, Datapack datapack, CommandSender sender, String world) {
-        boolean datapackSaved = datapackManager.saveDatapackToWorld(datapack, plugin.getServer().getWorldContainer().toPath(), world);
-        if (!datapackSaved) {
+    private boolean enableDatapack(DatapackManager datapackManager, Datapack datapack, SaveResult saved, CommandSender sender) {
+        if (saved == null || !saved.isSuccess()) {
             sender.sendMessage(Component.text("Failed to create datapack, please check the server logs for more information", NamedTextColor.RED));
             return false;
         }
 
-        boolean datapackEnabled = datapackManager.enableDatapack(plugin.getLogger(), datapack);
+        boolean datapackEnabled = datapackManager.enableDatapack(plugin.getLogger(), datapack, saved == SaveResult.UPDATED);
         if (!datapackEnabled) {
             sender.sendMessage(Component.text("Failed to enable datapack, please check the server logs for more information", NamedTextColor.RED));
             return false;
@@ -235,18 +634,21 @@ public class TerraLayersCommand {
         return true;
     }
 
-    private void updateBukkitYml(String worldName, String generator) {
-        File serverRoot = plugin.getServer().getWorldContainer().getParentFile();
-        File bukkitYml = new File(serverRoot, "bukkit.yml");
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(bukkitYml);
+    private void updateBukkitYml(Path serverPath, String worldName, String generator) throws IOException {
+        Path bukkitYml = serverPath.toAbsolutePath().getParent().resolve("bukkit.yml");
+        YamlConfiguration config = new YamlConfiguration();
+        if (Files.exists(bukkitYml)) {
+            try {
+                config.loadFromString(Files.readString(bukkitYml));
+            } catch (InvalidConfigurationException e) {
+                // Do not replace a configuration that could not be read.
+                throw new IOException("Failed to read bukkit.yml: " + e.getMessage(), e);
+            }
+        }
 
         config.set("worlds." + worldName + ".generator", generator);
 
-        try {
-            config.save(bukkitYml);
-            plugin.getLogger().info("Updated bukkit.yml with generator for world '" + worldName + "'.");
-        } catch (Exception e) {
-            plugin.getLogger().severe("Failed to save bukkit.yml: " + e.getMessage());
-        }
+        AtomicFiles.writeString(bukkitYml, config.saveToString());
+        plugin.getLogger().info("Updated bukkit.yml with generator for world '" + worldName + "'.");
     }
-}
\ No newline at end of file
+}
@@ -12,6 +12,7 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -21,14 +22,23 @@ import java.util.logging.Logger;
  * Strategy:
  * - The default config included in the JAR contains a key "config-version".
  * - On load, compare the on-disk version with the bundled version.
- * - If the bundled version is newer, create a timestamped backup and merge in any
- *   new default keys while preserving user values. Then set the new version and save.
+ * - If the bundled version is newer, create a timestamped backup, move renamed keys to
+ *   their new key and merge in any new default keys while preserving user values.
+ *   Then set the new version and save.
  */
 public final class ConfigManager {
 
     private static final String CONFIG_FILE_NAME = "config.yml";
     private static final String CONFIG_VERSION_KEY = "config-version";
 
+    /**
+     * Keys that have been renamed or moved, with their new key.
+     */
+    private static final Map<String, String> RENAMED_KEYS = Map.of(
+            // Moved in v9, when world creation moved onto the scheduler.
+            "init.targetMspt", "scheduler.targetMspt"
+    );
+
     private final JavaPlugin plugin;
     private final Logger logger;
 
@@ -82,6 +92,7 @@ public final class ConfigManager {
         if (currentVersion < bundledVersion) {
             // Perform update/merge
             backupConfig();
+            migrateRenamedKeys(config);
             mergeDefaults(config, defaults);
             config.set(CONFIG_VERSION_KEY, bundledVersion);
             save();
@@ -115,6 +126,21 @@ public final class ConfigManager {
         }
     }
 
+    /**
+     * Removes the renamed keys, keeping their value under the new key unless the new key is already set.
+     */
+    private static void migrateRenamedKeys(FileConfiguration target) {
+        for (Map.Entry<String, String> entry : RENAMED_KEYS.entrySet()) {
+            if (!target.contains(entry.getKey(), true)) {
+                continue;
+            }
+            if (!target.contains(entry.getValue(), true)) {
+                target.set(entry.getValue(), target.get(entry.getKey()));
+            }
+            target.set(entry.getKey(), null);
+        }
+    }
+
     private static void mergeDefaults(FileConfiguration target, FileConfiguration defaults) {
         Set<String> keys = defaults.getKeys(true);
         for (String key : keys) {
@@ -159,4 +185,96 @@ public final class ConfigManager {
     public String getWorldBaseName() {
         return config.getString("worldBaseName", defaults.getString("worldBaseName", "earth"));
     }
+
+    public boolean isHudEnabled() {
+        return config.getBoolean("hud.enabled", defaults.getBoolean("hud.enabled", true));
+    }
+
+    public boolean isPrefetchEnabled() {
+        return config.getBoolean("prefetch.enabled", defaults.getBoolean("prefetch.enabled", true));
+    }
+
+    public int getPrefetchRadius() {
+        return config.getInt("prefetch.radius", defaults.getInt("prefetch.radius", 4));
+    }
+
+    public int getPrefetchLookaheadTicks() {
+        return config.getInt("prefetch.lookaheadTicks", defaults.getInt("prefetch.lookaheadTicks", 60));
+    }
+
+    public boolean isLazyLoadingEnabled() {
+        return config.getBoolean("lazyLoading.enabled", defaults.getBoolean("lazyLoading.enabled", false));
+    }
+
+    public int getLazyLoadingIdleSeconds() {
+        return config.getInt("lazyLoading.idleSeconds", defaults.getInt("lazyLoading.idleSeconds", 300));
+    }
+
+    public int getLazyLoadingMaxLoadedLayers() {
+        return config.getInt("lazyLoading.maxLoadedLayers", defaults.getInt("lazyLoading.maxLoadedLayers", 8));
+    }
+
+    public int getInitMaxConcurrentCreations() {
+        return config.getInt("init.maxConcurrentCreations", defaults.getInt("init.maxConcurrentCreations", 2));
+    }
+
+    public boolean isGenerationSkipEmptyChunks() {
+        return config.getBoolean("generation.skipEmptyChunks", defaults.getBoolean("generation.skipEmptyChunks", true));
+    }
+
+    public int getGenerationSurfaceMargin() {
+        return config.getInt("generation.surfaceMargin", defaults.getInt("generation.surfaceMargin", 64));
+    }
+
+    public int getGenerationSolidDepth() {
+        return config.getInt("generation.solidDepth", defaults.getInt("generation.solidDepth", 32));
+    }
+
+    public double getSchedulerTargetMspt() {
+        return config.getDouble("scheduler.targetMspt", defaults.getDouble("scheduler.targetMspt", 40.0));
+    }
+
+    public double getSchedulerTickBudgetMillis() {
+        return config.getDouble("scheduler.tickBudgetMillis", defaults.getDouble("scheduler.tickBudgetMillis", 10.0));
+    }
+
+    public boolean isMirroringEnabled() {
+        return config.getBoolean("mirroring.enabled", defaults.getBoolean("mirroring.enabled", true));
+    }
+
+    public double getMirroringTickBudgetMillis() {
+        return config.getDouble("mirroring.tickBudgetMillis", defaults.getDouble("mirroring.tickBudgetMillis", 2.0));
+    }
+
+    public boolean isPresenceEnabled() {
+        return config.getBoolean("presence.enabled", defaults.getBoolean("presence.enabled", true));
+    }
+
+    public int getPresenceRange() {
+        return config.getInt("presence.range", defaults.getInt("presence.range", 48));
+    }
+
+    /**
+     * Whether layer transitions use asynchronous teleports, {@code transitions.mode: async}, instead of changing
+     * the destination of the move event, {@code transitions.mode: event}.
+     */
+    public boolean isAsyncTransitionsEnabled() {
+        return "async".equalsIgnoreCase(config.getString("transitions.mode", defaults.getString("transitions.mode", "event")));
+    }
+
+    public int getTransitionsMaxPerTick() {
+        return config.getInt("transitions.maxPerTick", defaults.getInt("transitions.maxPerTick", 5));
+    }
+
+    public int getEditsBlocksPerTick() {
+        return config.getInt("edits.blocksPerTick", defaults.getInt("edits.blocksPerTick", 4096));
+    }
+
+    public long getEditsMaxUndoBlocks() {
+        return config.getLong("edits.maxUndoBlocks", defaults.getLong("edits.maxUndoBlocks", 10_000_000L));
+    }
+
+    public int getPregenMaxInFlight() {
+        return config.getInt("pregen.maxInFlight", defaults.getInt("pregen.maxInFlight", 64));
+    }
 }
@@ -0,0 +1,186 @@
+package org.btuk.terralayers.plugin.edit;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.impl.ChunkTickets;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs edits of global cuboids that span multiple layers.
+ * <p>
+ * An edit is split into one part per layer world, using the y-range of the layer including both buffers, so the
+ * blocks in a buffer are changed in both layers that contain them. Edits run one at a time in the order they were
+ * submitted, as a low priority worker of the {@link TerraLayersScheduler}. Each world changes at most the configured
+ * number of blocks per tick, and no more blocks are changed once the scheduler's time for the tick is used up.
+ * The last edit of each sender can be undone, block entity contents are not restored.
+ */
+public final class EditEngine {
+
+    private final Plugin plugin;
+    private final LayerManager layerManager;
+    private final TerraLayersScheduler scheduler;
+    private final ChunkTickets tickets;
+    private final TerraLayersScheduler.Worker worker = this::tick;
+
+    private final ArrayDeque<EditTask> queue = new ArrayDeque<>();
+    private final Map<String, EditTask> lastEdits = new HashMap<>();
+
+    private int blocksPerTick;
+    private long maxUndoBlocks;
+    private EditTask current;
+
+    public EditEngine(Plugin plugin, LayerManager layerManager, TerraLayersScheduler scheduler, ChunkTickets tickets,
+                      int blocksPerTick, long maxUndoBlocks) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+        this.scheduler = scheduler;
+        this.tickets = tickets;
+        configure(blocksPerTick, maxUndoBlocks);
+    }
+
+    /**
+     * Updates the settings.
+     *
+     * @param blocksPerTick the maximum number of blocks processed per tick in each world
+     * @param maxUndoBlocks the maximum number of changed blocks kept for undo per edit, 0 to disable undo
+     */
+    public void configure(int blocksPerTick, long maxUndoBlocks) {
+        this.blocksPerTick = Math.max(1, blocksPerTick);
+        this.maxUndoBlocks = Math.max(0, maxUndoBlocks);
+    }
+
+    public void start() {
+        scheduler.addWorker(TerraLayersScheduler.Priority.LOW, worker);
+    }
+
+    public void stop() {
+        scheduler.removeWorker(worker);
+        if (current != null) {
+            current.cancel();
+            current.complete(tickets);
+            current = null;
+        }
+        queue.forEach(EditTask::cancel);
+        queue.clear();
+        lastEdits.clear();
+    }
+
+    /**
+     * Queues an edit of a global cuboid.
+     *
+     * @param sender    the sender to report progress to
+     * @param cuboid    the cuboid in global coordinates
+     * @param operation the change to apply to each block
+     * @return the queued edit
+     * @throws IllegalArgumentException if the cuboid is outside the layers
+     */
+    public EditTask submit(CommandSender sender, GlobalCuboid cuboid, EditOperation operation) {
+        int minY = Math.max(cuboid.minY(), layerManager.getGlobalMin());
+        int maxY = Math.min(cuboid.maxY(), layerManager.getGlobalMax() - 1);
+        if (minY > maxY) {
+            throw new IllegalArgumentException("The region is outside the layers, between y " + layerManager.getGlobalMin() + " and " + layerManager.getGlobalMax());
+        }
+
+        List<RegionEditPart> parts = new ArrayList<>();
+        for (LayeredWorld layer : layerManager.getLayers()) {
+            // The world of a layer contains the buffers above and below the layer as well.
+            int fromY = Math.max(minY, layer.getMinY() - layer.getBufferSize());
+            int toY = Math.min(maxY, layer.getMaxY() + layer.getBufferSize() - 1);
+            if (fromY > toY) {
+                continue;
+            }
+            parts.add(new RegionEditPart(layer, operation, cuboid.minX(), fromY - layer.getMinY(), cuboid.minZ(),
+                    cuboid.maxX(), toY - layer.getMinY(), cuboid.maxZ()));
+        }
+        String description = operation.name() + " of " + cuboid.minX() + " " + minY + " " + cuboid.minZ()
+                + " to " + cuboid.maxX() + " " + maxY + " " + cuboid.maxZ();
+        return enqueue(new EditTask(sender, description, parts, maxUndoBlocks));
+    }
+
+    /**
+     * Queues the undo of the last edit of a sender.
+     *
+     * @param sender the sender
+     * @return the queued undo, or {@code null} if the sender has no edit that can be undone
+     */
+    public EditTask undo(CommandSender sender) {
+        EditTask last = lastEdits.get(sender.getName());
+        if (last == null || !last.isUndoAvailable()) {
+            return null;
+        }
+        lastEdits.remove(sender.getName());
+        return enqueue(last.createUndo(sender));
+    }
+
+    /**
+     * Cancels the running edit, the blocks it already changed can be undone.
+     *
+     * @return the cancelled edit, or {@code null} if no edit is running
+     */
+    public EditTask cancel() {
+        EditTask cancelled = current;
+        if (cancelled != null) {
+            cancelled.cancel();
+        }
+        return cancelled;
+    }
+
+    /**
+     * The running edit, or {@code null} if no edit is running.
+     */
+    public EditTask getCurrent() {
+        return current;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private EditTask enqueue(EditTask edit) {
+        queue.add(edit);
+        if (current != null) {
+            edit.getSender().sendMessage(Component.text("Queued " + edit.getDescription() + ", " + queue.size() + " edit(s) ahead.", NamedTextColor.YELLOW));
+        }
+        return edit;
+    }
+
+    private boolean tick(long deadlineNanos) {
+        if (current == null) {
+            current = queue.poll();
+            if (current == null) {
+                return true;
+            }
+            current.start();
+        }
+        try {
+            current.tick(tickets, layerManager, blocksPerTick, deadlineNanos);
+        } catch (RuntimeException e) {
+            current.fail(plugin, tickets, e);
+            finish();
+            return true;
+        }
+        if (current.isDone()) {
+            current.complete(tickets);
+            finish();
+        }
+        return true;
+    }
+
+    private void finish() {
+        // Cancelled and failed edits can be undone as well, to restore the blocks they already changed.
+        if (current.isUndoAvailable()) {
+            lastEdits.put(current.getSender().getName(), current);
+        }
+        current = null;
+    }
+}
@@ -0,0 +1,42 @@
+package org.btuk.terralayers.plugin.edit;
+
+import org.bukkit.Material;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Change applied to every block of an edit.
+ *
+ * @param name the name of the operation, used in messages
+ * @param from the blocks to change, or {@code null} to change all blocks
+ * @param to   the block data to set
+ */
+public record EditOperation(String name, BlockData from, BlockData to) {
+
+    public static EditOperation fill(BlockData to) {
+        return new EditOperation("fill", null, to);
+    }
+
+    /**
+     * Replaces the blocks matching {@code from}, properties not specified in {@code from} match any value.
+     */
+    public static EditOperation replace(BlockData from, BlockData to) {
+        return new EditOperation("replace", from, to);
+    }
+
+    public static EditOperation clear() {
+        return new EditOperation("clear", null, Material.AIR.createBlockData());
+    }
+
+    /**
+     * Gets the block data to set for the current block data.
+     *
+     * @param current the current block data
+     * @return the new block data, or {@code null} if the block does not change
+     */
+    BlockData apply(BlockData current) {
+        if (from != null && !current.matches(from)) {
+            return null;
+        }
+        return current.equals(to) ? null : to;
+    }
+}
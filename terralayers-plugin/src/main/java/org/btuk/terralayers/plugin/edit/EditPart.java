@@ -0,0 +1,120 @@
+package org.btuk.terralayers.plugin.edit;
+
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.impl.ChunkTickets;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+/**
+ * The part of an edit in a single layer world, processed chunk by chunk.
+ * <p>
+ * The layer world and the chunk of the next block are loaded asynchronously, the chunk being edited is held with the
+ * shared {@link ChunkTickets} until the part moves on to the next chunk.
+ */
+abstract class EditPart {
+
+    protected final LayeredWorld layer;
+
+    private Chunk chunk;
+    private boolean loading;
+    private boolean closed;
+    private Throwable failure;
+
+    EditPart(LayeredWorld layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * Whether all blocks of this part have been processed.
+     */
+    abstract boolean isDone();
+
+    /**
+     * The x-coordinate of the chunk containing the next block.
+     */
+    abstract int getChunkX();
+
+    /**
+     * The z-coordinate of the chunk containing the next block.
+     */
+    abstract int getChunkZ();
+
+    /**
+     * The number of blocks processed by this part in total.
+     */
+    abstract long getTotalBlocks();
+
+    /**
+     * Processes blocks in the loaded chunk of the next block.
+     *
+     * @param chunk  the loaded chunk containing the next block
+     * @param budget the maximum number of blocks to process
+     * @param task   the task this part belongs to
+     * @return the number of blocks processed, stopping at the end of the chunk
+     */
+    abstract int apply(Chunk chunk, int budget, EditTask task);
+
+    /**
+     * Processes blocks of this part, loading the world and chunks as needed.
+     *
+     * @return the number of blocks processed
+     */
+    int tick(ChunkTickets tickets, LayerManager layerManager, int budget, EditTask task) {
+        if (failure != null) {
+            throw new IllegalStateException("Failed to load " + layer.getName() + ": " + failure.getMessage(), failure);
+        }
+        if (loading) {
+            return 0;
+        }
+        World world = layer.getWorld();
+        if (world == null) {
+            loading = true;
+            layerManager.loadLayer(layer).whenComplete((loaded, error) -> {
+                loading = false;
+                failure = error;
+            });
+            return 0;
+        }
+
+        int processed = 0;
+        while (processed < budget && !isDone()) {
+            if (chunk == null || chunk.getWorld() != world || chunk.getX() != getChunkX() || chunk.getZ() != getChunkZ()) {
+                release(tickets);
+                loading = true;
+                int chunkX = getChunkX();
+                int chunkZ = getChunkZ();
+                tickets.acquire(layer, chunkX, chunkZ).whenComplete((loaded, error) -> {
+                    loading = false;
+                    if (error != null || closed) {
+                        tickets.release(layer, chunkX, chunkZ);
+                        failure = error;
+                        return;
+                    }
+                    chunk = loaded;
+                });
+                break;
+            }
+            processed += apply(chunk, budget - processed, task);
+        }
+        if (isDone()) {
+            release(tickets);
+        }
+        return processed;
+    }
+
+    /**
+     * Releases the chunk held by this part, chunks that are still loading are not held anymore.
+     */
+    void close(ChunkTickets tickets) {
+        closed = true;
+        release(tickets);
+    }
+
+    private void release(ChunkTickets tickets) {
+        if (chunk != null) {
+            tickets.release(layer, chunk.getX(), chunk.getZ());
+            chunk = null;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.btuk.terralayers.plugin.edit;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.plugin.impl.ChunkTickets;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * An edit queued in the {@link EditEngine}, made of one part per layer world.
+ * <p>
+ * The parts are processed side by side, each with its own block budget per tick. The previous block data of every
+ * changed block is kept for undo, unless the edit changes more blocks than the undo limit.
+ */
+public final class EditTask {
+
+    private static final long PROGRESS_INTERVAL_MILLIS = 5000L;
+
+    private final CommandSender sender;
+    private final String description;
+    private final List<? extends EditPart> parts;
+    private final long totalBlocks;
+    private final long maxUndoBlocks;
+
+    private long processedBlocks;
+    private long changedBlocks;
+    private long undoBlocks;
+    private boolean undoAvailable;
+    private boolean cancelled;
+    private long startMillis;
+    private long lastProgressMillis;
+    private int rotation;
+
+    EditTask(CommandSender sender, String description, List<? extends EditPart> parts, long maxUndoBlocks) {
+        this.sender = sender;
+        this.description = description;
+        this.parts = List.copyOf(parts);
+        this.totalBlocks = parts.stream().mapToLong(EditPart::getTotalBlocks).sum();
+        this.maxUndoBlocks = maxUndoBlocks;
+        this.undoAvailable = maxUndoBlocks > 0;
+    }
+
+    public CommandSender getSender() {
+        return sender;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * The number of blocks to process, counting the blocks in both layers of a buffer twice.
+     */
+    public long getTotalBlocks() {
+        return totalBlocks;
+    }
+
+    public long getProcessedBlocks() {
+        return processedBlocks;
+    }
+
+    public long getChangedBlocks() {
+        return changedBlocks;
+    }
+
+    public boolean isDone() {
+        return cancelled || parts.stream().allMatch(EditPart::isDone);
+    }
+
+    /**
+     * Whether the previous blocks of this edit were kept, so it can be undone.
+     */
+    public boolean isUndoAvailable() {
+        return undoAvailable;
+    }
+
+    void start() {
+        startMillis = System.currentTimeMillis();
+        lastProgressMillis = startMillis;
+        sender.sendMessage(Component.text("Started " + description + ", " + totalBlocks + " blocks in " + parts.size() + " layers.", NamedTextColor.GREEN));
+    }
+
+    /**
+     * Processes every unfinished part with the given block budget, until the deadline.
+     */
+    void tick(ChunkTickets tickets, LayerManager layerManager, int blocksPerWorld, long deadlineNanos) {
+        if (parts.isEmpty()) {
+            return;
+        }
+        // Start at another part every tick, so all layers make progress when the deadline is reached early.
+        int offset = rotation++ % parts.size();
+        for (int i = 0; i < parts.size() && System.nanoTime() < deadlineNanos; i++) {
+            EditPart part = parts.get((offset + i) % parts.size());
+            if (!part.isDone()) {
+                processedBlocks += part.tick(tickets, layerManager, blocksPerWorld, this);
+            }
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastProgressMillis >= PROGRESS_INTERVAL_MILLIS && !isDone()) {
+            lastProgressMillis = now;
+            sender.sendMessage(Component.text(description + ": " + processedBlocks + "/" + totalBlocks
+                    + " (" + processedBlocks * 100 / Math.max(1, totalBlocks) + "%)", NamedTextColor.GRAY));
+        }
+    }
+
+    void complete(ChunkTickets tickets) {
+        parts.forEach(part -> part.close(tickets));
+        long took = System.currentTimeMillis() - startMillis;
+        if (cancelled) {
+            sender.sendMessage(Component.text(description + " cancelled after changing " + changedBlocks + " blocks.", NamedTextColor.YELLOW));
+            return;
+        }
+        sender.sendMessage(Component.text(description + " finished (" + took + "ms), changed " + changedBlocks + " blocks.", NamedTextColor.GREEN));
+    }
+
+    void fail(Plugin plugin, ChunkTickets tickets, Exception e) {
+        cancelled = true;
+        parts.forEach(part -> part.close(tickets));
+        plugin.getLogger().log(Level.SEVERE, "Failed " + description, e);
+        sender.sendMessage(Component.text(description + " failed after changing " + changedBlocks + " blocks, check the server logs for more information.", NamedTextColor.RED));
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Reserves room for the previous block data of a changed block.
+     *
+     * @return whether the block should be recorded for undo
+     */
+    boolean reserveUndo() {
+        if (!undoAvailable) {
+            return false;
+        }
+        if (undoBlocks >= maxUndoBlocks) {
+            // Too large to undo, free the blocks recorded so far.
+            undoAvailable = false;
+            for (EditPart part : parts) {
+                if (part instanceof RegionEditPart region) {
+                    region.getUndo().clear();
+                }
+            }
+            sender.sendMessage(Component.text(description + " changes more than " + maxUndoBlocks + " blocks, it cannot be undone.", NamedTextColor.YELLOW));
+            return false;
+        }
+        undoBlocks++;
+        return true;
+    }
+
+    void recordChanged() {
+        changedBlocks++;
+    }
+
+    /**
+     * Creates the task restoring the blocks changed by this edit.
+     */
+    EditTask createUndo(CommandSender sender) {
+        List<UndoEditPart> undoParts = new ArrayList<>();
+        for (EditPart part : parts) {
+            if (part instanceof RegionEditPart region && region.getUndo().size() > 0) {
+                undoParts.add(new UndoEditPart(region.layer, region.getUndo()));
+            }
+        }
+        undoAvailable = false;
+        return new EditTask(sender, "undo of " + description, undoParts, 0);
+    }
+}
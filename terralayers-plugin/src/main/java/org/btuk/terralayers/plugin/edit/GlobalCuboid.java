@@ -0,0 +1,25 @@
+package org.btuk.terralayers.plugin.edit;
+
+/**
+ * Cuboid in global coordinates, all bounds inclusive.
+ */
+public record GlobalCuboid(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+
+    public GlobalCuboid {
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            throw new IllegalArgumentException("minimum must not be greater than maximum");
+        }
+    }
+
+    /**
+     * Creates the cuboid between two corners in any order.
+     */
+    public static GlobalCuboid between(int x1, int y1, int z1, int x2, int y2, int z2) {
+        return new GlobalCuboid(Math.min(x1, x2), Math.min(y1, y2), Math.min(z1, z2),
+                Math.max(x1, x2), Math.max(y1, y2), Math.max(z1, z2));
+    }
+
+    public long getVolume() {
+        return ((long) maxX - minX + 1) * ((long) maxY - minY + 1) * ((long) maxZ - minZ + 1);
+    }
+}
@@ -0,0 +1,108 @@
+package org.btuk.terralayers.plugin.edit;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.bukkit.Chunk;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+
+/**
+ * Applies an {@link EditOperation} to a cuboid in the local coordinates of a layer world.
+ * <p>
+ * The chunks are processed one after another, the blocks in a chunk in y, z, x order.
+ */
+final class RegionEditPart extends EditPart {
+
+    private final EditOperation operation;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int chunksX;
+    private final int chunkCount;
+    private final UndoBuffer undo = new UndoBuffer();
+
+    private int chunkIndex;
+    private int position;
+
+    /**
+     * Creates a part for a cuboid in the local coordinates of the layer world, all bounds inclusive.
+     */
+    RegionEditPart(LayeredWorld layer, EditOperation operation, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        super(layer);
+        this.operation = operation;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.minChunkX = minX >> 4;
+        this.minChunkZ = minZ >> 4;
+        this.chunksX = (maxX >> 4) - minChunkX + 1;
+        this.chunkCount = chunksX * ((maxZ >> 4) - minChunkZ + 1);
+    }
+
+    UndoBuffer getUndo() {
+        return undo;
+    }
+
+    @Override
+    boolean isDone() {
+        return chunkIndex == chunkCount;
+    }
+
+    @Override
+    int getChunkX() {
+        return minChunkX + chunkIndex % chunksX;
+    }
+
+    @Override
+    int getChunkZ() {
+        return minChunkZ + chunkIndex / chunksX;
+    }
+
+    @Override
+    long getTotalBlocks() {
+        return ((long) maxX - minX + 1) * ((long) maxY - minY + 1) * ((long) maxZ - minZ + 1);
+    }
+
+    @Override
+    int apply(Chunk chunk, int budget, EditTask task) {
+        // The part of the cuboid inside this chunk.
+        int fromX = Math.max(minX, chunk.getX() << 4);
+        int toX = Math.min(maxX, (chunk.getX() << 4) + 15);
+        int fromZ = Math.max(minZ, chunk.getZ() << 4);
+        int toZ = Math.min(maxZ, (chunk.getZ() << 4) + 15);
+        int sizeX = toX - fromX + 1;
+        int sizeZ = toZ - fromZ + 1;
+        int total = sizeX * sizeZ * (maxY - minY + 1);
+
+        int processed = 0;
+        while (processed < budget && position < total) {
+            int x = fromX + position % sizeX;
+            int z = fromZ + position / sizeX % sizeZ;
+            int y = minY + position / (sizeX * sizeZ);
+            Block block = chunk.getBlock(x & 15, y, z & 15);
+            BlockData current = block.getBlockData();
+            BlockData changed = operation.apply(current);
+            if (changed != null) {
+                if (task.reserveUndo()) {
+                    undo.record(x, y, z, current);
+                }
+                block.setBlockData(changed, false);
+                task.recordChanged();
+            }
+            position++;
+            processed++;
+        }
+        if (position == total) {
+            position = 0;
+            chunkIndex++;
+        }
+        return processed;
+    }
+}
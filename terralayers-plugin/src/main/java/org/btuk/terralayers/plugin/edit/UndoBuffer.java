@@ -0,0 +1,88 @@
+package org.btuk.terralayers.plugin.edit;
+
+import org.bukkit.block.data.BlockData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Previous block data of the blocks changed in a layer world, in the order they were changed.
+ * <p>
+ * Each entry is a packed position and a palette index, so a large edit only keeps the distinct block data once.
+ * Positions keep 26 bits for x and z and 12 bits for y, which covers the world border and the full height of a layer
+ * world including its buffers.
+ */
+final class UndoBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final int MIN_Y = -(1 << (Y_BITS - 1));
+    private static final int MAX_Y = (1 << (Y_BITS - 1)) - 1;
+
+    private long[] keys = new long[0];
+    private short[] indices = new short[0];
+    private int size;
+
+    private final List<BlockData> palette = new ArrayList<>();
+    private final Map<BlockData, Integer> paletteIndices = new HashMap<>();
+
+    /**
+     * Records the previous block data of a block.
+     *
+     * @param x        the x-coordinate of the block in the layer world
+     * @param y        the y-coordinate of the block in the layer world
+     * @param z        the z-coordinate of the block in the layer world
+     * @param previous the block data before the change
+     */
+    void record(int x, int y, int z, BlockData previous) {
+        if (y < MIN_Y || y > MAX_Y) {
+            throw new IllegalArgumentException("y-coordinate " + y + " is outside the range of an undo buffer");
+        }
+        if (size == keys.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            indices = Arrays.copyOf(indices, capacity);
+        }
+        int index = paletteIndices.computeIfAbsent(previous, data -> {
+            palette.add(data);
+            return palette.size() - 1;
+        });
+        keys[size] = ((long) x << (XZ_BITS + Y_BITS))
+                | ((z & ((1L << XZ_BITS) - 1)) << Y_BITS)
+                | (y & ((1L << Y_BITS) - 1));
+        indices[size] = (short) index;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getX(int i) {
+        return (int) (keys[i] >> (XZ_BITS + Y_BITS));
+    }
+
+    int getY(int i) {
+        return (int) (keys[i] << (Long.SIZE - Y_BITS) >> (Long.SIZE - Y_BITS));
+    }
+
+    int getZ(int i) {
+        return (int) (keys[i] << (Long.SIZE - XZ_BITS - Y_BITS) >> (Long.SIZE - XZ_BITS));
+    }
+
+    BlockData getBlockData(int i) {
+        return palette.get(indices[i] & 0xFFFF);
+    }
+
+    void clear() {
+        keys = new long[0];
+        indices = new short[0];
+        size = 0;
+        palette.clear();
+        paletteIndices.clear();
+    }
+}
@@ -0,0 +1,57 @@
+package org.btuk.terralayers.plugin.edit;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.bukkit.Chunk;
+
+/**
+ * Restores the blocks recorded in an {@link UndoBuffer}, in the order they were changed.
+ * The blocks were recorded chunk by chunk, so each chunk is loaded once.
+ */
+final class UndoEditPart extends EditPart {
+
+    private final UndoBuffer undo;
+
+    private int position;
+
+    UndoEditPart(LayeredWorld layer, UndoBuffer undo) {
+        super(layer);
+        this.undo = undo;
+    }
+
+    @Override
+    boolean isDone() {
+        return position == undo.size();
+    }
+
+    @Override
+    int getChunkX() {
+        return undo.getX(position) >> 4;
+    }
+
+    @Override
+    int getChunkZ() {
+        return undo.getZ(position) >> 4;
+    }
+
+    @Override
+    long getTotalBlocks() {
+        return undo.size();
+    }
+
+    @Override
+    int apply(Chunk chunk, int budget, EditTask task) {
+        int processed = 0;
+        while (processed < budget && position < undo.size()) {
+            int x = undo.getX(position);
+            int z = undo.getZ(position);
+            if (x >> 4 != chunk.getX() || z >> 4 != chunk.getZ()) {
+                break;
+            }
+            chunk.getBlock(x & 15, undo.getY(position), z & 15).setBlockData(undo.getBlockData(position), false);
+            task.recordChanged();
+            position++;
+            processed++;
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,274 @@
+package org.btuk.terralayers.plugin.generator;
+
+import org.bukkit.HeightMap;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.generator.BiomeProvider;
+import org.bukkit.generator.BlockPopulator;
+import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.generator.WorldInfo;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+/**
+ * Generator of a layer world, wrapping the terrain generator and skipping the chunks it would leave empty or solid.
+ * <p>
+ * Most layers are far above or below the terrain in most places. Before a chunk is generated, the surface height of
+ * its columns is taken from the wrapped generator. A chunk whose highest surface, plus a margin for trees and
+ * buildings, is below the world is left empty, and a chunk whose lowest surface is more than the solid depth above
+ * the world is filled with stone. Only the remaining chunks run the full terrain generation.
+ * <p>
+ * The surface is first sampled on a coarse grid. A sample inside the world proves the chunk has terrain, and samples
+ * far enough from the world, by the margin or depth again, are taken to hold for the whole chunk. Only chunks close
+ * to the world's bounds have the height of every column checked.
+ * <p>
+ * Chunks are generated in steps that each ask about the same chunk, so the decision is kept in a small
+ * direct-mapped cache. If the wrapped generator does not provide surface heights, every chunk is passed on to it.
+ */
+public final class LayerChunkGenerator extends ChunkGenerator {
+
+    private static final int CACHE_SIZE = 1024;
+
+    /**
+     * The offsets in a chunk of the columns sampled first, a grid of 4 by 4 including the corners.
+     */
+    private static final int[] SAMPLE_OFFSETS = {0, 5, 10, 15};
+
+    private final Logger logger;
+    private final ChunkGenerator delegate;
+    private final int surfaceMargin;
+    private final int solidDepth;
+
+    private final AtomicReferenceArray<Decision> decisions = new AtomicReferenceArray<>(CACHE_SIZE);
+
+    private volatile boolean heightsSupported = true;
+
+    private enum Kind {
+        /**
+         * The chunk is above the terrain and stays empty.
+         */
+        EMPTY,
+        /**
+         * The chunk is deep below the terrain and is filled with stone.
+         */
+        SOLID,
+        /**
+         * The chunk contains terrain and is generated by the wrapped generator.
+         */
+        TERRAIN
+    }
+
+    private record Decision(long chunk, Kind kind) {
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param logger        logger
+     * @param delegate      the terrain generator
+     * @param surfaceMargin the height above the surface that may still contain blocks, such as trees and buildings
+     * @param solidDepth    the depth below the surface from which everything is solid
+     */
+    public LayerChunkGenerator(Logger logger, ChunkGenerator delegate, int surfaceMargin, int solidDepth) {
+        this.logger = logger;
+        this.delegate = delegate;
+        this.surfaceMargin = Math.max(0, surfaceMargin);
+        this.solidDepth = Math.max(0, solidDepth);
+    }
+
+    @Override
+    public void generateNoise(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, ChunkData chunkData) {
+        switch (getKind(worldInfo, chunkX, chunkZ)) {
+            case EMPTY -> {
+            }
+            case SOLID -> chunkData.setRegion(0, chunkData.getMinHeight(), 0, 16, chunkData.getMaxHeight(), 16, Material.STONE);
+            case TERRAIN -> delegate.generateNoise(worldInfo, random, chunkX, chunkZ, chunkData);
+        }
+    }
+
+    @Override
+    public void generateSurface(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, ChunkData chunkData) {
+        if (getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN) {
+            delegate.generateSurface(worldInfo, random, chunkX, chunkZ, chunkData);
+        }
+    }
+
+    @Override
+    public void generateBedrock(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, ChunkData chunkData) {
+        if (getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN) {
+            delegate.generateBedrock(worldInfo, random, chunkX, chunkZ, chunkData);
+        }
+    }
+
+    @Override
+    public void generateCaves(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, ChunkData chunkData) {
+        if (getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN) {
+            delegate.generateCaves(worldInfo, random, chunkX, chunkZ, chunkData);
+        }
+    }
+
+    @Override
+    public boolean shouldGenerateNoise() {
+        return delegate.shouldGenerateNoise();
+    }
+
+    @Override
+    public boolean shouldGenerateNoise(WorldInfo worldInfo, Random random, int chunkX, int chunkZ) {
+        return getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN && delegate.shouldGenerateNoise(worldInfo, random, chunkX, chunkZ);
+    }
+
+    @Override
+    public boolean shouldGenerateSurface() {
+        return delegate.shouldGenerateSurface();
+    }
+
+    @Override
+    public boolean shouldGenerateSurface(WorldInfo worldInfo, Random random, int chunkX, int chunkZ) {
+        return getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN && delegate.shouldGenerateSurface(worldInfo, random, chunkX, chunkZ);
+    }
+
+    @Override
+    public boolean shouldGenerateCaves() {
+        return delegate.shouldGenerateCaves();
+    }
+
+    @Override
+    public boolean shouldGenerateCaves(WorldInfo worldInfo, Random random, int chunkX, int chunkZ) {
+        return getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN && delegate.shouldGenerateCaves(worldInfo, random, chunkX, chunkZ);
+    }
+
+    @Override
+    public boolean shouldGenerateDecorations() {
+        return delegate.shouldGenerateDecorations();
+    }
+
+    @Override
+    public boolean shouldGenerateDecorations(WorldInfo worldInfo, Random random, int chunkX, int chunkZ) {
+        return getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN && delegate.shouldGenerateDecorations(worldInfo, random, chunkX, chunkZ);
+    }
+
+    @Override
+    public boolean shouldGenerateMobs() {
+        return delegate.shouldGenerateMobs();
+    }
+
+    @Override
+    public boolean shouldGenerateMobs(WorldInfo worldInfo, Random random, int chunkX, int chunkZ) {
+        return getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN && delegate.shouldGenerateMobs(worldInfo, random, chunkX, chunkZ);
+    }
+
+    @Override
+    public boolean shouldGenerateStructures() {
+        return delegate.shouldGenerateStructures();
+    }
+
+    @Override
+    public boolean shouldGenerateStructures(WorldInfo worldInfo, Random random, int chunkX, int chunkZ) {
+        return getKind(worldInfo, chunkX, chunkZ) == Kind.TERRAIN && delegate.shouldGenerateStructures(worldInfo, random, chunkX, chunkZ);
+    }
+
+    @Override
+    public int getBaseHeight(WorldInfo worldInfo, Random random, int x, int z, HeightMap heightMap) {
+        return delegate.getBaseHeight(worldInfo, random, x, z, heightMap);
+    }
+
+    @Override
+    public BiomeProvider getDefaultBiomeProvider(WorldInfo worldInfo) {
+        return delegate.getDefaultBiomeProvider(worldInfo);
+    }
+
+    @Override
+    public List<BlockPopulator> getDefaultPopulators(World world) {
+        return delegate.getDefaultPopulators(world);
+    }
+
+    @Override
+    public Location getFixedSpawnLocation(World world, Random random) {
+        return delegate.getFixedSpawnLocation(world, random);
+    }
+
+    @Override
+    public boolean canSpawn(World world, int x, int z) {
+        return delegate.canSpawn(world, x, z);
+    }
+
+    @Override
+    public boolean isParallelCapable() {
+        return delegate.isParallelCapable();
+    }
+
+    private Kind getKind(WorldInfo worldInfo, int chunkX, int chunkZ) {
+        long chunk = (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+        int slot = (int) (Long.hashCode(chunk * 0x9E3779B97F4A7C15L) & (CACHE_SIZE - 1));
+        Decision decision = decisions.get(slot);
+        if (decision == null || decision.chunk() != chunk) {
+            decision = new Decision(chunk, classify(worldInfo, chunkX, chunkZ, chunk));
+            decisions.set(slot, decision);
+        }
+        return decision.kind();
+    }
+
+    private Kind classify(WorldInfo worldInfo, int chunkX, int chunkZ, long chunk) {
+        if (!heightsSupported) {
+            return Kind.TERRAIN;
+        }
+        // The random of the generation steps is shared with the wrapped generator, the probes must not advance it.
+        Random random = new Random(worldInfo.getSeed() ^ chunk);
+        try {
+            int[] sampled = getHeightRange(worldInfo, random, chunkX, chunkZ, SAMPLE_OFFSETS);
+            // Columns between the samples may be higher or lower, so only a chunk far from the world is decided here.
+            if ((long) sampled[1] + 2L * surfaceMargin < worldInfo.getMinHeight()) {
+                return Kind.EMPTY;
+            }
+            if ((long) sampled[0] - 2L * solidDepth >= worldInfo.getMaxHeight()) {
+                return Kind.SOLID;
+            }
+            Kind kind = classify(worldInfo, sampled);
+            if (kind == Kind.TERRAIN) {
+                // Every column only widens the range, the chunk has terrain whatever the other columns are.
+                return kind;
+            }
+            return classify(worldInfo, getHeightRange(worldInfo, random, chunkX, chunkZ, null));
+        } catch (UnsupportedOperationException e) {
+            heightsSupported = false;
+            logger.warning("The generator of " + worldInfo.getName() + " does not provide surface heights, all chunks are fully generated.");
+            return Kind.TERRAIN;
+        }
+    }
+
+    private Kind classify(WorldInfo worldInfo, int[] heights) {
+        if ((long) heights[1] + surfaceMargin < worldInfo.getMinHeight()) {
+            return Kind.EMPTY;
+        }
+        if ((long) heights[0] - solidDepth >= worldInfo.getMaxHeight()) {
+            return Kind.SOLID;
+        }
+        return Kind.TERRAIN;
+    }
+
+    /**
+     * Gets the lowest and highest surface of the columns of a chunk.
+     *
+     * @param offsets the offsets of the columns to check along each axis, or {@code null} for all columns
+     * @return the lowest and the highest surface height
+     */
+    private int[] getHeightRange(WorldInfo worldInfo, Random random, int chunkX, int chunkZ, int[] offsets) {
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        int count = offsets == null ? 16 : offsets.length;
+        for (int i = 0; i < count; i++) {
+            int x = (chunkX << 4) + (offsets == null ? i : offsets[i]);
+            for (int j = 0; j < count; j++) {
+                int z = (chunkZ << 4) + (offsets == null ? j : offsets[j]);
+                int height = delegate.getBaseHeight(worldInfo, random, x, z, HeightMap.WORLD_SURFACE_WG);
+                lowest = Math.min(lowest, height);
+                highest = Math.max(highest, height);
+            }
+        }
+        return new int[]{lowest, highest};
+    }
+}
@@ -0,0 +1,186 @@
+package org.btuk.terralayers.plugin.hud;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Action bar display of the global y-level of each player.
+ * <p>
+ * Updates are recorded from the move path and flushed once per tick, so a player receives at most one action bar
+ * per tick and only when the displayed value has changed. Components are kept in a small direct-mapped cache as
+ * players tend to hover around the same y-levels.
+ * <p>
+ * On Folia, moves are recorded from the region threads of the players, so the state is guarded by this instance.
+ */
+public final class GlobalYHud {
+
+    private static final int CACHE_SIZE = 4096;
+
+    private final Plugin plugin;
+    private final NamespacedKey hiddenKey;
+
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final List<Entry> dirty = new ArrayList<>();
+
+    private final Component[] componentCache = new Component[CACHE_SIZE];
+    private final int[] componentCacheKeys = new int[CACHE_SIZE];
+
+    private boolean enabled;
+    private ScheduledTask task;
+
+    public GlobalYHud(Plugin plugin, boolean enabled) {
+        this.plugin = plugin;
+        this.hiddenKey = new NamespacedKey(plugin, "hud-hidden");
+        this.enabled = enabled;
+    }
+
+    public void start() {
+        if (task == null) {
+            task = plugin.getServer().getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> flush(), 1L, 1L);
+        }
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        entries.clear();
+        dirty.clear();
+    }
+
+    /**
+     * Enables or disables the display for all players.
+     *
+     * @param enabled whether the display is enabled
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            dirty.forEach(entry -> entry.dirty = false);
+            dirty.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the latest global y-level of a player, it will be displayed at the end of the tick.
+     *
+     * @param player  the player
+     * @param globalY the global y-level of the player
+     */
+    public synchronized void record(Player player, int globalY) {
+        if (!enabled) {
+            return;
+        }
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry == null) {
+            entry = new Entry(player, isHidden(player));
+            entries.put(player.getUniqueId(), entry);
+        }
+        if (entry.hidden) {
+            return;
+        }
+        entry.latestY = globalY;
+        if (!entry.dirty && globalY != entry.shownY) {
+            entry.dirty = true;
+            dirty.add(entry);
+        }
+    }
+
+    /**
+     * Removes all state of a player, should be called when the player leaves.
+     *
+     * @param player the player
+     */
+    public synchronized void remove(Player player) {
+        Entry entry = entries.remove(player.getUniqueId());
+        if (entry != null && entry.dirty) {
+            dirty.remove(entry);
+        }
+    }
+
+    /**
+     * Whether the player has chosen to hide the display.
+     */
+    public boolean isHidden(Player player) {
+        return player.getPersistentDataContainer().getOrDefault(hiddenKey, PersistentDataType.BOOLEAN, false);
+    }
+
+    /**
+     * Shows or hides the display for a player, the choice is stored on the player.
+     *
+     * @param player the player
+     * @param hidden whether the display should be hidden
+     */
+    public synchronized void setHidden(Player player, boolean hidden) {
+        if (hidden) {
+            player.getPersistentDataContainer().set(hiddenKey, PersistentDataType.BOOLEAN, true);
+        } else {
+            player.getPersistentDataContainer().remove(hiddenKey);
+        }
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry != null) {
+            entry.hidden = hidden;
+            // Force the next recorded value to be sent.
+            entry.shownY = Integer.MIN_VALUE;
+        }
+        if (hidden) {
+            player.sendActionBar(Component.empty());
+        }
+    }
+
+    private synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        for (Entry entry : dirty) {
+            entry.dirty = false;
+            if (entry.hidden || entry.latestY == entry.shownY || !entry.player.isOnline()) {
+                continue;
+            }
+            entry.shownY = entry.latestY;
+            entry.player.sendActionBar(getComponent(entry.latestY));
+        }
+        dirty.clear();
+    }
+
+    private Component getComponent(int globalY) {
+        int slot = Math.floorMod(globalY, CACHE_SIZE);
+        Component component = componentCache[slot];
+        if (component == null || componentCacheKeys[slot] != globalY) {
+            component = Component.text("Y: " + globalY, NamedTextColor.GOLD, TextDecoration.BOLD);
+            componentCache[slot] = component;
+            componentCacheKeys[slot] = globalY;
+        }
+        return component;
+    }
+
+    private static final class Entry {
+        private final Player player;
+        private boolean hidden;
+        private boolean dirty;
+        private int latestY;
+        private int shownY = Integer.MIN_VALUE;
+
+        private Entry(Player player, boolean hidden) {
+            this.player = player;
+            this.hidden = hidden;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.btuk.terralayers.plugin.impl;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.scheduler.FoliaSupport;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The plugin chunk tickets of TerraLayers, shared by everything that keeps chunks of layer worlds loaded.
+ * <p>
+ * A plugin has a single ticket per chunk, so two features holding the same chunk would release it for each other.
+ * The holders of each chunk are counted instead, the ticket is added when the first holder acquires the chunk and
+ * removed when the last holder releases it. The counts are shared between features, and on Folia between region
+ * threads, so they are guarded by the map holding them.
+ */
+public final class ChunkTickets {
+
+    private final Plugin plugin;
+
+    private final Map<String, Map<Long, Integer>> counts = new HashMap<>();
+
+    public ChunkTickets(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Loads a chunk and holds it with the plugin ticket until it is released.
+     * Every call must be matched by a call to {@link #release(LayeredWorld, int, int)}, also if loading fails.
+     *
+     * @param layer  the layer
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @return a future completing with the loaded chunk, on the thread owning the chunk
+     * @throws IllegalStateException if the world of the layer is not loaded
+     */
+    public CompletableFuture<Chunk> acquire(LayeredWorld layer, int chunkX, int chunkZ) {
+        World world = layer.getWorld();
+        if (world == null) {
+            throw new IllegalStateException("The world of " + layer.getName() + " is not loaded");
+        }
+        long key = chunkKey(chunkX, chunkZ);
+        Map<Long, Integer> worldCounts;
+        synchronized (counts) {
+            worldCounts = counts.computeIfAbsent(layer.getName(), k -> new HashMap<>());
+            worldCounts.merge(key, 1, Integer::sum);
+        }
+        return world.getChunkAtAsync(chunkX, chunkZ, true).thenApply(chunk -> {
+            // The chunk may no longer be wanted by the time it has loaded, adding the ticket again has no effect.
+            synchronized (counts) {
+                if (worldCounts.containsKey(key)) {
+                    chunk.addPluginChunkTicket(plugin);
+                }
+            }
+            return chunk;
+        });
+    }
+
+    /**
+     * Releases a chunk, the ticket is removed once no holder is left.
+     *
+     * @param layer  the layer
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     */
+    public void release(LayeredWorld layer, int chunkX, int chunkZ) {
+        long key = chunkKey(chunkX, chunkZ);
+        synchronized (counts) {
+            Map<Long, Integer> worldCounts = counts.get(layer.getName());
+            if (worldCounts == null) {
+                return;
+            }
+            Integer count = worldCounts.get(key);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                worldCounts.put(key, count - 1);
+                return;
+            }
+            worldCounts.remove(key);
+            if (worldCounts.isEmpty()) {
+                counts.remove(layer.getName());
+            }
+        }
+        // If the world has been unloaded since, its tickets are gone already.
+        World world = layer.getWorld();
+        if (world != null) {
+            FoliaSupport.runAtChunk(plugin, world, chunkX, chunkZ, () -> world.removePluginChunkTicket(chunkX, chunkZ, plugin));
+        }
+    }
+
+    /**
+     * Whether any chunk of a world is held, the world should not be unloaded while it is.
+     *
+     * @param worldName the name of the world
+     */
+    public boolean isHolding(String worldName) {
+        synchronized (counts) {
+            return counts.containsKey(worldName);
+        }
+    }
+
+    /**
+     * Forgets the chunks held in a world that has been unloaded, its tickets are gone with it.
+     * Holders releasing those chunks later have no effect.
+     *
+     * @param worldName the name of the world
+     */
+    public void clear(String worldName) {
+        synchronized (counts) {
+            Map<Long, Integer> worldCounts = counts.remove(worldName);
+            if (worldCounts != null) {
+                // Chunks of the world that are still loading are not ticketed anymore.
+                worldCounts.clear();
+            }
+        }
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) z << 32) | (x & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,155 @@
+package org.btuk.terralayers.plugin.impl;
+
+import org.btuk.terralayers.api.BlockVolume;
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads global cuboids of blocks across the layers they span.
+ * <p>
+ * The layers are read one after another, so that loading a layer on demand does not unload a layer that is still
+ * being read. The chunks of a layer are loaded asynchronously and copied into snapshots on the main thread,
+ * the volume is encoded from the snapshots on an asynchronous thread.
+ */
+final class LayerBlockReader {
+
+    /**
+     * The maximum number of blocks in a single read, 128 MiB of palette indices.
+     */
+    static final long MAX_BLOCKS = 1L << 26;
+
+    private final Plugin plugin;
+    private final LayerManager layerManager;
+
+    LayerBlockReader(Plugin plugin, LayerManager layerManager) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+    }
+
+    CompletableFuture<BlockVolume> read(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        // All layers are taken from the same list, in case the layers are replaced during the read.
+        List<LayeredWorld> layers = layerManager.getLayers();
+        if (layers.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No layers are loaded"));
+        }
+        int globalMin = layers.getFirst().getMinY();
+        int globalMax = layers.getLast().getMaxY();
+        int worldHeight = layers.getFirst().getMaxY() - globalMin;
+        minY = Math.max(minY, globalMin);
+        maxY = Math.min(maxY, globalMax - 1);
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("The cuboid is empty or outside the layers"));
+        }
+        long blocks = ((long) maxX - minX + 1) * ((long) maxY - minY + 1) * ((long) maxZ - minZ + 1);
+        if (blocks > MAX_BLOCKS) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("The cuboid contains " + blocks + " blocks, the maximum is " + MAX_BLOCKS));
+        }
+
+        Region region = new Region(minX, minY, minZ, maxX, maxY, maxZ);
+        int firstLayer = (minY - globalMin) / worldHeight;
+        int lastLayer = (maxY - globalMin) / worldHeight;
+        List<LayerSnapshots> snapshots = new ArrayList<>(lastLayer - firstLayer + 1);
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (int i = firstLayer; i <= lastLayer; i++) {
+            LayeredWorld layer = layers.get(i);
+            chain = chain.thenCompose(ignored -> layerManager.loadLayer(layer))
+                    .thenComposeAsync(world -> snapshot(world, region), mainThread())
+                    .thenAccept(chunks -> snapshots.add(new LayerSnapshots(layer, chunks)));
+        }
+        return chain.thenApplyAsync(ignored -> encode(region, snapshots), async());
+    }
+
+    /**
+     * Loads the chunks of the region in a layer world and takes a snapshot of each, on the thread owning the chunk.
+     */
+    private CompletableFuture<Map<Long, ChunkSnapshot>> snapshot(World world, Region region) {
+        // On Folia, the chunks load on the threads of their regions.
+        Map<Long, ChunkSnapshot> chunks = new ConcurrentHashMap<>();
+        List<CompletableFuture<?>> loading = new ArrayList<>();
+        for (int chunkX = region.minX >> 4; chunkX <= region.maxX >> 4; chunkX++) {
+            for (int chunkZ = region.minZ >> 4; chunkZ <= region.maxZ >> 4; chunkZ++) {
+                long key = chunkKey(chunkX, chunkZ);
+                loading.add(world.getChunkAtAsync(chunkX, chunkZ).thenAccept(chunk ->
+                        chunks.put(key, chunk.getChunkSnapshot(false, false, false))));
+            }
+        }
+        return CompletableFuture.allOf(loading.toArray(CompletableFuture[]::new)).thenApply(ignored -> chunks);
+    }
+
+    private static BlockVolume encode(Region region, List<LayerSnapshots> layers) {
+        int sizeX = region.maxX - region.minX + 1;
+        int sizeY = region.maxY - region.minY + 1;
+        int sizeZ = region.maxZ - region.minZ + 1;
+        short[] indices = new short[sizeX * sizeY * sizeZ];
+        List<BlockData> palette = new ArrayList<>();
+        Map<BlockData, Integer> paletteIndices = new HashMap<>();
+
+        for (LayerSnapshots layer : layers) {
+            int fromY = Math.max(region.minY, layer.layer.getMinY());
+            int toY = Math.min(region.maxY, layer.layer.getMaxY() - 1);
+            for (ChunkSnapshot snapshot : layer.chunks.values()) {
+                int fromX = Math.max(region.minX, snapshot.getX() << 4);
+                int toX = Math.min(region.maxX, (snapshot.getX() << 4) + 15);
+                int fromZ = Math.max(region.minZ, snapshot.getZ() << 4);
+                int toZ = Math.min(region.maxZ, (snapshot.getZ() << 4) + 15);
+                BlockData previous = null;
+                int previousIndex = 0;
+                for (int y = fromY; y <= toY; y++) {
+                    int localY = y - layer.layer.getMinY();
+                    for (int z = fromZ; z <= toZ; z++) {
+                        int row = ((y - region.minY) * sizeZ + (z - region.minZ)) * sizeX - region.minX;
+                        for (int x = fromX; x <= toX; x++) {
+                            BlockData data = snapshot.getBlockData(x & 15, localY, z & 15);
+                            // Neighbouring blocks are often the same, skip the palette lookup for those.
+                            if (!data.equals(previous)) {
+                                previous = data;
+                                previousIndex = paletteIndices.computeIfAbsent(data, key -> {
+                                    palette.add(key);
+                                    return palette.size() - 1;
+                                });
+                            }
+                            indices[row + x] = (short) previousIndex;
+                        }
+                    }
+                }
+            }
+        }
+        return new BlockVolume(region.minX, region.minY, region.minZ, sizeX, sizeY, sizeZ, palette, indices);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX & 0xFFFFFFFFL | ((long) chunkZ & 0xFFFFFFFFL) << 32;
+    }
+
+    private Executor mainThread() {
+        return task -> plugin.getServer().getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    private Executor async() {
+        return task -> plugin.getServer().getAsyncScheduler().runNow(plugin, scheduled -> task.run());
+    }
+
+    /**
+     * Global cuboid to read, all bounds inclusive.
+     */
+    private record Region(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+    }
+
+    /**
+     * Snapshots of the chunks read from a layer, by chunk key.
+     */
+    private record LayerSnapshots(LayeredWorld layer, Map<Long, ChunkSnapshot> chunks) {
+    }
+}
@@ -0,0 +1,233 @@
+package org.btuk.terralayers.plugin.impl;
+
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Immutable, array-backed snapshot of the layer topology.
+ * <p>
+ * All layers have the same height and are stacked contiguously from {@code globalMin},
+ * so the layer for a global y-level is found with a single division instead of a search.
+ * The {@link Optional} wrappers are created once here so that lookups do not allocate.
+ * <p>
+ * A snapshot is never modified, the {@link SimpleLayerManager} publishes a new one through a single volatile field
+ * when the layers change. Readers on any thread read the field once and get a consistent view without locking.
+ */
+final class LayerIndex {
+
+    private final int globalMin;
+    private final int globalMax;
+    private final int worldHeight;
+    private final int bufferSize;
+
+    private final LayeredWorld[] layers;
+    private final Optional<LayeredWorld>[] optionalLayers;
+    private final List<LayeredWorld> layerList;
+    private final Map<String, LayeredWorld> layersByName;
+
+    /**
+     * Creates a new index.
+     *
+     * @param globalMin   the minimum y-level of the lowest layer
+     * @param worldHeight the height of each layer
+     * @param bufferSize  the buffer size of each layer
+     * @param layers      the layers in ascending order, the first starting at {@code globalMin}
+     */
+    @SuppressWarnings("unchecked")
+    LayerIndex(int globalMin, int worldHeight, int bufferSize, List<LayeredWorld> layers) {
+        if (worldHeight <= 0) {
+            throw new IllegalArgumentException("worldHeight must be positive");
+        }
+        this.globalMin = globalMin;
+        this.globalMax = globalMin + layers.size() * worldHeight;
+        this.worldHeight = worldHeight;
+        this.bufferSize = bufferSize;
+
+        this.layers = layers.toArray(new LayeredWorld[0]);
+        this.optionalLayers = new Optional[this.layers.length];
+        Map<String, LayeredWorld> byName = new HashMap<>();
+        for (int i = 0; i < this.layers.length; i++) {
+            LayeredWorld layer = this.layers[i];
+            if (layer == null) {
+                throw new IllegalArgumentException("layer cannot be null");
+            }
+            if (layer.getBufferSize() != bufferSize) {
+                throw new IllegalArgumentException("layer buffer size must match configured bufferSize");
+            }
+            if (layer.getMinY() != globalMin + i * worldHeight || layer.getMaxY() != layer.getMinY() + worldHeight) {
+                throw new IllegalArgumentException("layer " + layer.getName() + " does not line up with the layer index");
+            }
+            this.optionalLayers[i] = Optional.of(layer);
+            byName.put(layer.getName(), layer);
+        }
+        this.layerList = List.of(this.layers);
+        this.layersByName = Map.copyOf(byName);
+    }
+
+    /**
+     * Creates an index without layers.
+     */
+    static LayerIndex empty(int worldHeight, int bufferSize) {
+        return new LayerIndex(0, worldHeight, bufferSize, List.of());
+    }
+
+    int getGlobalMin() {
+        return globalMin;
+    }
+
+    int getGlobalMax() {
+        return globalMax;
+    }
+
+    int getWorldHeight() {
+        return worldHeight;
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    int size() {
+        return layers.length;
+    }
+
+    List<LayeredWorld> getLayers() {
+        return layerList;
+    }
+
+    /**
+     * Gets the index of the layer covering the global y-level.
+     *
+     * @param globalY the global y-level
+     * @return the layer index, or -1 if no layer covers the y-level
+     */
+    int indexOf(double globalY) {
+        // Written so that NaN also falls outside the range.
+        if (!(globalY >= globalMin && globalY < globalMax)) {
+            return -1;
+        }
+        return (int) ((Math.floor(globalY) - globalMin) / worldHeight);
+    }
+
+    /**
+     * Gets the index of the given layer, or -1 if it is not part of this index.
+     */
+    int indexOf(LayeredWorld layer) {
+        int index = Math.floorDiv(layer.getMinY() - globalMin, worldHeight);
+        if (index < 0 || index >= layers.length || !layers[index].getName().equals(layer.getName())) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the local y-level of a global y-level in the layer covering it.
+     *
+     * @return the local y-level, or NaN if no layer covers the y-level
+     */
+    double toLocalY(double globalY) {
+        int index = indexOf(globalY);
+        return index == -1 ? Double.NaN : globalY - layerMin(index);
+    }
+
+    double toGlobalY(int index, double localY) {
+        return index < 0 || index >= layers.length ? Double.NaN : layerMin(index) + localY;
+    }
+
+    void toLocal(double[] globalYs, int offset, int length, int[] layerIndices, double[] localYs, int outOffset) {
+        Objects.checkFromIndexSize(offset, length, globalYs.length);
+        Objects.checkFromIndexSize(outOffset, length, layerIndices.length);
+        Objects.checkFromIndexSize(outOffset, length, localYs.length);
+        for (int i = 0; i < length; i++) {
+            double globalY = globalYs[offset + i];
+            int index = indexOf(globalY);
+            layerIndices[outOffset + i] = index;
+            localYs[outOffset + i] = index == -1 ? Double.NaN : globalY - layerMin(index);
+        }
+    }
+
+    void toLocal(int[] globalYs, int offset, int length, int[] layerIndices, int[] localYs, int outOffset) {
+        Objects.checkFromIndexSize(offset, length, globalYs.length);
+        Objects.checkFromIndexSize(outOffset, length, layerIndices.length);
+        Objects.checkFromIndexSize(outOffset, length, localYs.length);
+        for (int i = 0; i < length; i++) {
+            int globalY = globalYs[offset + i];
+            int index = indexOf(globalY);
+            layerIndices[outOffset + i] = index;
+            localYs[outOffset + i] = index == -1 ? 0 : globalY - layerMin(index);
+        }
+    }
+
+    void toLocalPacked(int[] globalYs, int offset, int length, long[] packed, int outOffset) {
+        Objects.checkFromIndexSize(offset, length, globalYs.length);
+        Objects.checkFromIndexSize(outOffset, length, packed.length);
+        for (int i = 0; i < length; i++) {
+            int globalY = globalYs[offset + i];
+            int index = indexOf(globalY);
+            packed[outOffset + i] = LayerManager.pack(index, index == -1 ? 0 : globalY - layerMin(index));
+        }
+    }
+
+    void toGlobal(int[] layerIndices, double[] localYs, int offset, int length, double[] globalYs, int outOffset) {
+        Objects.checkFromIndexSize(offset, length, layerIndices.length);
+        Objects.checkFromIndexSize(offset, length, localYs.length);
+        Objects.checkFromIndexSize(outOffset, length, globalYs.length);
+        for (int i = 0; i < length; i++) {
+            globalYs[outOffset + i] = toGlobalY(layerIndices[offset + i], localYs[offset + i]);
+        }
+    }
+
+    void toGlobal(int[] layerIndices, int[] localYs, int offset, int length, int[] globalYs, int outOffset) {
+        Objects.checkFromIndexSize(offset, length, layerIndices.length);
+        Objects.checkFromIndexSize(offset, length, localYs.length);
+        Objects.checkFromIndexSize(outOffset, length, globalYs.length);
+        for (int i = 0; i < length; i++) {
+            globalYs[outOffset + i] = toGlobalBlockY(layerIndices[offset + i], localYs[offset + i]);
+        }
+    }
+
+    void toGlobalPacked(long[] packed, int offset, int length, int[] globalYs, int outOffset) {
+        Objects.checkFromIndexSize(offset, length, packed.length);
+        Objects.checkFromIndexSize(outOffset, length, globalYs.length);
+        for (int i = 0; i < length; i++) {
+            long value = packed[offset + i];
+            globalYs[outOffset + i] = toGlobalBlockY(LayerManager.unpackLayerIndex(value), LayerManager.unpackLocalY(value));
+        }
+    }
+
+    /**
+     * Gets the index of the layer covering a global block y-level, using integer arithmetic only.
+     */
+    private int indexOf(int globalY) {
+        if (globalY < globalMin || globalY >= globalMax) {
+            return -1;
+        }
+        return (globalY - globalMin) / worldHeight;
+    }
+
+    private int toGlobalBlockY(int index, int localY) {
+        return index < 0 || index >= layers.length ? Integer.MIN_VALUE : layerMin(index) + localY;
+    }
+
+    private int layerMin(int index) {
+        return globalMin + index * worldHeight;
+    }
+
+    LayeredWorld get(int index) {
+        return index < 0 || index >= layers.length ? null : layers[index];
+    }
+
+    Optional<LayeredWorld> getOptional(int index) {
+        return index < 0 || index >= layers.length ? Optional.empty() : optionalLayers[index];
+    }
+
+    LayeredWorld getByName(String name) {
+        return layersByName.get(name);
+    }
+}
@@ -0,0 +1,229 @@
+package org.btuk.terralayers.plugin.impl;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.multiverse.WorldManager;
+import org.btuk.terralayers.plugin.scheduler.FoliaSupport;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads layer worlds on demand and unloads them again when they are no longer used.
+ * <p>
+ * A layer without players for longer than the idle time is unloaded. When a layer has to be loaded while the maximum
+ * number of loaded layers is reached, the least recently used layers without players are unloaded first.
+ * Layers with chunks held through the shared {@link ChunkTickets}, by a running edit or a prefetch, are not unloaded,
+ * and neither is the main world of the server.
+ */
+public final class LayerWorldLoader {
+
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Plugin plugin;
+    private final SimpleLayerManager layerManager;
+    private final WorldManager worldManager;
+    private final TerraLayersScheduler scheduler;
+    private final ChunkTickets tickets;
+    private final TerraLayersScheduler.Worker worker = this::run;
+
+    private final Map<String, CompletableFuture<World>> pending = new HashMap<>();
+    private final Map<String, Long> lastUsed = new HashMap<>();
+
+    private long idleMillis;
+    private int maxLoadedLayers;
+    private boolean running;
+    private long nextCheckNanos;
+
+    public LayerWorldLoader(Plugin plugin, SimpleLayerManager layerManager, WorldManager worldManager, TerraLayersScheduler scheduler,
+                            ChunkTickets tickets, int idleSeconds, int maxLoadedLayers) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+        this.worldManager = worldManager;
+        this.scheduler = scheduler;
+        this.tickets = tickets;
+        configure(idleSeconds, maxLoadedLayers);
+    }
+
+    /**
+     * Updates the eviction settings.
+     *
+     * @param idleSeconds     the time a layer may be without players before it is unloaded
+     * @param maxLoadedLayers the maximum number of layers to keep loaded
+     */
+    public void configure(int idleSeconds, int maxLoadedLayers) {
+        this.idleMillis = Math.max(0, idleSeconds) * 1000L;
+        this.maxLoadedLayers = Math.max(1, maxLoadedLayers);
+    }
+
+    public void start() {
+        if (!running) {
+            running = true;
+            nextCheckNanos = System.nanoTime() + CHECK_INTERVAL_NANOS;
+            scheduler.addWorker(TerraLayersScheduler.Priority.LOW, worker);
+        }
+    }
+
+    public void stop() {
+        if (running) {
+            running = false;
+            scheduler.removeWorker(worker);
+        }
+        pending.clear();
+        lastUsed.clear();
+    }
+
+    /**
+     * Stops Multiverse from loading the layer worlds on startup, as they are now loaded on demand.
+     * The main world is loaded by the server regardless.
+     */
+    public void onLayersLoaded() {
+        String mainWorld = plugin.getServer().getWorlds().getFirst().getName();
+        for (LayeredWorld layer : layerManager.getLayers()) {
+            if (!layer.getName().equals(mainWorld)) {
+                worldManager.setAutoLoad(layer.getName(), false);
+            }
+        }
+    }
+
+    /**
+     * Lets Multiverse load the layer worlds on startup again, once lazy loading is disabled, and loads the layer
+     * worlds that are not loaded, as nothing loads them on demand anymore.
+     * Only layer worlds that lazy loading stopped from loading on startup are changed, so this does nothing once the
+     * autoload settings have been restored, and layer worlds that do not exist yet are left alone.
+     */
+    public void restoreAutoLoad() {
+        for (LayeredWorld layer : layerManager.getLayers()) {
+            if (!worldManager.hasWorld(layer.getName()) || !worldManager.setAutoLoad(layer.getName(), true)) {
+                continue;
+            }
+            // Worlds cannot be loaded while the server is running on Folia, they are loaded on the next start.
+            if (!layer.isLoaded() && !FoliaSupport.isFolia()) {
+                scheduler.submit(TerraLayersScheduler.Priority.NORMAL, () -> worldManager.loadWorld(layer.getName()).whenComplete((world, error) -> {
+                    if (error != null || world == null) {
+                        plugin.getLogger().warning("Failed to load layer " + layer.getName() + ": " + (error != null ? error.getMessage() : "world not found"));
+                        return;
+                    }
+                    layerManager.attachWorld(world);
+                }));
+            }
+        }
+    }
+
+    /**
+     * Loads the world of a layer if it is not loaded.
+     * Can be called from any thread, the future is completed on the main thread.
+     *
+     * @param layer the layer
+     * @return a future completing with the loaded world
+     */
+    public CompletableFuture<World> ensureLoaded(LayeredWorld layer) {
+        if (!plugin.getServer().isPrimaryThread()) {
+            return scheduler.submit(TerraLayersScheduler.Priority.HIGH, () -> ensureLoaded(layer))
+                    .thenCompose(future -> future);
+        }
+
+        World world = layer.getWorld();
+        if (world != null) {
+            lastUsed.put(layer.getName(), System.currentTimeMillis());
+            return CompletableFuture.completedFuture(world);
+        }
+
+        CompletableFuture<World> future = pending.get(layer.getName());
+        if (future != null) {
+            return future;
+        }
+        CompletableFuture<World> loading = new CompletableFuture<>();
+        pending.put(layer.getName(), loading);
+        // Load from the scheduler, so a load requested from inside an event does not run inside it.
+        scheduler.submit(TerraLayersScheduler.Priority.HIGH, () -> load(layer, loading));
+        return loading;
+    }
+
+    private void load(LayeredWorld layer, CompletableFuture<World> future) {
+        makeRoom(layer.getName());
+        worldManager.loadWorld(layer.getName()).whenComplete((world, error) -> {
+            pending.remove(layer.getName());
+            if (error != null || world == null) {
+                plugin.getLogger().warning("Failed to load layer " + layer.getName() + ": " + (error != null ? error.getMessage() : "world not found"));
+                future.completeExceptionally(error != null ? error : new IllegalStateException("World " + layer.getName() + " not found"));
+                return;
+            }
+            // The world load event attaches the world as well, but make sure it is attached before anyone continues.
+            layerManager.attachWorld(world);
+            lastUsed.put(layer.getName(), System.currentTimeMillis());
+            plugin.getLogger().info("Loaded layer " + layer.getName() + ".");
+            future.complete(world);
+        });
+    }
+
+    /**
+     * Unloads the least recently used layers without players until there is room for one more layer.
+     */
+    private void makeRoom(String loading) {
+        List<LayeredWorld> loaded = layerManager.getLayers().stream().filter(LayeredWorld::isLoaded).toList();
+        int count = loaded.size();
+        if (count < maxLoadedLayers) {
+            return;
+        }
+        List<LayeredWorld> candidates = loaded.stream()
+                .filter(layer -> !layer.getName().equals(loading) && canUnload(layer))
+                .sorted(Comparator.comparingLong(layer -> lastUsed.getOrDefault(layer.getName(), 0L)))
+                .toList();
+        for (LayeredWorld layer : candidates) {
+            if (count < maxLoadedLayers) {
+                return;
+            }
+            unload(layer);
+            count--;
+        }
+        if (count >= maxLoadedLayers) {
+            plugin.getLogger().warning("All " + count + " loaded layers are in use, loading " + loading + " exceeds the maximum of " + maxLoadedLayers + " loaded layers.");
+        }
+    }
+
+    private boolean run(long deadlineNanos) {
+        long nanos = System.nanoTime();
+        if (nanos >= nextCheckNanos) {
+            nextCheckNanos = nanos + CHECK_INTERVAL_NANOS;
+            unloadIdleLayers();
+        }
+        return true;
+    }
+
+    private void unloadIdleLayers() {
+        long now = System.currentTimeMillis();
+        for (LayeredWorld layer : layerManager.getLayers()) {
+            World world = layer.getWorld();
+            if (world == null) {
+                continue;
+            }
+            if (!world.getPlayers().isEmpty()) {
+                lastUsed.put(layer.getName(), now);
+                continue;
+            }
+            Long last = lastUsed.putIfAbsent(layer.getName(), now);
+            if (last != null && now - last >= idleMillis && canUnload(layer)) {
+                unload(layer);
+            }
+        }
+    }
+
+    private boolean canUnload(LayeredWorld layer) {
+        World world = layer.getWorld();
+        return world != null && world.getPlayers().isEmpty() && !tickets.isHolding(layer.getName())
+                && !world.equals(plugin.getServer().getWorlds().getFirst());
+    }
+
+    private void unload(LayeredWorld layer) {
+        plugin.getLogger().info("Unloading idle layer " + layer.getName() + ".");
+        lastUsed.remove(layer.getName());
+        worldManager.unloadWorld(layer.getName());
+    }
+}
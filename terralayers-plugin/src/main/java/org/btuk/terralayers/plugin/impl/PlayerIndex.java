@@ -0,0 +1,204 @@
+package org.btuk.terralayers.plugin.impl;
+
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grid of the online players in layers, by their global position.
+ * <p>
+ * Space is divided in cubes of {@value #CELL_SIZE} blocks, each cell holding the players inside it. A query only
+ * visits the cells overlapping its bounds, so its cost depends on the players near the queried area rather than
+ * on the number of players online. Queries covering more cells than are occupied visit the occupied cells instead.
+ * <p>
+ * Positions are recorded from the move path, on Folia from the region thread of each player. Cells are only changed
+ * when a player crosses into another cell. The cells are concurrent sets so queries can run on any thread, they see
+ * the position last recorded for each player.
+ */
+public final class PlayerIndex {
+
+    private static final int CELL_SHIFT = 5;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    /**
+     * Bits per coordinate in a cell key, enough for the world border and over 30 million blocks of layers.
+     */
+    private static final int KEY_BITS = 21;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Entry>> cells = new ConcurrentHashMap<>();
+
+    private static final class Entry {
+        private final Player player;
+        private volatile double x;
+        private volatile double y;
+        private volatile double z;
+        private long cell;
+
+        private Entry(Player player) {
+            this.player = player;
+        }
+    }
+
+    /**
+     * Records the position of a player.
+     *
+     * @param player  the player
+     * @param x       the x coordinate
+     * @param globalY the global y-level
+     * @param z       the z coordinate
+     */
+    public void update(Player player, double x, double globalY, double z) {
+        Entry entry = entries.get(player.getUniqueId());
+        long cell = key(cell(x), cell(globalY), cell(z));
+        if (entry == null) {
+            entry = new Entry(player);
+            setPosition(entry, x, globalY, z);
+            entry.cell = cell;
+            entries.put(player.getUniqueId(), entry);
+            addToCell(entry, cell);
+            return;
+        }
+        setPosition(entry, x, globalY, z);
+        if (entry.cell != cell) {
+            // A query in between may miss the player, but never sees it twice.
+            removeFromCell(entry, entry.cell);
+            entry.cell = cell;
+            addToCell(entry, cell);
+        }
+    }
+
+    /**
+     * Removes a player, when the player left or is no longer in a layer.
+     *
+     * @param player the player
+     */
+    public void remove(Player player) {
+        Entry entry = entries.remove(player.getUniqueId());
+        if (entry != null) {
+            removeFromCell(entry, entry.cell);
+        }
+    }
+
+    /**
+     * Removes all players.
+     */
+    public void clear() {
+        entries.clear();
+        cells.clear();
+    }
+
+    /**
+     * Finds the players within a distance of a global position.
+     *
+     * @see org.btuk.terralayers.api.LayerManager#getPlayersNear(double, double, double, double)
+     */
+    public List<Player> getNear(double x, double globalY, double z, double radius) {
+        return query(x - radius, globalY - radius, z - radius, x + radius, globalY + radius, z + radius, x, globalY, z, radius * radius);
+    }
+
+    /**
+     * Finds the players inside a global box.
+     *
+     * @see org.btuk.terralayers.api.LayerManager#getPlayersWithin(double, double, double, double, double, double)
+     */
+    public List<Player> getWithin(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return query(Math.min(minX, maxX), Math.min(minY, maxY), Math.min(minZ, maxZ),
+                Math.max(minX, maxX), Math.max(minY, maxY), Math.max(minZ, maxZ), 0, 0, 0, -1);
+    }
+
+    /**
+     * Collects the players inside a box and, if {@code radiusSquared} is not negative, within the distance of the centre.
+     */
+    private List<Player> query(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                               double centreX, double centreY, double centreZ, double radiusSquared) {
+        List<Player> result = new ArrayList<>();
+        if (entries.isEmpty() || Double.isNaN(minX + minY + minZ + maxX + maxY + maxZ)) {
+            return result;
+        }
+        int minCellX = cell(minX);
+        int minCellY = cell(minY);
+        int minCellZ = cell(minZ);
+        int maxCellX = cell(maxX);
+        int maxCellY = cell(maxY);
+        int maxCellZ = cell(maxZ);
+        double cellCount = ((double) maxCellX - minCellX + 1) * ((double) maxCellY - minCellY + 1) * ((double) maxCellZ - minCellZ + 1);
+        if (cellCount > cells.size()) {
+            for (Set<Entry> cell : cells.values()) {
+                collect(cell, result, minX, minY, minZ, maxX, maxY, maxZ, centreX, centreY, centreZ, radiusSquared);
+            }
+            return result;
+        }
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    Set<Entry> cell = cells.get(key(cellX, cellY, cellZ));
+                    if (cell != null) {
+                        collect(cell, result, minX, minY, minZ, maxX, maxY, maxZ, centreX, centreY, centreZ, radiusSquared);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void collect(Set<Entry> cell, List<Player> result, double minX, double minY, double minZ,
+                                double maxX, double maxY, double maxZ,
+                                double centreX, double centreY, double centreZ, double radiusSquared) {
+        for (Entry entry : cell) {
+            double x = entry.x;
+            double y = entry.y;
+            double z = entry.z;
+            if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ) {
+                continue;
+            }
+            if (radiusSquared >= 0) {
+                double dx = x - centreX;
+                double dy = y - centreY;
+                double dz = z - centreZ;
+                if (dx * dx + dy * dy + dz * dz > radiusSquared) {
+                    continue;
+                }
+            }
+            result.add(entry.player);
+        }
+    }
+
+    private void addToCell(Entry entry, long cell) {
+        // Added inside the compute, so the set cannot be removed as empty in between.
+        cells.compute(cell, (key, players) -> {
+            if (players == null) {
+                players = ConcurrentHashMap.newKeySet();
+            }
+            players.add(entry);
+            return players;
+        });
+    }
+
+    private void removeFromCell(Entry entry, long cell) {
+        cells.computeIfPresent(cell, (key, players) -> {
+            players.remove(entry);
+            return players.isEmpty() ? null : players;
+        });
+    }
+
+    private static void setPosition(Entry entry, double x, double y, double z) {
+        entry.x = x;
+        entry.y = y;
+        entry.z = z;
+    }
+
+    private static int cell(double coordinate) {
+        return (int) Math.floor(coordinate) >> CELL_SHIFT;
+    }
+
+    private static long key(int cellX, int cellY, int cellZ) {
+        return (cellX & KEY_MASK) << 2 * KEY_BITS | (cellY & KEY_MASK) << KEY_BITS | cellZ & KEY_MASK;
+    }
+}
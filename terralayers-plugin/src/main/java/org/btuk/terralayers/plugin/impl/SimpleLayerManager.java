@@ -1,58 +1,179 @@
 package org.btuk.terralayers.plugin.impl;
 
+import org.btuk.terralayers.api.BlockVolume;
 import org.btuk.terralayers.api.LayerManager;
 import org.btuk.terralayers.api.LayeredWorld;
 import org.btuk.terralayers.datapack.Datapack;
 import org.btuk.terralayers.plugin.TerraLayersPlugin;
 import org.btuk.terralayers.plugin.config.ConfigManager;
 import org.bukkit.World;
+import org.bukkit.entity.Player;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Minimal placeholder implementation. It does not auto-discover or manage worlds yet.
- * In future work, this will be populated from configuration and world creation logic.
+ * Layer manager populated from the configuration and the datapack of the main world.
+ * <p>
+ * The layer topology is held in an immutable {@link LayerIndex} published through a single volatile field, so it can
+ * be read from any thread without locking. Loading or reloading the layers builds a new index and swaps it in at once,
+ * the manager itself stays registered as the same service instance.
  */
 public class SimpleLayerManager implements LayerManager {
 
     private final TerraLayersPlugin plugin;
-    private final int worldHeight;
-    private final int bufferSize;
-    private final Map<String, LayeredWorld> layers = new HashMap<>();
+    private final LayerBlockReader blockReader;
+    private final PlayerIndex players = new PlayerIndex();
+    private volatile LayerIndex index;
+    private LayerWorldLoader worldLoader;
 
     public SimpleLayerManager(TerraLayersPlugin plugin, int worldHeight, int bufferSize) {
         this.plugin = plugin;
-        this.worldHeight = worldHeight;
-        this.bufferSize = bufferSize;
+        this.index = LayerIndex.empty(worldHeight, bufferSize);
+        this.blockReader = new LayerBlockReader(plugin, this);
     }
 
     @Override
-    public Collection<LayeredWorld> getLayers() {
-        return layers.values();
+    public List<LayeredWorld> getLayers() {
+        return index.getLayers();
+    }
+
+    @Override
+    public int getLayerCount() {
+        return index.size();
+    }
+
+    @Override
+    public Optional<LayeredWorld> getLayer(int index) {
+        return this.index.getOptional(index);
+    }
+
+    @Override
+    public int getLayerIndex(double globalY) {
+        return index.indexOf(globalY);
     }
 
     @Override
     public Optional<LayeredWorld> getLayerForGlobalY(double globalY) {
-        return layers.values().stream()
-                .filter(l -> globalY >= l.getMinY() && globalY < l.getMaxY())
-                .findFirst();
+        LayerIndex current = index;
+        return current.getOptional(current.indexOf(globalY));
     }
 
     @Override
     public LayeredWorld getLayerForWorld(World world) {
-        return layers.get(world.getName());
+        return index.getByName(world.getName());
+    }
+
+    @Override
+    public Optional<LayeredWorld> getLayerAbove(LayeredWorld layer) {
+        LayerIndex current = index;
+        int i = current.indexOf(layer);
+        return i == -1 ? Optional.empty() : current.getOptional(i + 1);
+    }
+
+    @Override
+    public Optional<LayeredWorld> getLayerBelow(LayeredWorld layer) {
+        LayerIndex current = index;
+        int i = current.indexOf(layer);
+        return i == -1 ? Optional.empty() : current.getOptional(i - 1);
+    }
+
+    @Override
+    public CompletableFuture<World> loadLayer(LayeredWorld layer) {
+        World world = layer.getWorld();
+        if (world != null) {
+            return CompletableFuture.completedFuture(world);
+        }
+        if (worldLoader == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Layer " + layer.getName() + " is not ready"));
+        }
+        return worldLoader.ensureLoaded(layer);
+    }
+
+    @Override
+    public CompletableFuture<BlockVolume> readBlocks(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return blockReader.read(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public List<Player> getPlayersNear(double x, double globalY, double z, double radius) {
+        return players.getNear(x, globalY, z, radius);
+    }
+
+    @Override
+    public List<Player> getPlayersWithin(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return players.getWithin(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    @Override
+    public double toLocalY(double globalY) {
+        return index.toLocalY(globalY);
+    }
+
+    @Override
+    public double toGlobalY(int layerIndex, double localY) {
+        return index.toGlobalY(layerIndex, localY);
+    }
+
+    @Override
+    public void toLocal(double[] globalYs, int offset, int length, int[] layerIndices, double[] localYs, int outOffset) {
+        index.toLocal(globalYs, offset, length, layerIndices, localYs, outOffset);
+    }
+
+    @Override
+    public void toLocal(int[] globalYs, int offset, int length, int[] layerIndices, int[] localYs, int outOffset) {
+        index.toLocal(globalYs, offset, length, layerIndices, localYs, outOffset);
+    }
+
+    @Override
+    public void toGlobal(int[] layerIndices, double[] localYs, int offset, int length, double[] globalYs, int outOffset) {
+        index.toGlobal(layerIndices, localYs, offset, length, globalYs, outOffset);
+    }
+
+    @Override
+    public void toGlobal(int[] layerIndices, int[] localYs, int offset, int length, int[] globalYs, int outOffset) {
+        index.toGlobal(layerIndices, localYs, offset, length, globalYs, outOffset);
+    }
+
+    @Override
+    public void toLocalPacked(int[] globalYs, int offset, int length, long[] packed, int outOffset) {
+        index.toLocalPacked(globalYs, offset, length, packed, outOffset);
+    }
+
+    @Override
+    public void toGlobalPacked(long[] packed, int offset, int length, int[] globalYs, int outOffset) {
+        index.toGlobalPacked(packed, offset, length, globalYs, outOffset);
+    }
+
+    @Override
+    public int getGlobalMin() {
+        return index.getGlobalMin();
+    }
+
+    @Override
+    public int getGlobalMax() {
+        return index.getGlobalMax();
     }
 
     @Override
     public int getWorldHeight() {
-        return worldHeight;
+        return index.getWorldHeight();
     }
 
     @Override
     public int getBufferSize() {
-        return bufferSize;
+        return index.getBufferSize();
     }
 
+    /**
+     * Loads the layers from the configuration, if the datapack matches it.
+     * The new layers replace the current layers at once, layers that did not change are kept.
+     *
+     * @param configManager the configuration
+     * @param datapack      the datapack of the main world
+     */
     public void loadLayers(ConfigManager configManager, Datapack datapack) {
 
         int yMin = configManager.getGlobalMin();
@@ -71,34 +192,77 @@ public class SimpleLayerManager implements LayerManager {
             return;
         }
 
+        boolean lazy = configManager.isLazyLoadingEnabled();
         String worldBaseName = configManager.getWorldBaseName();
+        LayerIndex current = index;
+        List<LayeredWorld> layers = new ArrayList<>();
+        int ready = 0;
         for (int i = yMin; i < yMax; i += worldHeight) {
-
+            // Register every layer, the worlds that are not loaded yet are attached when they load.
+            // Unchanged layers keep the same instance on a reload, so references held elsewhere stay valid.
             String worldName = worldBaseName + "_" + i + "_" + (i + worldHeight);
-            World world = plugin.getServer().getWorld(worldName);
-
-            if (world == null) {
-                plugin.getLogger().warning("Failed to load world " + worldName + ", unable to load layers.");
-                layers.clear();
-                return;
+            SimpleLayeredWorld layer = current.getByName(worldName) instanceof SimpleLayeredWorld existing
+                    && existing.getMinY() == i && existing.getMaxY() == i + worldHeight && existing.getBufferSize() == bufferSize
+                    ? existing
+                    : new SimpleLayeredWorld(worldName, i, i + worldHeight, bufferSize);
+            layer.setWorld(plugin.getServer().getWorld(worldName));
+            if (layer.isReady()) {
+                ready++;
             }
-
-            LayeredWorld layeredWorld = new SimpleLayeredWorld(world, i, i + worldHeight, bufferSize);
-            addLayer(layeredWorld);
+            layers.add(layer);
+        }
+        this.index = new LayerIndex(yMin, worldHeight, bufferSize, layers);
+        if (lazy && worldLoader != null) {
+            worldLoader.onLayersLoaded();
         }
-        plugin.getLogger().info("Loaded " + layers.size() + " layers.");
+        plugin.getLogger().info("Loaded " + layers.size() + " layers, " + ready + " ready.");
     }
 
-    private void addLayer(LayeredWorld layer) {
-        if (layer == null) {
-            throw new IllegalArgumentException("layer cannot be null");
-        }
-        if (layer.getBufferSize() != this.bufferSize) {
-            throw new IllegalArgumentException("layer buffer size must match configured bufferSize");
+    /**
+     * The index of the players by global position, updated from the move path.
+     */
+    public PlayerIndex getPlayerIndex() {
+        return players;
+    }
+
+    /**
+     * Sets the loader used to load layer worlds on demand, or {@code null} if all layers are always loaded.
+     */
+    public void setWorldLoader(LayerWorldLoader worldLoader) {
+        this.worldLoader = worldLoader;
+    }
+
+    /**
+     * Attaches a loaded world to its layer, if the world belongs to a layer, making the layer ready.
+     *
+     * @param world the loaded world
+     */
+    public void attachWorld(World world) {
+        if (index.getByName(world.getName()) instanceof SimpleLayeredWorld layer) {
+            layer.setWorld(world);
+            plugin.getLogger().fine("Layer " + layer.getName() + " is ready.");
         }
-        if (layer.getMaxY() - layer.getMinY() != this.worldHeight) {
-            throw new IllegalArgumentException("layer height must match configured worldHeight");
+    }
+
+    /**
+     * Detaches an unloaded world from its layer, if the world belongs to a layer.
+     *
+     * @param world the unloaded world
+     */
+    public void detachWorld(World world) {
+        if (index.getByName(world.getName()) instanceof SimpleLayeredWorld layer) {
+            layer.setWorld(null);
         }
-        this.layers.put(layer.getName(), layer);
+    }
+
+    /**
+     * Replaces the layers of this manager.
+     *
+     * @param globalMin the minimum y-level of the lowest layer
+     * @param layers    the layers in ascending order, stacked contiguously from {@code globalMin}
+     */
+    public void setLayers(int globalMin, List<LayeredWorld> layers) {
+        LayerIndex current = index;
+        this.index = new LayerIndex(globalMin, current.getWorldHeight(), current.getBufferSize(), layers);
     }
 }
@@ -5,17 +5,24 @@ import org.bukkit.World;
 
 /**
  * Layered world backed by a Bukkit world.
+ * <p>
+ * The layer is identified by its world name, the world itself is attached while it is loaded
+ * so that an unloaded world is not kept in memory by the layer.
  */
 public class SimpleLayeredWorld implements LayeredWorld {
-    private final World world;
+    private volatile World world;
     private final String name;
     private final int minY;
     private final int maxY;
     private final int bufferSize;
 
     public SimpleLayeredWorld(World world, int minY, int maxY, int bufferSize) {
+        this(world.getName(), minY, maxY, bufferSize);
         this.world = world;
-        this.name = world.getName();
+    }
+
+    public SimpleLayeredWorld(String name, int minY, int maxY, int bufferSize) {
+        this.name = name;
         this.minY = minY;
         this.maxY = maxY;
         this.bufferSize = bufferSize;
@@ -26,6 +33,13 @@ public class SimpleLayeredWorld implements LayeredWorld {
         return world;
     }
 
+    /**
+     * Attaches the loaded world, or detaches it when {@code null}.
+     */
+    void setWorld(World world) {
+        this.world = world;
+    }
+
     @Override
     public String getName() {
         return name;
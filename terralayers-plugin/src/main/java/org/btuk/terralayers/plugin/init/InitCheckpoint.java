@@ -0,0 +1,110 @@
+package org.btuk.terralayers.plugin.init;
+
+import org.btuk.terralayers.plugin.io.AtomicFiles;
+import org.btuk.terralayers.plugin.io.IoExecutor;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * Records the layer worlds created by {@code /terralayers init}, so an interrupted init can be resumed.
+ * <p>
+ * The checkpoint stores the layer settings it was created with, a checkpoint for different settings is discarded.
+ * The checkpoint is changed on the main thread and written on the I/O executor, one write after the other.
+ */
+public final class InitCheckpoint {
+
+    private static final String SETTINGS_KEY = "settings";
+    private static final String COMPLETED_KEY = "completed";
+
+    private final Logger logger;
+    private final File file;
+    private final String settings;
+    private final IoExecutor io;
+    private final Set<String> completed = new LinkedHashSet<>();
+
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    private InitCheckpoint(Logger logger, File file, String settings, IoExecutor io) {
+        this.logger = logger;
+        this.file = file;
+        this.settings = settings;
+        this.io = io;
+    }
+
+    /**
+     * Loads the checkpoint from disk, or creates an empty one if there is no checkpoint for these settings.
+     * Reads the file, so should be called on the I/O executor.
+     *
+     * @param logger   logger
+     * @param file     the checkpoint file
+     * @param settings description of the layer settings, the checkpoint is only used if they match
+     * @param io       the executor writing the checkpoint
+     */
+    public static InitCheckpoint load(Logger logger, File file, String settings, IoExecutor io) {
+        InitCheckpoint checkpoint = new InitCheckpoint(logger, file, settings, io);
+        if (file.exists()) {
+            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+            if (settings.equals(yaml.getString(SETTINGS_KEY))) {
+                checkpoint.completed.addAll(yaml.getStringList(COMPLETED_KEY));
+            } else {
+                logger.warning("Ignoring init checkpoint for different layer settings: " + yaml.getString(SETTINGS_KEY));
+            }
+        }
+        return checkpoint;
+    }
+
+    public boolean isCompleted(String worldName) {
+        return completed.contains(worldName);
+    }
+
+    public int getCompletedCount() {
+        return completed.size();
+    }
+
+    /**
+     * Marks a world as created and saves the checkpoint.
+     *
+     * @param worldName the world name
+     */
+    public void markCompleted(String worldName) {
+        if (completed.add(worldName)) {
+            save();
+        }
+    }
+
+    /**
+     * Removes the checkpoint, once the init has completed.
+     */
+    public void delete() {
+        completed.clear();
+        write(() -> Files.deleteIfExists(file.toPath()));
+    }
+
+    private void save() {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set(SETTINGS_KEY, settings);
+        yaml.set(COMPLETED_KEY, completed.stream().toList());
+        String content = yaml.saveToString();
+        write(() -> AtomicFiles.writeString(file.toPath(), content));
+    }
+
+    /**
+     * Runs a write after the previous write has finished, so the last change always ends up on disk.
+     */
+    private void write(IoExecutor.IoTask<?> task) {
+        lastWrite = lastWrite.thenRunAsync(() -> {
+            try {
+                task.call();
+            } catch (IOException e) {
+                logger.severe("Failed to save init checkpoint: " + e.getMessage());
+            }
+        }, io);
+    }
+}
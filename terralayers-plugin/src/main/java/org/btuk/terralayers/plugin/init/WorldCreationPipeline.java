@@ -0,0 +1,158 @@
+package org.btuk.terralayers.plugin.init;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.btuk.terralayers.plugin.multiverse.WorldManager;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+import org.mvplugins.multiverse.core.world.LoadedMultiverseWorld;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Creates the layer worlds for {@code /terralayers init}, as a worker of the {@link TerraLayersScheduler}.
+ * <p>
+ * Every tick, new worlds are created while the scheduler has time left, up to the maximum number of
+ * creations per tick. When the server is behind, the scheduler holds back the creations until it has caught up.
+ * Created worlds are recorded in the {@link InitCheckpoint}, worlds that already exist are reused,
+ * so an interrupted init continues where it stopped.
+ */
+public final class WorldCreationPipeline {
+
+    private final Plugin plugin;
+    private final WorldManager worldManager;
+    private final TerraLayersScheduler scheduler;
+    private final InitCheckpoint checkpoint;
+    private final CommandSender sender;
+    private final List<WorldSpec> worlds;
+    private final int maxConcurrent;
+
+    private final LoadedMultiverseWorld[] created;
+    private final CompletableFuture<List<LoadedMultiverseWorld>> result = new CompletableFuture<>();
+
+    private int next;
+    private int inFlight;
+    private int completed;
+    private boolean cancelled;
+    private Throwable failure;
+
+    /**
+     * A world to create.
+     *
+     * @param name      the world name
+     * @param generator the generator of the world
+     */
+    public record WorldSpec(String name, String generator) {
+    }
+
+    public WorldCreationPipeline(Plugin plugin, WorldManager worldManager, TerraLayersScheduler scheduler, InitCheckpoint checkpoint,
+                                 CommandSender sender, List<WorldSpec> worlds, int maxConcurrent) {
+        this.plugin = plugin;
+        this.worldManager = worldManager;
+        this.scheduler = scheduler;
+        this.checkpoint = checkpoint;
+        this.sender = sender;
+        this.worlds = List.copyOf(worlds);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.created = new LoadedMultiverseWorld[worlds.size()];
+    }
+
+    /**
+     * Starts creating the worlds.
+     *
+     * @return a future completing with the worlds in the order they were given, or with a
+     * {@link CancellationException} if the pipeline was cancelled
+     */
+    public CompletableFuture<List<LoadedMultiverseWorld>> start() {
+        if (checkpoint.getCompletedCount() > 0) {
+            sender.sendMessage(Component.text("Resuming initialisation, " + checkpoint.getCompletedCount() + " of " + worlds.size()
+                    + " worlds were already created.", NamedTextColor.YELLOW));
+        }
+        scheduler.addWorker(TerraLayersScheduler.Priority.NORMAL, this::run);
+        return result;
+    }
+
+    /**
+     * Stops creating new worlds, worlds that are being created are finished first.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isRunning() {
+        return !result.isDone();
+    }
+
+    public InitCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    private boolean run(long deadlineNanos) {
+        if (failure != null || cancelled) {
+            if (inFlight == 0) {
+                result.completeExceptionally(failure != null ? failure : new CancellationException("World creation cancelled"));
+                return false;
+            }
+            return true;
+        }
+        if (completed == worlds.size()) {
+            result.complete(Arrays.asList(created));
+            return false;
+        }
+
+        // World creation runs on the main thread, keep creating worlds while the scheduler has time left.
+        int started = 0;
+        while (started < maxConcurrent && inFlight < maxConcurrent && next < worlds.size() && failure == null
+                && System.nanoTime() < deadlineNanos) {
+            startCreation(next++);
+            started++;
+        }
+        return true;
+    }
+
+    private void startCreation(int index) {
+        WorldSpec spec = worlds.get(index);
+        boolean exists = worldManager.hasWorld(spec.name());
+        if (exists && !checkpoint.isCompleted(spec.name())) {
+            plugin.getLogger().warning("World " + spec.name() + " already exists but was not created by this init, reusing it.");
+        }
+        LoadedMultiverseWorld loaded = worldManager.getLoadedWorld(spec.name()).orElse(null);
+        if (loaded != null) {
+            onCreated(index, loaded, true);
+            return;
+        }
+
+        inFlight++;
+        // A world known to Multiverse but not loaded, after a crash or with lazy loading, is loaded instead of created.
+        CompletableFuture<LoadedMultiverseWorld> future = exists
+                ? worldManager.loadWorld(spec.name()).thenApply(world -> worldManager.getLoadedWorld(spec.name())
+                        .orElseThrow(() -> new IllegalStateException("World " + spec.name() + " is not loaded")))
+                : worldManager.createWorld(sender, spec.name(), spec.generator());
+        future.whenComplete((world, error) -> {
+            inFlight--;
+            if (error != null) {
+                String action = exists ? "load" : "create";
+                plugin.getLogger().severe("Failed to " + action + " world " + spec.name() + ": " + error.getMessage());
+                sender.sendMessage(Component.text("Failed to " + action + " world " + spec.name() + ", stopping initialisation.", NamedTextColor.RED));
+                if (failure == null) {
+                    failure = error;
+                }
+                return;
+            }
+            onCreated(index, world, exists);
+        });
+    }
+
+    private void onCreated(int index, LoadedMultiverseWorld world, boolean existed) {
+        created[index] = world;
+        completed++;
+        checkpoint.markCompleted(world.getName());
+        int percent = completed * 100 / worlds.size();
+        String progress = completed + "/" + worlds.size() + " (" + percent + "%)";
+        sender.sendMessage(Component.text(existed ? "Reusing existing world " + world.getName() + ", " + progress : "Progress: " + progress, NamedTextColor.GRAY));
+    }
+}
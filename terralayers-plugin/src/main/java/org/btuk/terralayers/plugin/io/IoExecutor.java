@@ -0,0 +1,71 @@
+package org.btuk.terralayers.plugin.io;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Runs the file I/O of TerraLayers, each task on its own virtual thread, so slow storage never blocks a tick.
+ * <p>
+ * Tasks are not ordered, work that must happen in order should be chained on the returned futures.
+ * The results are handed back to the main thread through the {@link org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler}.
+ */
+public final class IoExecutor implements Executor {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10L;
+
+    private final Logger logger;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("TerraLayers-IO-", 0).factory());
+
+    /**
+     * A task doing file I/O.
+     */
+    @FunctionalInterface
+    public interface IoTask<T> {
+        T call() throws IOException;
+    }
+
+    public IoExecutor(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    /**
+     * Runs a task on an I/O thread.
+     *
+     * @param task the task
+     * @return a future completing with the result of the task, or exceptionally if it failed
+     */
+    public <T> CompletableFuture<T> supply(IoTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Waits for the running tasks, so pending writes are not lost when the plugin is disabled.
+     */
+    public void stop() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("File I/O did not finish within " + SHUTDOWN_TIMEOUT_SECONDS + " seconds.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.btuk.terralayers.plugin.listeners;
+
+import org.btuk.terralayers.plugin.mirror.BufferMirror;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockMultiPlaceEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.player.PlayerBucketEmptyEvent;
+import org.bukkit.event.player.PlayerBucketFillEvent;
+import org.bukkit.event.world.StructureGrowEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.List;
+
+/**
+ * Listener that records block changes for the {@link BufferMirror}.
+ * <p>
+ * Only the changed positions are recorded, the new blocks are read when the changes are applied,
+ * so the events are handled after all other plugins at MONITOR priority.
+ */
+public final class BufferMirrorListener implements TerraLayersListener {
+
+    private final JavaPlugin plugin;
+    private final BufferMirror mirror;
+
+    public BufferMirrorListener(JavaPlugin plugin, BufferMirror mirror) {
+        this.plugin = plugin;
+        this.mirror = mirror;
+        this.register();
+    }
+
+    private void register() {
+        this.plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    public void unregister() {
+        BlockPlaceEvent.getHandlerList().unregister(this);
+        BlockBreakEvent.getHandlerList().unregister(this);
+        BlockBurnEvent.getHandlerList().unregister(this);
+        BlockExplodeEvent.getHandlerList().unregister(this);
+        EntityExplodeEvent.getHandlerList().unregister(this);
+        BlockFadeEvent.getHandlerList().unregister(this);
+        BlockFormEvent.getHandlerList().unregister(this);
+        BlockGrowEvent.getHandlerList().unregister(this);
+        BlockFromToEvent.getHandlerList().unregister(this);
+        LeavesDecayEvent.getHandlerList().unregister(this);
+        BlockPistonExtendEvent.getHandlerList().unregister(this);
+        BlockPistonRetractEvent.getHandlerList().unregister(this);
+        SignChangeEvent.getHandlerList().unregister(this);
+        EntityChangeBlockEvent.getHandlerList().unregister(this);
+        PlayerBucketEmptyEvent.getHandlerList().unregister(this);
+        PlayerBucketFillEvent.getHandlerList().unregister(this);
+        StructureGrowEvent.getHandlerList().unregister(this);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockPlace(BlockPlaceEvent event) {
+        if (event instanceof BlockMultiPlaceEvent multiPlace) {
+            for (BlockState state : multiPlace.getReplacedBlockStates()) {
+                mirror.record(state.getBlock());
+            }
+            return;
+        }
+        mirror.record(event.getBlockPlaced());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockBreak(BlockBreakEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockBurn(BlockBurnEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockExplode(BlockExplodeEvent event) {
+        mirror.recordAll(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onEntityExplode(EntityExplodeEvent event) {
+        mirror.recordAll(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockFade(BlockFadeEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockForm(BlockFormEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockGrow(BlockGrowEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBlockFromTo(BlockFromToEvent event) {
+        mirror.record(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onLeavesDecay(LeavesDecayEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onPistonExtend(BlockPistonExtendEvent event) {
+        recordPiston(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onPistonRetract(BlockPistonRetractEvent event) {
+        recordPiston(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onSignChange(SignChangeEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBucketEmpty(PlayerBucketEmptyEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onBucketFill(PlayerBucketFillEvent event) {
+        mirror.record(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onStructureGrow(StructureGrowEvent event) {
+        for (BlockState state : event.getBlocks()) {
+            mirror.record(state.getBlock());
+        }
+    }
+
+    private void recordPiston(Block piston, List<Block> moved, BlockFace direction) {
+        // Record both sides, which one a block moves to depends on whether the piston extends or retracts.
+        mirror.record(piston);
+        mirror.record(piston.getRelative(direction));
+        mirror.record(piston.getRelative(direction.getOppositeFace()));
+        for (Block block : moved) {
+            mirror.record(block);
+            mirror.record(block.getRelative(direction));
+            mirror.record(block.getRelative(direction.getOppositeFace()));
+        }
+    }
+}
@@ -1,32 +1,28 @@
 package org.btuk.terralayers.plugin.listeners;
 
-import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.format.NamedTextColor;
-import net.kyori.adventure.text.format.TextDecoration;
-import org.btuk.terralayers.api.LayerManager;
-import org.btuk.terralayers.api.LayeredWorld;
-import org.btuk.terralayers.plugin.config.ConfigManager;
+import org.btuk.terralayers.plugin.hud.GlobalYHud;
+import org.btuk.terralayers.plugin.transition.LayerSwitcher;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import java.util.Optional;
-
 /**
  * Listener that ensures player movement and teleports end up in the correct layer.
  */
 public final class SwitchLayerListener implements TerraLayersListener {
 
     private final JavaPlugin plugin;
-    private final LayerManager layerManager;
-    private final ConfigManager configManager;
+    private final LayerSwitcher layerSwitcher;
+    private final GlobalYHud hud;
 
-    public SwitchLayerListener(JavaPlugin plugin, LayerManager layerManager, ConfigManager configManager) {
+    public SwitchLayerListener(JavaPlugin plugin, LayerSwitcher layerSwitcher, GlobalYHud hud) {
         this.plugin = plugin;
-        this.layerManager = layerManager;
-        this.configManager = configManager;
+        this.layerSwitcher = layerSwitcher;
+        this.hud = hud;
         this.register();
     }
 
@@ -37,43 +33,29 @@ public final class SwitchLayerListener implements TerraLayersListener {
     public void unregister() {
         PlayerMoveEvent.getHandlerList().unregister(this);
         PlayerTeleportEvent.getHandlerList().unregister(this);
+        PlayerQuitEvent.getHandlerList().unregister(this);
+        PlayerJoinEvent.getHandlerList().unregister(this);
+        layerSwitcher.clear();
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     void onPlayerMove(PlayerMoveEvent event) {
-        switchLayer(event);
+        layerSwitcher.handleMove(event);
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     void onPlayerTeleport(PlayerTeleportEvent event) {
-        switchLayer(event);
+        layerSwitcher.handleMove(event);
     }
 
-    private void switchLayer(PlayerMoveEvent event) {
-        // Get the new layered world.
-        LayeredWorld currentLayer = layerManager.getLayerForWorld(event.getTo().getWorld());
-
-        if (currentLayer == null) {
-            return;
-        }
+    @EventHandler
+    void onPlayerJoin(PlayerJoinEvent event) {
+        layerSwitcher.onJoin(event.getPlayer());
+    }
 
-        // If the y-level of the new layer does not fit in the world, teleport them to the correct layer.
-        // Correct the y-level to take the offset of the new world into account.
-        double actualY = event.getTo().getY() + currentLayer.getMinY();
-        if (currentLayer.getTeleportMinY() > actualY || currentLayer.getTeleportMaxY() < actualY) {
-            if (actualY < configManager.getGlobalMin() || actualY >= configManager.getGlobalMax()) {
-                event.getPlayer().sendMessage(Component.text("You cannot move outside of the configured world height range!", NamedTextColor.RED));
-                event.setCancelled(true);
-                return;
-            }
-            layerManager.getLayerForGlobalY(actualY).ifPresent(newLayer -> {
-                plugin.getLogger().info("Player " + event.getPlayer().getName() + " moved to a layer outside of their current world, teleporting them to the correct layer.");
-                double y = actualY - newLayer.getMinY();
-                event.getTo().setWorld(newLayer.getWorld());
-                event.getTo().setY(y);
-                plugin.getLogger().info("Player " + event.getPlayer().getName() + " teleported to layer " + newLayer.getName() + " at y=" + y);
-            });
-        }
-        event.getPlayer().sendActionBar(Component.text("Y: " + (int) actualY, NamedTextColor.GOLD, TextDecoration.BOLD));
+    @EventHandler
+    void onPlayerQuit(PlayerQuitEvent event) {
+        layerSwitcher.forget(event.getPlayer());
+        hud.remove(event.getPlayer());
     }
 }
@@ -1,12 +1,15 @@
 package org.btuk.terralayers.plugin.listeners;
 
-import org.btuk.terralayers.datapack.Datapack;
-import org.btuk.terralayers.datapack.DatapackManager;
 import org.btuk.terralayers.plugin.TerraLayersPlugin;
 import org.btuk.terralayers.plugin.config.ConfigManager;
+import org.btuk.terralayers.plugin.impl.ChunkTickets;
 import org.btuk.terralayers.plugin.impl.SimpleLayerManager;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.world.WorldInitEvent;
 import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -16,13 +19,19 @@ public class WorldLoadListener implements TerraLayersListener {
     private final TerraLayersPlugin plugin;
     private final SimpleLayerManager layerManager;
     private final ConfigManager configManager;
+    private final TerraLayersMetrics metrics;
+    private final ChunkTickets tickets;
 
     private final Set<String> worlds = new HashSet<>();
+    private volatile boolean loadingLayers;
 
-    public WorldLoadListener(TerraLayersPlugin plugin, SimpleLayerManager layerManager, ConfigManager configManager) {
+    public WorldLoadListener(TerraLayersPlugin plugin, SimpleLayerManager layerManager, ConfigManager configManager, TerraLayersMetrics metrics,
+                             ChunkTickets tickets) {
         this.plugin = plugin;
         this.layerManager = layerManager;
         this.configManager = configManager;
+        this.metrics = metrics;
+        this.tickets = tickets;
 
         // Add all expected worlds to the set.
         int minY = configManager.getGlobalMin();
@@ -41,22 +50,49 @@ public class WorldLoadListener implements TerraLayersListener {
     }
 
     public void unregister() {
+        WorldInitEvent.getHandlerList().unregister(this);
         WorldLoadEvent.getHandlerList().unregister(this);
+        WorldUnloadEvent.getHandlerList().unregister(this);
+    }
+
+    @EventHandler
+    public void onWorldInit(WorldInitEvent event) {
+        metrics.worldInitialised(event.getWorld().getName());
     }
 
     @EventHandler
     public void onWorldLoad(WorldLoadEvent event) {
+        metrics.worldLoaded(event.getWorld().getName());
+        layerManager.attachWorld(event.getWorld());
+
         // Remove the world from the set.
-        worlds.remove(event.getWorld().getName());
-        if (worlds.isEmpty()) {
-            try {
-                DatapackManager datapackManager = new DatapackManager(plugin.getLogger(), -configManager.getBufferSize(), configManager.getWorldHeight() + 2 * configManager.getBufferSize());
-                Datapack datapack = datapackManager.loadDatapack(plugin.getServer().getRespawnWorld().getWorldPath());
-                layerManager.loadLayers(configManager, datapack);
-            } catch (Exception e) {
-                plugin.getLogger().severe("Failed to load layers on world load: " + e.getMessage());
-            }
+        if (worlds.remove(event.getWorld().getName()) && worlds.isEmpty() && layerManager.getLayerCount() > 0) {
+            plugin.getLogger().info("All layers are ready.");
+        }
+        if (layerManager.getLayerCount() > 0 || loadingLayers || plugin.getServer().getRespawnWorld() == null) {
+            return;
         }
+
+        // Register the layers as soon as the datapack can be read, each layer becomes ready when its world loads.
+        // The datapack is read on the I/O executor, the layers are loaded as soon as the scheduler has time.
+        loadingLayers = true;
+        plugin.loadLayers().whenComplete((result, error) -> {
+            loadingLayers = false;
+            if (error != null) {
+                plugin.getLogger().severe("Failed to load layers on world load: " + error.getMessage());
+            }
+        });
+    }
+
+    @EventHandler
+    public void onWorldUnload(WorldUnloadEvent event) {
+        layerManager.detachWorld(event.getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnloaded(WorldUnloadEvent event) {
+        // Only once the unload can no longer be cancelled, otherwise the tickets would stay without holders.
+        tickets.clear(event.getWorld().getName());
     }
 }
 
@@ -0,0 +1,184 @@
+package org.btuk.terralayers.plugin.metrics;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.metrics.jfr.InitPhaseEvent;
+import org.btuk.terralayers.plugin.metrics.jfr.LayerTransitionEvent;
+import org.btuk.terralayers.plugin.metrics.jfr.WorldLoadDurationEvent;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime counters and latency histograms of TerraLayers.
+ * <p>
+ * All methods are thread-safe and lock-free. Events that are worth correlating with GC and tick data
+ * are also emitted as JFR events, which cost nothing when no recording is running.
+ */
+public final class TerraLayersMetrics {
+
+    private final LatencyHistogram moveHandler = new LatencyHistogram();
+    private final LatencyHistogram worldLoad = new LatencyHistogram();
+    private final LongAdder cancelledMoves = new LongAdder();
+    private final LongAdder mirroredBlocks = new LongAdder();
+    private final LatencyHistogram schedulerLag = new LatencyHistogram();
+    private final LongAdder schedulerDeferredTicks = new LongAdder();
+
+    private final Map<String, LongAdder> transitions = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> initPhases = new ConcurrentHashMap<>();
+    private final Map<String, Long> worldInitTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Records the time spent handling a single move event.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void recordMove(long nanos) {
+        moveHandler.record(nanos);
+    }
+
+    /**
+     * Records a move that was cancelled because it was outside the configured height range.
+     */
+    public void recordCancelledMove() {
+        cancelledMoves.increment();
+    }
+
+    /**
+     * Records blocks copied into the buffer of an adjacent layer.
+     *
+     * @param blocks the number of blocks
+     */
+    public void recordMirroredBlocks(long blocks) {
+        mirroredBlocks.add(blocks);
+    }
+
+    /**
+     * Records the time a scheduled task waited before it ran.
+     *
+     * @param nanos the wait in nanoseconds
+     */
+    public void recordSchedulerLag(long nanos) {
+        schedulerLag.record(nanos);
+    }
+
+    /**
+     * Records a tick in which scheduled work was held back because the server was behind.
+     */
+    public void recordSchedulerDeferredTick() {
+        schedulerDeferredTicks.increment();
+    }
+
+    /**
+     * Records a player moving from one layer to another.
+     *
+     * @param player the player
+     * @param from   the layer the player left
+     * @param to     the layer the player entered
+     */
+    public void recordTransition(Player player, LayeredWorld from, LayeredWorld to) {
+        transitions.computeIfAbsent(from.getName() + " -> " + to.getName(), k -> new LongAdder()).increment();
+
+        LayerTransitionEvent event = new LayerTransitionEvent();
+        if (event.shouldCommit()) {
+            event.player = player.getName();
+            event.fromLayer = from.getName();
+            event.toLayer = to.getName();
+            event.commit();
+        }
+    }
+
+    /**
+     * Marks the start of a world load, the load time is recorded by {@link #worldLoaded(String)}.
+     *
+     * @param world the world name
+     */
+    public void worldInitialised(String world) {
+        worldInitTimes.put(world, System.nanoTime());
+    }
+
+    /**
+     * Marks the end of a world load.
+     *
+     * @param world the world name
+     */
+    public void worldLoaded(String world) {
+        Long start = worldInitTimes.remove(world);
+        if (start == null) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        worldLoad.record(duration);
+
+        WorldLoadDurationEvent event = new WorldLoadDurationEvent();
+        if (event.shouldCommit()) {
+            event.world = world;
+            event.loadDuration = duration;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the duration of a phase of the layer initialisation.
+     *
+     * @param phase the phase name
+     * @param nanos the duration in nanoseconds
+     */
+    public void recordInitPhase(String phase, long nanos) {
+        initPhases.computeIfAbsent(phase, k -> new LatencyHistogram()).record(nanos);
+
+        InitPhaseEvent event = new InitPhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.phaseDuration = nanos;
+            event.commit();
+        }
+    }
+
+    public LatencyHistogram getMoveHandler() {
+        return moveHandler;
+    }
+
+    public LatencyHistogram getWorldLoad() {
+        return worldLoad;
+    }
+
+    public long getCancelledMoves() {
+        return cancelledMoves.sum();
+    }
+
+    public long getMirroredBlocks() {
+        return mirroredBlocks.sum();
+    }
+
+    public LatencyHistogram getSchedulerLag() {
+        return schedulerLag;
+    }
+
+    public long getSchedulerDeferredTicks() {
+        return schedulerDeferredTicks.sum();
+    }
+
+    public Map<String, LongAdder> getTransitions() {
+        return transitions;
+    }
+
+    public Map<String, LatencyHistogram> getInitPhases() {
+        return initPhases;
+    }
+
+    /**
+     * Clears all counters and histograms.
+     */
+    public void reset() {
+        moveHandler.reset();
+        worldLoad.reset();
+        cancelledMoves.reset();
+        mirroredBlocks.reset();
+        schedulerLag.reset();
+        schedulerDeferredTicks.reset();
+        transitions.clear();
+        initPhases.clear();
+    }
+}
@@ -0,0 +1,26 @@
+package org.btuk.terralayers.plugin.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for a phase of {@code /terralayers init}.
+ */
+@Name("org.btuk.terralayers.InitPhase")
+@Label("Init Phase")
+@Category("TerraLayers")
+@Description("A completed phase of the layer initialisation")
+@StackTrace(false)
+public class InitPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Phase Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long phaseDuration;
+}
@@ -0,0 +1,27 @@
+package org.btuk.terralayers.plugin.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a player moving from one layer to another.
+ */
+@Name("org.btuk.terralayers.LayerTransition")
+@Label("Layer Transition")
+@Category("TerraLayers")
+@Description("A player crossed a teleport threshold and was moved to another layer")
+@StackTrace(false)
+public class LayerTransitionEvent extends jdk.jfr.Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("From Layer")
+    public String fromLayer;
+
+    @Label("To Layer")
+    public String toLayer;
+}
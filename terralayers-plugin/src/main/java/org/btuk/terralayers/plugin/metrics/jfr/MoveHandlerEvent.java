@@ -0,0 +1,24 @@
+package org.btuk.terralayers.plugin.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a move event that was not handled by the fast path of the layer switch listener.
+ */
+@Name("org.btuk.terralayers.MoveHandler")
+@Label("Move Handler")
+@Category("TerraLayers")
+@Description("Handling of a player move that changed block y-level or world")
+@StackTrace(false)
+public class MoveHandlerEvent extends jdk.jfr.Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("World")
+    public String world;
+}
@@ -0,0 +1,26 @@
+package org.btuk.terralayers.plugin.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for the time it took a layer world to load.
+ */
+@Name("org.btuk.terralayers.WorldLoad")
+@Label("Layer World Load")
+@Category("TerraLayers")
+@Description("Time between initialisation and load of a layer world")
+@StackTrace(false)
+public class WorldLoadDurationEvent extends jdk.jfr.Event {
+
+    @Label("World")
+    public String world;
+
+    @Label("Load Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long loadDuration;
+}
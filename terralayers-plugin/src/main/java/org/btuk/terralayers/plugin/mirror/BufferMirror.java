@@ -0,0 +1,258 @@
+package org.btuk.terralayers.plugin.mirror;
+
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.TileState;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps the buffers of adjacent layers in sync.
+ * <p>
+ * Block changes inside the part of a layer that is also present in an adjacent layer are recorded per chunk section.
+ * Changes to the same section are coalesced until the section is applied, which happens at the end of the tick
+ * at the earliest. Sections are applied in the order they were first changed by a worker of the
+ * {@link TerraLayersScheduler}, for at most the configured time per tick, so large changes are spread over multiple ticks. The block is read from the source world when it is applied,
+ * so the neighbouring layer gets the final state of the block, not every intermediate change.
+ */
+public final class BufferMirror {
+
+    /**
+     * Times a section is retried while waiting for its worlds or chunks to load.
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final Plugin plugin;
+    private final LayerManager layerManager;
+    private final TerraLayersMetrics metrics;
+    private final TerraLayersScheduler scheduler;
+    private final TerraLayersScheduler.Worker worker = this::applyPending;
+
+    private final Map<SectionKey, SectionChange> pending = new HashMap<>();
+    private final ArrayDeque<SectionChange> queue = new ArrayDeque<>();
+
+    private boolean enabled;
+    private long budgetNanos;
+
+    private record SectionKey(String world, int x, int y, int z) {
+    }
+
+    private static final class SectionChange {
+        private final SectionKey key;
+        private final LayeredWorld source;
+        private final BitSet blocks = new BitSet(4096);
+        private int attempts;
+
+        private SectionChange(SectionKey key, LayeredWorld source) {
+            this.key = key;
+            this.source = source;
+        }
+    }
+
+    private record Target(World world, int shift) {
+    }
+
+    public BufferMirror(Plugin plugin, LayerManager layerManager, TerraLayersMetrics metrics, TerraLayersScheduler scheduler,
+                        boolean enabled, double budgetMillis) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        configure(enabled, budgetMillis);
+    }
+
+    /**
+     * Updates the settings.
+     *
+     * @param enabled      whether changes are mirrored
+     * @param budgetMillis the maximum time per tick spent applying changes
+     */
+    public void configure(boolean enabled, double budgetMillis) {
+        this.enabled = enabled;
+        this.budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+        if (!enabled) {
+            pending.clear();
+            queue.clear();
+        }
+    }
+
+    public void start() {
+        scheduler.addWorker(TerraLayersScheduler.Priority.NORMAL, worker);
+    }
+
+    public void stop() {
+        scheduler.removeWorker(worker);
+        pending.clear();
+        queue.clear();
+    }
+
+    /**
+     * The number of chunk sections waiting to be mirrored.
+     */
+    public int getQueuedSections() {
+        return queue.size();
+    }
+
+    /**
+     * Records a changed block, if it is in a part of the layer that is also present in an adjacent layer.
+     *
+     * @param block the block
+     */
+    public void record(Block block) {
+        if (!enabled) {
+            return;
+        }
+        LayeredWorld layer = layerManager.getLayerForWorld(block.getWorld());
+        if (layer == null || !isMirrored(layer, block.getY())) {
+            return;
+        }
+        SectionKey key = new SectionKey(block.getWorld().getName(), block.getX() >> 4, block.getY() >> 4, block.getZ() >> 4);
+        SectionChange change = pending.get(key);
+        if (change == null) {
+            change = new SectionChange(key, layer);
+            pending.put(key, change);
+            queue.add(change);
+        }
+        change.blocks.set((block.getY() & 15) << 8 | (block.getZ() & 15) << 4 | (block.getX() & 15));
+    }
+
+    /**
+     * Records multiple changed blocks.
+     *
+     * @param blocks the blocks
+     */
+    public void recordAll(List<Block> blocks) {
+        for (Block block : blocks) {
+            record(block);
+        }
+    }
+
+    private boolean isMirrored(LayeredWorld layer, int localY) {
+        int height = layerManager.getWorldHeight();
+        int buffer = layerManager.getBufferSize();
+        return localY < buffer && layerManager.getLayerBelow(layer).isPresent()
+                || localY >= height - buffer && layerManager.getLayerAbove(layer).isPresent();
+    }
+
+    private boolean applyPending(long deadlineNanos) {
+        if (queue.isEmpty()) {
+            return true;
+        }
+        long deadline = Math.min(deadlineNanos, System.nanoTime() + budgetNanos);
+        long applied = 0;
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            SectionChange change = queue.poll();
+            pending.remove(change.key);
+            applied += apply(change);
+        }
+        metrics.recordMirroredBlocks(applied);
+        return true;
+    }
+
+    /**
+     * Copies the changed blocks of a section to the adjacent layers.
+     *
+     * @return the number of blocks copied
+     */
+    private int apply(SectionChange change) {
+        World source = change.source.getWorld();
+        if (source == null) {
+            return 0;
+        }
+
+        int height = layerManager.getWorldHeight();
+        int buffer = layerManager.getBufferSize();
+        int baseY = change.key.y() << 4;
+
+        List<LayeredWorld> neighbours = new ArrayList<>(2);
+        if (baseY < buffer) {
+            layerManager.getLayerBelow(change.source).ifPresent(neighbours::add);
+        }
+        if (baseY >= height - buffer) {
+            layerManager.getLayerAbove(change.source).ifPresent(neighbours::add);
+        }
+        if (neighbours.isEmpty()) {
+            return 0;
+        }
+
+        // Wait for unloaded worlds and chunks instead of loading them synchronously.
+        List<CompletableFuture<?>> loading = new ArrayList<>();
+        List<Target> targets = new ArrayList<>(neighbours.size());
+        if (!source.isChunkLoaded(change.key.x(), change.key.z())) {
+            loading.add(source.getChunkAtAsync(change.key.x(), change.key.z()));
+        }
+        for (LayeredWorld neighbour : neighbours) {
+            World world = neighbour.getWorld();
+            if (world == null) {
+                loading.add(layerManager.loadLayer(neighbour));
+            } else if (!world.isChunkLoaded(change.key.x(), change.key.z())) {
+                loading.add(world.getChunkAtAsync(change.key.x(), change.key.z()));
+            } else {
+                targets.add(new Target(world, change.source.getMinY() - neighbour.getMinY()));
+            }
+        }
+        if (!loading.isEmpty()) {
+            retry(change, loading);
+            return 0;
+        }
+
+        int copied = 0;
+        int baseX = change.key.x() << 4;
+        int baseZ = change.key.z() << 4;
+        BitSet blocks = change.blocks;
+        for (int i = blocks.nextSetBit(0); i >= 0; i = blocks.nextSetBit(i + 1)) {
+            Block from = source.getBlockAt(baseX | (i & 15), baseY | (i >> 8), baseZ | (i >> 4 & 15));
+            BlockData data = from.getBlockData();
+            BlockState state = from.getState(false);
+            for (Target target : targets) {
+                Block to = target.world().getBlockAt(from.getX(), from.getY() + target.shift(), from.getZ());
+                if (state instanceof TileState) {
+                    // Block entities carry data such as sign text and inventories, which the block data does not.
+                    from.getState().copy(to.getLocation()).update(true, false);
+                } else if (!to.getBlockData().equals(data)) {
+                    to.setBlockData(data, false);
+                } else {
+                    continue;
+                }
+                copied++;
+            }
+        }
+        return copied;
+    }
+
+    private void retry(SectionChange change, List<CompletableFuture<?>> loading) {
+        if (++change.attempts > MAX_ATTEMPTS) {
+            plugin.getLogger().warning("Failed to mirror section " + change.key + ", the adjacent layer could not be loaded.");
+            return;
+        }
+        // The futures complete on the main thread.
+        CompletableFuture.allOf(loading.toArray(new CompletableFuture[0])).whenComplete((result, error) -> requeue(change));
+    }
+
+    private void requeue(SectionChange change) {
+        if (!enabled) {
+            return;
+        }
+        SectionChange existing = pending.get(change.key);
+        if (existing != null) {
+            existing.blocks.or(change.blocks);
+            existing.attempts = Math.max(existing.attempts, change.attempts);
+            return;
+        }
+        pending.put(change.key, change);
+        queue.add(change);
+    }
+}
@@ -2,17 +2,17 @@ package org.btuk.terralayers.plugin.multiverse;
 
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
-import org.bukkit.Bukkit;
 import org.bukkit.Difficulty;
 import org.bukkit.GameMode;
 import org.bukkit.World;
 import org.bukkit.command.CommandSender;
-import org.bukkit.plugin.java.JavaPlugin;
 import org.mvplugins.multiverse.core.MultiverseCoreApi;
 import org.mvplugins.multiverse.core.world.LoadedMultiverseWorld;
+import org.mvplugins.multiverse.core.world.MultiverseWorld;
 import org.mvplugins.multiverse.core.world.options.CreateWorldOptions;
 import org.mvplugins.multiverse.core.world.options.UnloadWorldOptions;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class WorldManager {
@@ -29,40 +29,98 @@ public class WorldManager {
         return this.coreApi;
     }
 
-    public CompletableFuture<LoadedMultiverseWorld> createWorld(JavaPlugin plugin, CommandSender sender, String name, String generator, long delayTicks) {
+    /**
+     * Creates a world, must be called on the main thread.
+     *
+     * @param sender    the sender to notify
+     * @param name      the world name
+     * @param generator the generator of the world
+     * @return a future completing with the created world
+     */
+    public CompletableFuture<LoadedMultiverseWorld> createWorld(CommandSender sender, String name, String generator) {
         MultiverseCoreApi coreApi = getCoreApi();
         CompletableFuture<LoadedMultiverseWorld> future = new CompletableFuture<>();
 
-        // Schedule the world creation on the main thread to avoid blocking the caller
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (coreApi.getWorldManager().getWorld(name).isDefined()) {
-                sender.sendMessage(Component.text("World " + name + " already exists!", NamedTextColor.RED));
-                future.completeExceptionally(new MultiverseException("World " + name + " already exists!"));
-                return;
-            }
+        if (coreApi.getWorldManager().getWorld(name).isDefined()) {
+            sender.sendMessage(Component.text("World " + name + " already exists!", NamedTextColor.RED));
+            future.completeExceptionally(new MultiverseException("World " + name + " already exists!"));
+            return future;
+        }
+
+        coreApi.getWorldManager().createWorld(
+                        CreateWorldOptions.worldName(name)
+                                .environment(World.Environment.NORMAL)
+                                .generator(generator))
+                .onFailure(reason -> future.completeExceptionally(new MultiverseException("Failed to create world " + name + ": " + reason.getFailureReason())))
+                .onSuccess(world -> {
+                    world.setAllowWeather(false);
+                    world.setKeepSpawnInMemory(false);
+                    world.setAllowAdvancementGrant(false);
+                    world.setAllowFlight(true);
+                    world.setDifficulty(Difficulty.PEACEFUL);
+                    world.setGameMode(GameMode.CREATIVE);
+                    world.setPvp(false);
+
+                    coreApi.getWorldManager().saveWorldsConfig();
+                    sender.sendMessage(Component.text("Created world " + name, NamedTextColor.GREEN));
+                    future.complete(world);
+                });
+        return future;
+    }
+
+    /**
+     * Checks whether a world is known to Multiverse, loaded or not.
+     *
+     * @param name the world name
+     * @return whether the world exists
+     */
+    public boolean hasWorld(String name) {
+        return getCoreApi().getWorldManager().getWorld(name).isDefined();
+    }
 
-            coreApi.getWorldManager().createWorld(
-                            CreateWorldOptions.worldName(name)
-                                    .environment(World.Environment.NORMAL)
-                                    .generator(generator))
-                    .onFailure(reason -> future.completeExceptionally(new MultiverseException("Failed to create world " + name + ": " + reason.getFailureReason())))
-                    .onSuccess(world -> {
-                        world.setAllowWeather(false);
-                        world.setKeepSpawnInMemory(false);
-                        world.setAllowAdvancementGrant(false);
-                        world.setAllowFlight(true);
-                        world.setDifficulty(Difficulty.PEACEFUL);
-                        world.setGameMode(GameMode.CREATIVE);
-                        world.setPvp(false);
+    /**
+     * Gets a world known to Multiverse, if it is loaded.
+     *
+     * @param name the world name
+     * @return the loaded world, or empty if the world does not exist or is not loaded
+     */
+    public Optional<LoadedMultiverseWorld> getLoadedWorld(String name) {
+        return getCoreApi().getWorldManager().getLoadedWorld(name).toJavaOptional();
+    }
 
-                        coreApi.getWorldManager().saveWorldsConfig();
-                        sender.sendMessage(Component.text("Created world " + name, NamedTextColor.GREEN));
-                        future.complete(world);
-                    });
-        }, delayTicks);
+    /**
+     * Loads an existing Multiverse world, must be called on the main thread.
+     *
+     * @param name the world name
+     * @return a future completing with the loaded world
+     */
+    public CompletableFuture<World> loadWorld(String name) {
+        MultiverseCoreApi coreApi = getCoreApi();
+        CompletableFuture<World> future = new CompletableFuture<>();
+        coreApi.getWorldManager().loadWorld(name)
+                .onFailure(reason -> future.completeExceptionally(new MultiverseException("Failed to load world " + name + ": " + reason.getFailureReason())))
+                .onSuccess(world -> future.complete(world.getBukkitWorld().getOrNull()));
         return future;
     }
 
+    /**
+     * Sets whether Multiverse loads the world on startup.
+     *
+     * @param name     the world name
+     * @param autoLoad whether the world should be loaded on startup
+     * @return whether the setting was changed, {@code false} if it was already set or the world does not exist
+     */
+    public boolean setAutoLoad(String name, boolean autoLoad) {
+        MultiverseCoreApi coreApi = getCoreApi();
+        MultiverseWorld world = coreApi.getWorldManager().getWorld(name).getOrNull();
+        if (world == null || world.getAutoLoad() == autoLoad) {
+            return false;
+        }
+        world.setAutoLoad(autoLoad);
+        coreApi.getWorldManager().saveWorldsConfig();
+        return true;
+    }
+
     public void unloadWorld(String name) {
         MultiverseCoreApi coreApi = getCoreApi();
         coreApi.getWorldManager().getWorld(name).peek(
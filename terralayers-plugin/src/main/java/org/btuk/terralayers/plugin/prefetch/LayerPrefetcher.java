@@ -0,0 +1,215 @@
+package org.btuk.terralayers.plugin.prefetch;
+
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.impl.ChunkTickets;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the chunks around a player in the adjacent layer before the player crosses into it.
+ * <p>
+ * The vertical velocity of each player is tracked from the move path. When a player inside the buffer zone is
+ * expected to reach a teleport threshold within the lookahead window, the chunks around the player in the target
+ * layer are loaded asynchronously and held with the shared {@link ChunkTickets}. The tickets are released when the player
+ * turns back, leaves the zone or has moved into the target layer.
+ * <p>
+ * The state of a player is only changed from the thread handling its moves.
+ */
+public final class LayerPrefetcher {
+
+    /**
+     * Ticks to keep the tickets after a transition, until the player's own chunk tickets have taken over.
+     */
+    private static final long RELEASE_DELAY_TICKS = 40L;
+
+    private final Plugin plugin;
+    private final LayerManager layerManager;
+    private final ChunkTickets tickets;
+
+    private final Map<UUID, PrefetchState> states = new ConcurrentHashMap<>();
+
+    private boolean enabled;
+    private int radius;
+    private int lookaheadTicks;
+
+    public LayerPrefetcher(Plugin plugin, LayerManager layerManager, ChunkTickets tickets, boolean enabled, int radius, int lookaheadTicks) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+        this.tickets = tickets;
+        configure(enabled, radius, lookaheadTicks);
+    }
+
+    /**
+     * Updates the prefetch settings.
+     *
+     * @param enabled        whether prefetching is enabled
+     * @param radius         the maximum radius in chunks to prefetch, limited by the view distance of the player
+     * @param lookaheadTicks how many ticks before reaching a threshold the prefetch should start
+     */
+    public void configure(boolean enabled, int radius, int lookaheadTicks) {
+        if (!enabled) {
+            releaseAll();
+        }
+        this.enabled = enabled;
+        this.radius = Math.max(0, radius);
+        this.lookaheadTicks = Math.max(1, lookaheadTicks);
+    }
+
+    /**
+     * Updates the prefetch for a player that moved to another block y-level.
+     *
+     * @param player  the player
+     * @param layer   the layer the player is in
+     * @param to      the location the player moved to
+     * @param globalY the global y-level of the player
+     */
+    public void onMove(Player player, LayeredWorld layer, Location to, double globalY) {
+        if (!enabled) {
+            return;
+        }
+        int tick = plugin.getServer().getCurrentTick();
+        PrefetchState state = states.get(player.getUniqueId());
+        if (state == null) {
+            state = new PrefetchState(globalY, tick);
+            states.put(player.getUniqueId(), state);
+            return;
+        }
+
+        // Blocks per tick, positive when moving up.
+        double velocity = (globalY - state.lastGlobalY) / Math.max(1, tick - state.lastTick);
+        state.lastGlobalY = globalY;
+        state.lastTick = tick;
+
+        LayeredWorld target = null;
+        if (velocity > 0) {
+            double distance = layer.getTeleportMaxY() - globalY;
+            if (distance <= layer.getBufferSize() && distance / velocity <= lookaheadTicks) {
+                target = layerManager.getLayerAbove(layer).orElse(null);
+            }
+        } else if (velocity < 0) {
+            double distance = globalY - layer.getTeleportMinY();
+            if (distance <= layer.getBufferSize() && distance / -velocity <= lookaheadTicks) {
+                target = layerManager.getLayerBelow(layer).orElse(null);
+            }
+        }
+
+        if (target == null) {
+            // The player turned back or is not approaching a threshold.
+            release(state.target, state.centerX, state.centerZ, state.radius);
+            state.target = null;
+            return;
+        }
+        if (!target.isLoaded()) {
+            // The chunks are prefetched on a later move, once the world has been loaded.
+            layerManager.loadLayer(target);
+            return;
+        }
+        prefetch(player, state, target, to.getBlockX() >> 4, to.getBlockZ() >> 4);
+    }
+
+    /**
+     * Called when a player has been moved to another layer.
+     * The prefetched chunks are kept for a short time, until the player's own tickets keep them loaded.
+     *
+     * @param player the player
+     */
+    public void onTransition(Player player) {
+        PrefetchState state = states.get(player.getUniqueId());
+        if (state == null || state.target == null) {
+            return;
+        }
+        LayeredWorld target = state.target;
+        int centerX = state.centerX;
+        int centerZ = state.centerZ;
+        int prefetchRadius = state.radius;
+        state.target = null;
+        plugin.getServer().getGlobalRegionScheduler().runDelayed(plugin, scheduled -> release(target, centerX, centerZ, prefetchRadius), RELEASE_DELAY_TICKS);
+    }
+
+    /**
+     * Releases the prefetched chunks of a player and removes its state.
+     *
+     * @param player the player
+     */
+    public void forget(Player player) {
+        PrefetchState state = states.remove(player.getUniqueId());
+        if (state != null) {
+            release(state.target, state.centerX, state.centerZ, state.radius);
+        }
+    }
+
+    /**
+     * Releases all prefetched chunks.
+     */
+    public void releaseAll() {
+        states.values().forEach(state -> release(state.target, state.centerX, state.centerZ, state.radius));
+        states.clear();
+    }
+
+    private void prefetch(Player player, PrefetchState state, LayeredWorld target, int centerX, int centerZ) {
+        int prefetchRadius = Math.min(radius, player.getViewDistance());
+        if (target == state.target && centerX == state.centerX && centerZ == state.centerZ && prefetchRadius == state.radius) {
+            return;
+        }
+
+        boolean sameWorld = target == state.target;
+        for (int x = centerX - prefetchRadius; x <= centerX + prefetchRadius; x++) {
+            for (int z = centerZ - prefetchRadius; z <= centerZ + prefetchRadius; z++) {
+                if (!sameWorld || !isInSquare(x, z, state.centerX, state.centerZ, state.radius)) {
+                    tickets.acquire(target, x, z);
+                }
+            }
+        }
+        // Release the old square after acquiring the new one, so overlapping chunks are never unticketed.
+        if (state.target != null) {
+            for (int x = state.centerX - state.radius; x <= state.centerX + state.radius; x++) {
+                for (int z = state.centerZ - state.radius; z <= state.centerZ + state.radius; z++) {
+                    if (!sameWorld || !isInSquare(x, z, centerX, centerZ, prefetchRadius)) {
+                        tickets.release(state.target, x, z);
+                    }
+                }
+            }
+        }
+
+        state.target = target;
+        state.centerX = centerX;
+        state.centerZ = centerZ;
+        state.radius = prefetchRadius;
+    }
+
+    private void release(LayeredWorld target, int centerX, int centerZ, int prefetchRadius) {
+        if (target == null) {
+            return;
+        }
+        for (int x = centerX - prefetchRadius; x <= centerX + prefetchRadius; x++) {
+            for (int z = centerZ - prefetchRadius; z <= centerZ + prefetchRadius; z++) {
+                tickets.release(target, x, z);
+            }
+        }
+    }
+
+    private static boolean isInSquare(int x, int z, int centerX, int centerZ, int radius) {
+        return Math.abs(x - centerX) <= radius && Math.abs(z - centerZ) <= radius;
+    }
+
+    private static final class PrefetchState {
+        private double lastGlobalY;
+        private int lastTick;
+
+        private LayeredWorld target;
+        private int centerX;
+        private int centerZ;
+        private int radius;
+
+        private PrefetchState(double lastGlobalY, int lastTick) {
+            this.lastGlobalY = lastGlobalY;
+            this.lastTick = lastTick;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.btuk.terralayers.plugin.pregen;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the chunks of an area in a range of layers, for {@code /terralayers pregen}.
+ * <p>
+ * Chunks are requested asynchronously, the same chunk in all layers of the range at once, so the generation of the
+ * layer worlds runs concurrently. At most the configured number of chunks is in flight. New chunks are requested from
+ * a low priority worker of the {@link TerraLayersScheduler}, which is held back while the server is behind its
+ * target tick duration, so the loading of generated chunks on the main thread never adds to the lag.
+ * <p>
+ * Progress is saved in a {@link PregenCheckpoint} every few seconds and when the pregeneration is stopped,
+ * so it can be resumed after a restart.
+ */
+public final class ChunkPregenerator {
+
+    private static final long SAVE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Plugin plugin;
+    private final LayerManager layerManager;
+    private final TerraLayersScheduler scheduler;
+    private final TerraLayersScheduler.Worker worker = this::run;
+
+    private int maxInFlight;
+
+    private PregenCheckpoint checkpoint;
+    private CommandSender sender;
+    private PregenRegion region;
+    private PregenProgress progress = new PregenProgress(0);
+    private long generated;
+    private long startNanos;
+    private long lastSaveNanos;
+    private long lastReportNanos;
+    private boolean cancelled;
+    private Throwable failure;
+
+    public ChunkPregenerator(Plugin plugin, LayerManager layerManager, TerraLayersScheduler scheduler, int maxInFlight) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+        this.scheduler = scheduler;
+        configure(maxInFlight);
+    }
+
+    /**
+     * Updates the settings.
+     *
+     * @param maxInFlight the maximum number of chunks being generated at once, across all layers
+     */
+    public void configure(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Stops the running pregeneration, saving its progress so it can be resumed.
+     */
+    public void stop() {
+        if (region == null) {
+            return;
+        }
+        scheduler.removeWorker(worker);
+        checkpoint.save(region, progress.getResumePosition());
+        region = null;
+    }
+
+    /**
+     * Starts generating a region.
+     *
+     * @param sender     the sender to report progress to
+     * @param region     the region
+     * @param checkpoint the checkpoint to save the progress in
+     * @param from       the number of the chunk to start from, 0 to start at the beginning
+     * @throws IllegalArgumentException if the region is outside the layers
+     * @throws IllegalStateException    if a pregeneration is already running
+     */
+    public void start(CommandSender sender, PregenRegion region, PregenCheckpoint checkpoint, long from) {
+        if (isRunning()) {
+            throw new IllegalStateException("A pregeneration is already running, use /terralayers pregen cancel to stop it.");
+        }
+        if (region.fromLayer() < 0 || region.toLayer() >= layerManager.getLayerCount()) {
+            throw new IllegalArgumentException("The layers must be between 0 and " + (layerManager.getLayerCount() - 1) + ".");
+        }
+        this.sender = sender;
+        this.region = region;
+        this.checkpoint = checkpoint;
+        this.progress = new PregenProgress(Math.clamp(from, 0, region.getChunkCount()));
+        this.generated = 0;
+        this.cancelled = false;
+        this.failure = null;
+        this.startNanos = System.nanoTime();
+        this.lastSaveNanos = startNanos;
+        this.lastReportNanos = startNanos;
+        checkpoint.save(region, progress.getNext());
+        scheduler.addWorker(TerraLayersScheduler.Priority.LOW, worker);
+    }
+
+    /**
+     * Stops requesting new chunks, chunks that are being generated are finished first.
+     * The progress is kept, so the pregeneration can be resumed.
+     *
+     * @return whether a pregeneration was running
+     */
+    public boolean cancel() {
+        if (!isRunning()) {
+            return false;
+        }
+        cancelled = true;
+        return true;
+    }
+
+    public boolean isRunning() {
+        return region != null;
+    }
+
+    public PregenRegion getRegion() {
+        return region;
+    }
+
+    /**
+     * The number of chunks generated per second since the pregeneration was started or resumed.
+     */
+    public double getChunksPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : generated * 1_000_000_000.0 / elapsed;
+    }
+
+    public int getInFlight() {
+        return progress.getInFlight();
+    }
+
+    /**
+     * Describes the progress, the chunks done including those done before resuming and the generation speed.
+     */
+    public String getProgress() {
+        long total = region.getChunkCount();
+        long done = progress.getResumePosition();
+        return done + "/" + total + " chunks (" + (total == 0 ? 100 : done * 100 / total) + "%), "
+                + String.format("%.1f chunks/s", getChunksPerSecond());
+    }
+
+    private boolean run(long deadlineNanos) {
+        if (failure != null || cancelled) {
+            if (progress.getInFlight() > 0) {
+                return true;
+            }
+            checkpoint.save(region, progress.getResumePosition());
+            if (failure != null) {
+                sender.sendMessage(Component.text("Pregeneration stopped: " + failure.getMessage()
+                        + " Use /terralayers pregen resume to continue.", NamedTextColor.RED));
+            } else {
+                sender.sendMessage(Component.text("Pregeneration cancelled at " + getProgress()
+                        + ", use /terralayers pregen resume to continue.", NamedTextColor.YELLOW));
+            }
+            region = null;
+            return false;
+        }
+        if (progress.getNext() == region.getChunkCount() && progress.getInFlight() == 0) {
+            checkpoint.delete();
+            double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+            sender.sendMessage(Component.text("Pregeneration completed, " + generated + " chunks in "
+                    + String.format("%.0fs (%.1f chunks/s).", seconds, getChunksPerSecond()), NamedTextColor.GREEN));
+            plugin.getLogger().info("Pregeneration of " + region.describe() + " completed.");
+            region = null;
+            return false;
+        }
+
+        while (progress.getInFlight() < maxInFlight && progress.getNext() < region.getChunkCount() && failure == null
+                && System.nanoTime() < deadlineNanos) {
+            request(progress.request());
+        }
+
+        long now = System.nanoTime();
+        if (now - lastSaveNanos >= SAVE_INTERVAL_NANOS) {
+            lastSaveNanos = now;
+            checkpoint.save(region, progress.getResumePosition());
+        }
+        if (now - lastReportNanos >= REPORT_INTERVAL_NANOS) {
+            lastReportNanos = now;
+            sender.sendMessage(Component.text("Pregeneration: " + getProgress(), NamedTextColor.GRAY));
+        }
+        return true;
+    }
+
+    private void request(long chunk) {
+        LayeredWorld layer = layerManager.getLayer(region.getLayer(chunk)).orElse(null);
+        if (layer == null) {
+            progress.failed(chunk);
+            failure = new IllegalStateException("Layer " + region.getLayer(chunk) + " no longer exists.");
+            return;
+        }
+        int chunkX = region.getChunkX(chunk);
+        int chunkZ = region.getChunkZ(chunk);
+        PregenRegion requested = region;
+        // Both futures complete on the main thread.
+        layerManager.loadLayer(layer)
+                .thenCompose(world -> world.getChunkAtAsync(chunkX, chunkZ, true))
+                .whenComplete((result, error) -> {
+                    if (region != requested) {
+                        // Stopped in the meantime.
+                        return;
+                    }
+                    if (error != null) {
+                        progress.failed(chunk);
+                        plugin.getLogger().severe("Failed to generate chunk " + chunkX + ", " + chunkZ + " in layer " + layer.getName() + ": " + error.getMessage());
+                        if (failure == null) {
+                            failure = new IllegalStateException("Failed to generate chunk " + chunkX + ", " + chunkZ + " in layer " + layer.getName() + ".");
+                        }
+                        return;
+                    }
+                    progress.completed(chunk);
+                    generated++;
+                });
+    }
+}
@@ -0,0 +1,122 @@
+package org.btuk.terralayers.plugin.pregen;
+
+import org.btuk.terralayers.plugin.io.AtomicFiles;
+import org.btuk.terralayers.plugin.io.IoExecutor;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Logger;
+
+/**
+ * Records the progress of {@code /terralayers pregen}, so an interrupted pregeneration can be resumed after a restart.
+ * <p>
+ * The checkpoint stores the region and the number of the first chunk that has not been generated yet, chunks after
+ * it that were already generated are loaded again when resuming, which is cheap compared to generating them.
+ * The checkpoint is changed on the main thread and written on the I/O executor, one write after the other.
+ */
+public final class PregenCheckpoint {
+
+    private static final String REGION_KEY = "region";
+    private static final String NEXT_KEY = "next";
+
+    private final Logger logger;
+    private final File file;
+    private final IoExecutor io;
+
+    private PregenRegion region;
+    private long next;
+
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    private PregenCheckpoint(Logger logger, File file, IoExecutor io) {
+        this.logger = logger;
+        this.file = file;
+        this.io = io;
+    }
+
+    /**
+     * Loads the checkpoint from disk, or creates an empty one if there is none.
+     * Reads the file, so should be called on the I/O executor.
+     *
+     * @param logger logger
+     * @param file   the checkpoint file
+     * @param io     the executor writing the checkpoint
+     */
+    public static PregenCheckpoint load(Logger logger, File file, IoExecutor io) {
+        PregenCheckpoint checkpoint = new PregenCheckpoint(logger, file, io);
+        if (file.exists()) {
+            YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+            ConfigurationSection section = yaml.getConfigurationSection(REGION_KEY);
+            if (section != null) {
+                checkpoint.region = new PregenRegion(section.getInt("minChunkX"), section.getInt("minChunkZ"), section.getInt("maxChunkX"),
+                        section.getInt("maxChunkZ"), section.getInt("fromLayer"), section.getInt("toLayer"));
+                checkpoint.next = yaml.getLong(NEXT_KEY);
+            } else {
+                logger.warning("Ignoring invalid pregen checkpoint " + file.getName());
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * The region of the interrupted pregeneration, or {@code null} if there is none.
+     */
+    public PregenRegion getRegion() {
+        return region;
+    }
+
+    /**
+     * The number of the chunk to resume from.
+     */
+    public long getNext() {
+        return next;
+    }
+
+    /**
+     * Records the progress and saves the checkpoint.
+     *
+     * @param region the region being generated
+     * @param next   the number of the first chunk that has not been generated
+     */
+    public void save(PregenRegion region, long next) {
+        this.region = region;
+        this.next = next;
+        YamlConfiguration yaml = new YamlConfiguration();
+        ConfigurationSection section = yaml.createSection(REGION_KEY);
+        section.set("minChunkX", region.minChunkX());
+        section.set("minChunkZ", region.minChunkZ());
+        section.set("maxChunkX", region.maxChunkX());
+        section.set("maxChunkZ", region.maxChunkZ());
+        section.set("fromLayer", region.fromLayer());
+        section.set("toLayer", region.toLayer());
+        yaml.set(NEXT_KEY, next);
+        String content = yaml.saveToString();
+        write(() -> AtomicFiles.writeString(file.toPath(), content));
+    }
+
+    /**
+     * Removes the checkpoint, once the pregeneration has completed.
+     */
+    public void delete() {
+        region = null;
+        next = 0;
+        write(() -> Files.deleteIfExists(file.toPath()));
+    }
+
+    /**
+     * Runs a write after the previous write has finished, so the last change always ends up on disk.
+     */
+    private void write(IoExecutor.IoTask<?> task) {
+        lastWrite = lastWrite.thenRunAsync(() -> {
+            try {
+                task.call();
+            } catch (IOException e) {
+                logger.severe("Failed to save pregen checkpoint: " + e.getMessage());
+            }
+        }, io);
+    }
+}
@@ -0,0 +1,65 @@
+package org.btuk.terralayers.plugin.pregen;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks the chunks of a {@link PregenRegion} that were requested, are being generated and failed, by their number.
+ * <p>
+ * Chunks are requested in order but finish in any order, so the position to resume from is the first chunk that is
+ * still being generated or failed, or the next chunk to request when there is none.
+ */
+final class PregenProgress {
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    private long next;
+    private long lowestFailed = Long.MAX_VALUE;
+
+    /**
+     * @param from the number of the first chunk to request
+     */
+    PregenProgress(long from) {
+        this.next = from;
+    }
+
+    /**
+     * The number of the next chunk to request.
+     */
+    long getNext() {
+        return next;
+    }
+
+    /**
+     * Marks the next chunk as being generated.
+     *
+     * @return the number of the chunk
+     */
+    long request() {
+        inFlight.add(next);
+        return next++;
+    }
+
+    void completed(long chunk) {
+        inFlight.remove(chunk);
+    }
+
+    /**
+     * Marks a chunk as failed, it is generated again when resuming.
+     */
+    void failed(long chunk) {
+        inFlight.remove(chunk);
+        lowestFailed = Math.min(lowestFailed, chunk);
+    }
+
+    int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * The number of the first chunk that has not been generated, all chunks before it have been.
+     */
+    long getResumePosition() {
+        long first = inFlight.isEmpty() ? next : inFlight.first();
+        return Math.min(first, lowestFailed);
+    }
+}
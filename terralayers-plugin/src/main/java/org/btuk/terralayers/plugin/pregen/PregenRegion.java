@@ -0,0 +1,64 @@
+package org.btuk.terralayers.plugin.pregen;
+
+/**
+ * The chunks to pregenerate, the same chunk area in a range of layers.
+ * <p>
+ * The chunks are numbered so that the same chunk in all layers of the range is generated together, chunk by chunk
+ * along the x-axis, then row by row along the z-axis. Progress is stored as the number of the next chunk.
+ *
+ * @param minChunkX the minimum chunk x (inclusive)
+ * @param minChunkZ the minimum chunk z (inclusive)
+ * @param maxChunkX the maximum chunk x (inclusive)
+ * @param maxChunkZ the maximum chunk z (inclusive)
+ * @param fromLayer the index of the lowest layer (inclusive)
+ * @param toLayer   the index of the highest layer (inclusive)
+ */
+public record PregenRegion(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, int fromLayer, int toLayer) {
+
+    /**
+     * Creates the region covering the blocks between two corners.
+     */
+    public static PregenRegion between(int x1, int z1, int x2, int z2, int fromLayer, int toLayer) {
+        return new PregenRegion(Math.min(x1, x2) >> 4, Math.min(z1, z2) >> 4, Math.max(x1, x2) >> 4, Math.max(z1, z2) >> 4,
+                Math.min(fromLayer, toLayer), Math.max(fromLayer, toLayer));
+    }
+
+    public int getLayerCount() {
+        return toLayer - fromLayer + 1;
+    }
+
+    /**
+     * The number of chunks in one layer.
+     */
+    public long getColumnCount() {
+        return (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+    }
+
+    /**
+     * The number of chunks in all layers.
+     */
+    public long getChunkCount() {
+        return getColumnCount() * getLayerCount();
+    }
+
+    public int getLayer(long chunk) {
+        return fromLayer + (int) (chunk % getLayerCount());
+    }
+
+    public int getChunkX(long chunk) {
+        return minChunkX + (int) (chunk / getLayerCount() % (maxChunkX - minChunkX + 1));
+    }
+
+    public int getChunkZ(long chunk) {
+        return minChunkZ + (int) (chunk / getLayerCount() / (maxChunkX - minChunkX + 1));
+    }
+
+    /**
+     * Describes the region in block coordinates.
+     */
+    public String describe() {
+        return "chunks " + minChunkX + ", " + minChunkZ + " to " + maxChunkX + ", " + maxChunkZ
+                + " (blocks " + (minChunkX << 4) + ", " + (minChunkZ << 4) + " to " + ((maxChunkX << 4) + 15) + ", " + ((maxChunkZ << 4) + 15) + ")"
+                + " in layers " + fromLayer + " to " + toLayer;
+    }
+}
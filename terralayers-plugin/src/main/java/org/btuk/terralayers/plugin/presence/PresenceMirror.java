@@ -0,0 +1,332 @@
+package org.btuk.terralayers.plugin.presence;
+
+import net.kyori.adventure.text.Component;
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.scheduler.TerraLayersScheduler;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Display;
+import org.bukkit.entity.ItemDisplay;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.TextDisplay;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.SkullMeta;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shows players in the overlap between two layers to the players in the adjacent layer.
+ * <p>
+ * The part of a layer within the buffer size of its boundary is also present in the world of the adjacent layer,
+ * but players in one world cannot see the players in the other. Players in that zone are recorded from the move path,
+ * and once per tick a worker of the {@link TerraLayersScheduler} moves a stand-in, a head with a name tag, to their
+ * position in the adjacent layer. The per-tick cost only depends on the number of players in the zone.
+ * <p>
+ * Stand-ins are only moved when the player has moved or turned noticeably, and are hidden by default. They are shown
+ * to the players of the adjacent layer within the configured range that can see the player, which is refreshed every
+ * few ticks.
+ */
+public final class PresenceMirror {
+
+    /**
+     * Ticks between updates of the players that can see a stand-in.
+     */
+    private static final int VIEWER_INTERVAL_TICKS = 10;
+
+    /**
+     * Squared distance a player has to move before the stand-in follows, 1/32 of a block.
+     */
+    private static final double MIN_MOVE_SQUARED = (1.0 / 32) * (1.0 / 32);
+
+    /**
+     * Degrees a player has to turn before the stand-in follows.
+     */
+    private static final float MIN_ROTATION = 2.0f;
+
+    /**
+     * Height of the name tag above the eyes of the player.
+     */
+    private static final double NAME_OFFSET = 0.6;
+
+    private final Plugin plugin;
+    private final LayerManager layerManager;
+    private final TerraLayersScheduler scheduler;
+    private final TerraLayersScheduler.Worker worker = this::update;
+
+    private final Map<UUID, Source> sources = new HashMap<>();
+
+    private boolean enabled;
+    private double rangeSquared;
+    private double range;
+    private int ticks;
+
+    private static final class Source {
+        private final Player player;
+        private LayeredWorld layer;
+        private Ghost above;
+        private Ghost below;
+
+        private Source(Player player, LayeredWorld layer) {
+            this.player = player;
+            this.layer = layer;
+        }
+    }
+
+    /**
+     * The stand-in of a player in an adjacent layer.
+     */
+    private static final class Ghost {
+        private final LayeredWorld target;
+        private final ItemDisplay head;
+        private final TextDisplay name;
+        private final Set<UUID> viewers = new HashSet<>();
+        private Location shown;
+
+        private Ghost(LayeredWorld target, ItemDisplay head, TextDisplay name, Location shown) {
+            this.target = target;
+            this.head = head;
+            this.name = name;
+            this.shown = shown;
+        }
+    }
+
+    public PresenceMirror(Plugin plugin, LayerManager layerManager, TerraLayersScheduler scheduler, boolean enabled, int range) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+        this.scheduler = scheduler;
+        configure(enabled, range);
+    }
+
+    /**
+     * Updates the settings.
+     *
+     * @param enabled whether players are shown in the adjacent layer
+     * @param range   the distance in blocks within which players in the adjacent layer see a stand-in
+     */
+    public void configure(boolean enabled, int range) {
+        this.enabled = enabled;
+        this.range = Math.max(1, range);
+        this.rangeSquared = this.range * this.range;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public void start() {
+        scheduler.addWorker(TerraLayersScheduler.Priority.NORMAL, worker);
+    }
+
+    public void stop() {
+        scheduler.removeWorker(worker);
+        clear();
+    }
+
+    /**
+     * Records the position of a player that moved to another block y-level.
+     *
+     * @param player  the player
+     * @param layer   the layer the player is in
+     * @param globalY the global y-level of the player
+     */
+    public void record(Player player, LayeredWorld layer, double globalY) {
+        if (!enabled) {
+            return;
+        }
+        int buffer = layerManager.getBufferSize();
+        boolean inZone = globalY >= layer.getMaxY() - buffer || globalY < layer.getMinY() + buffer;
+        Source source = sources.get(player.getUniqueId());
+        if (!inZone) {
+            if (source != null) {
+                remove(source);
+                sources.remove(player.getUniqueId());
+            }
+            return;
+        }
+        if (source == null) {
+            sources.put(player.getUniqueId(), new Source(player, layer));
+        } else if (source.layer != layer) {
+            remove(source);
+            source.layer = layer;
+        }
+    }
+
+    /**
+     * Removes the stand-ins of a player, should be called when the player leaves.
+     *
+     * @param player the player
+     */
+    public void forget(Player player) {
+        Source source = sources.remove(player.getUniqueId());
+        if (source != null) {
+            remove(source);
+        }
+    }
+
+    /**
+     * Removes the stand-ins of all players.
+     */
+    public void clear() {
+        sources.values().forEach(PresenceMirror::remove);
+        sources.clear();
+    }
+
+    private boolean update(long deadlineNanos) {
+        if (sources.isEmpty()) {
+            return true;
+        }
+        boolean refreshViewers = ++ticks % VIEWER_INTERVAL_TICKS == 0;
+        int buffer = layerManager.getBufferSize();
+        Iterator<Source> iterator = sources.values().iterator();
+        while (iterator.hasNext()) {
+            Source source = iterator.next();
+            Player player = source.player;
+            if (!player.isOnline() || player.getWorld() != source.layer.getWorld()) {
+                remove(source);
+                iterator.remove();
+                continue;
+            }
+            Location location = player.getLocation();
+            double globalY = location.getY() + source.layer.getMinY();
+            boolean hidden = !isShown(player);
+            source.above = updateGhost(source, source.above, hidden || globalY < source.layer.getMaxY() - buffer ? null
+                    : layerManager.getLayerAbove(source.layer).orElse(null), location, refreshViewers);
+            source.below = updateGhost(source, source.below, hidden || globalY >= source.layer.getMinY() + buffer ? null
+                    : layerManager.getLayerBelow(source.layer).orElse(null), location, refreshViewers);
+        }
+        return true;
+    }
+
+    /**
+     * Moves, creates or removes the stand-in of a player in an adjacent layer.
+     *
+     * @param target the layer to show the player in, or {@code null} if the player should not be shown
+     * @return the stand-in in the target layer, or {@code null} if there is none
+     */
+    private Ghost updateGhost(Source source, Ghost ghost, LayeredWorld target, Location location, boolean refreshViewers) {
+        if (ghost != null && ghost.target != target) {
+            remove(ghost);
+            ghost = null;
+        }
+        if (target == null || !target.isReady()) {
+            if (ghost != null) {
+                remove(ghost);
+            }
+            return null;
+        }
+        World world = target.getWorld();
+        Location eyes = location.clone().add(0, source.player.getEyeHeight(), 0);
+        eyes.setWorld(world);
+        eyes.setY(eyes.getY() + source.layer.getMinY() - target.getMinY());
+        if (!world.isChunkLoaded(eyes.getBlockX() >> 4, eyes.getBlockZ() >> 4)) {
+            // Nobody in the adjacent layer is close enough to see it.
+            if (ghost != null) {
+                remove(ghost);
+            }
+            return null;
+        }
+
+        if (ghost == null) {
+            ghost = spawn(source.player, target, eyes);
+            refreshViewers = true;
+        } else if (hasMoved(ghost.shown, eyes)) {
+            ghost.head.teleport(eyes);
+            ghost.name.teleport(eyes.clone().add(0, NAME_OFFSET, 0));
+            ghost.shown = eyes;
+        }
+        if (refreshViewers) {
+            updateViewers(ghost, source.player, world);
+        }
+        return ghost;
+    }
+
+    private Ghost spawn(Player player, LayeredWorld target, Location eyes) {
+        ItemStack skull = new ItemStack(Material.PLAYER_HEAD);
+        skull.editMeta(SkullMeta.class, meta -> meta.setPlayerProfile(player.getPlayerProfile()));
+        ItemDisplay head = eyes.getWorld().spawn(eyes, ItemDisplay.class, display -> {
+            display.setItemStack(skull);
+            configureDisplay(display);
+        });
+        TextDisplay name = eyes.getWorld().spawn(eyes.clone().add(0, NAME_OFFSET, 0), TextDisplay.class, display -> {
+            display.text(Component.text(player.getName()));
+            display.setBillboard(Display.Billboard.CENTER);
+            configureDisplay(display);
+        });
+        return new Ghost(target, head, name, eyes);
+    }
+
+    private static void configureDisplay(Display display) {
+        display.setPersistent(false);
+        display.setVisibleByDefault(false);
+        // Let the client interpolate between the updates.
+        display.setTeleportDuration(1);
+    }
+
+    /**
+     * Shows the stand-in to the players within range that can see the player, and hides it from the others,
+     * such as players the player is hidden from by {@link Player#hidePlayer(Plugin, Player)} or a vanish plugin.
+     */
+    private void updateViewers(Ghost ghost, Player player, World world) {
+        Set<UUID> previous = new HashSet<>(ghost.viewers);
+        List<Player> nearby = new ArrayList<>(world.getNearbyPlayers(ghost.shown, range));
+        for (Player viewer : nearby) {
+            if (viewer.getLocation().distanceSquared(ghost.shown) > rangeSquared || !viewer.canSee(player)) {
+                continue;
+            }
+            if (!previous.remove(viewer.getUniqueId())) {
+                viewer.showEntity(plugin, ghost.head);
+                viewer.showEntity(plugin, ghost.name);
+                ghost.viewers.add(viewer.getUniqueId());
+            }
+        }
+        for (UUID uuid : previous) {
+            ghost.viewers.remove(uuid);
+            Player viewer = plugin.getServer().getPlayer(uuid);
+            if (viewer != null) {
+                viewer.hideEntity(plugin, ghost.head);
+                viewer.hideEntity(plugin, ghost.name);
+            }
+        }
+    }
+
+    /**
+     * Whether other players would see the player, spectators and invisible players are not shown.
+     */
+    private static boolean isShown(Player player) {
+        return player.getGameMode() != GameMode.SPECTATOR && !player.hasPotionEffect(PotionEffectType.INVISIBILITY)
+                && !player.isInvisible();
+    }
+
+    private static boolean hasMoved(Location shown, Location location) {
+        return shown.distanceSquared(location) > MIN_MOVE_SQUARED
+                || Math.abs(shown.getYaw() - location.getYaw()) > MIN_ROTATION
+                || Math.abs(shown.getPitch() - location.getPitch()) > MIN_ROTATION;
+    }
+
+    private static void remove(Source source) {
+        if (source.above != null) {
+            remove(source.above);
+            source.above = null;
+        }
+        if (source.below != null) {
+            remove(source.below);
+            source.below = null;
+        }
+    }
+
+    private static void remove(Ghost ghost) {
+        ghost.head.remove();
+        ghost.name.remove();
+    }
+}
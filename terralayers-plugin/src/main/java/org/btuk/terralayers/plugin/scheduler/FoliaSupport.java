@@ -0,0 +1,52 @@
+package org.btuk.terralayers.plugin.scheduler;
+
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Detection of and helpers for Folia, where worlds are ticked by multiple region threads instead of a main thread.
+ * <p>
+ * Repeating work uses the global region scheduler and player work the entity scheduler, which run on the main thread
+ * on Paper. Features that load worlds or change blocks across worlds from a single thread are not supported on Folia.
+ */
+public final class FoliaSupport {
+
+    private static final boolean FOLIA = detect();
+
+    private FoliaSupport() {
+    }
+
+    /**
+     * Whether the server is running Folia.
+     */
+    public static boolean isFolia() {
+        return FOLIA;
+    }
+
+    /**
+     * Runs a task on the thread owning a chunk.
+     * On Paper the task runs immediately, on Folia it is scheduled on the region of the chunk.
+     *
+     * @param plugin the plugin
+     * @param world  the world of the chunk
+     * @param chunkX the chunk x
+     * @param chunkZ the chunk z
+     * @param task   the task
+     */
+    public static void runAtChunk(Plugin plugin, World world, int chunkX, int chunkZ, Runnable task) {
+        if (FOLIA) {
+            plugin.getServer().getRegionScheduler().execute(plugin, world, chunkX, chunkZ, task);
+        } else {
+            task.run();
+        }
+    }
+
+    private static boolean detect() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
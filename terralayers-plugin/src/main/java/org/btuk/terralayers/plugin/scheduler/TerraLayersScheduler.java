@@ -0,0 +1,241 @@
+package org.btuk.terralayers.plugin.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Runs the main-thread work of TerraLayers within a time budget per tick.
+ * <p>
+ * Work is either a one-off task or a {@link Worker} that is called every tick until it has finished. Every tick,
+ * tasks and workers run in priority order until the budget is used up, the budget being the configured time per tick,
+ * limited to the time left before the average tick reaches the target duration. While the last tick was slower than
+ * the target, only a single high priority task runs, so TerraLayers does not add to the lag.
+ */
+public final class TerraLayersScheduler {
+
+    private final Plugin plugin;
+    private final TickMonitor tickMonitor;
+    private final TerraLayersMetrics metrics;
+
+    private final Map<Priority, Queue<QueuedTask>> tasks = new EnumMap<>(Priority.class);
+    private final Map<Priority, List<Worker>> workers = new EnumMap<>(Priority.class);
+
+    private double targetMspt;
+    private long budgetNanos;
+    private int rotation;
+    private ScheduledTask task;
+
+    /**
+     * The priority of work, higher priorities run first.
+     */
+    public enum Priority {
+        /**
+         * Work a player is waiting for, such as loading a layer.
+         */
+        HIGH,
+        NORMAL,
+        /**
+         * Background work, such as large edits.
+         */
+        LOW
+    }
+
+    /**
+     * Work that is spread over multiple ticks.
+     */
+    @FunctionalInterface
+    public interface Worker {
+        /**
+         * Does work until the deadline.
+         *
+         * @param deadlineNanos the {@link System#nanoTime()} at which the worker should return
+         * @return whether the worker has more work, a finished worker is removed
+         */
+        boolean run(long deadlineNanos);
+    }
+
+    private record QueuedTask(Runnable runnable, long submitNanos) {
+    }
+
+    public TerraLayersScheduler(Plugin plugin, TickMonitor tickMonitor, TerraLayersMetrics metrics, double targetMspt, double budgetMillis) {
+        this.plugin = plugin;
+        this.tickMonitor = tickMonitor;
+        this.metrics = metrics;
+        for (Priority priority : Priority.values()) {
+            tasks.put(priority, new ConcurrentLinkedQueue<>());
+            workers.put(priority, new ArrayList<>());
+        }
+        configure(targetMspt, budgetMillis);
+    }
+
+    /**
+     * Updates the settings.
+     *
+     * @param targetMspt   the target tick duration in milliseconds
+     * @param budgetMillis the maximum time per tick spent on scheduled work
+     */
+    public void configure(double targetMspt, double budgetMillis) {
+        this.targetMspt = targetMspt;
+        this.budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+    }
+
+    public void start() {
+        if (task == null) {
+            task = plugin.getServer().getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> tick(), 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        tasks.values().forEach(Queue::clear);
+        workers.values().forEach(List::clear);
+    }
+
+    /**
+     * Submits a task. Can be called from any thread, the task runs on the main thread.
+     *
+     * @param priority the priority
+     * @param supplier the task
+     * @return a future completing with the result of the task on the main thread
+     */
+    public <T> CompletableFuture<T> submit(Priority priority, Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        tasks.get(priority).add(new QueuedTask(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, System.nanoTime()));
+        return future;
+    }
+
+    /**
+     * Submits a task. Can be called from any thread, the task runs on the main thread.
+     *
+     * @param priority the priority
+     * @param runnable the task
+     * @return a future completing when the task has run
+     */
+    public CompletableFuture<Void> submit(Priority priority, Runnable runnable) {
+        return submit(priority, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Adds a worker, which is called every tick until it has finished or is removed. Must be called on the main thread.
+     *
+     * @param priority the priority
+     * @param worker   the worker
+     */
+    public void addWorker(Priority priority, Worker worker) {
+        List<Worker> list = workers.get(priority);
+        if (!list.contains(worker)) {
+            list.add(worker);
+        }
+    }
+
+    /**
+     * Removes a worker. Must be called on the main thread.
+     *
+     * @param worker the worker
+     */
+    public void removeWorker(Worker worker) {
+        workers.values().forEach(list -> list.remove(worker));
+    }
+
+    /**
+     * The number of tasks waiting to run.
+     */
+    public int getQueueDepth() {
+        return tasks.values().stream().mapToInt(Queue::size).sum();
+    }
+
+    /**
+     * The number of tasks of the given priority waiting to run.
+     */
+    public int getQueueDepth(Priority priority) {
+        return tasks.get(priority).size();
+    }
+
+    /**
+     * The number of active workers.
+     */
+    public int getWorkerCount() {
+        return workers.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        if (tickMonitor.getLastTickMillis() > targetMspt) {
+            // The server is behind, only make progress on the most urgent work.
+            metrics.recordSchedulerDeferredTick();
+            runTask(tasks.get(Priority.HIGH).poll());
+            return;
+        }
+
+        long headroomNanos = (long) ((targetMspt - tickMonitor.getAverageTickMillis()) * 1_000_000L);
+        long deadline = start + Math.max(0, Math.min(budgetNanos, headroomNanos));
+        rotation++;
+        for (Priority priority : Priority.values()) {
+            Queue<QueuedTask> queue = tasks.get(priority);
+            QueuedTask next;
+            // Always run a high priority task, even when there is no headroom.
+            if (priority == Priority.HIGH) {
+                runTask(queue.poll());
+            }
+            while (System.nanoTime() < deadline && (next = queue.poll()) != null) {
+                runTask(next);
+            }
+            runWorkers(workers.get(priority), deadline);
+        }
+    }
+
+    private void runTask(QueuedTask task) {
+        if (task == null) {
+            return;
+        }
+        metrics.recordSchedulerLag(System.nanoTime() - task.submitNanos());
+        task.runnable().run();
+    }
+
+    /**
+     * Runs the workers of a priority, starting at a different worker every tick so all workers make progress.
+     */
+    private void runWorkers(List<Worker> list, long deadline) {
+        if (list.isEmpty()) {
+            return;
+        }
+        List<Worker> snapshot = List.copyOf(list);
+        int offset = rotation % snapshot.size();
+        for (int i = 0; i < snapshot.size() && System.nanoTime() < deadline; i++) {
+            Worker worker = snapshot.get((offset + i) % snapshot.size());
+            boolean more;
+            try {
+                more = worker.run(deadline);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Scheduled worker failed", e);
+                more = false;
+            }
+            if (!more) {
+                list.remove(worker);
+            }
+        }
+    }
+}
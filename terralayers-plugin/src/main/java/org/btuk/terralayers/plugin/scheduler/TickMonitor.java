@@ -0,0 +1,57 @@
+package org.btuk.terralayers.plugin.scheduler;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.btuk.terralayers.plugin.listeners.TerraLayersListener;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Keeps track of the duration of recent server ticks, used to pace heavy work.
+ */
+public final class TickMonitor implements TerraLayersListener {
+
+    /**
+     * Weight of the latest tick in the moving average, roughly averages over the last second.
+     */
+    private static final double SMOOTHING = 0.1;
+
+    private final Plugin plugin;
+
+    private volatile double lastTickMillis;
+    private volatile double averageTickMillis;
+
+    public TickMonitor(Plugin plugin) {
+        this.plugin = plugin;
+        this.register();
+    }
+
+    private void register() {
+        this.plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    public void unregister() {
+        ServerTickEndEvent.getHandlerList().unregister(this);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    void onTickEnd(ServerTickEndEvent event) {
+        double duration = event.getTickDuration();
+        lastTickMillis = duration;
+        averageTickMillis += (duration - averageTickMillis) * SMOOTHING;
+    }
+
+    /**
+     * The duration of the last completed tick in milliseconds.
+     */
+    public double getLastTickMillis() {
+        return lastTickMillis;
+    }
+
+    /**
+     * The moving average tick duration in milliseconds.
+     */
+    public double getAverageTickMillis() {
+        return averageTickMillis;
+    }
+}
@@ -0,0 +1,278 @@
+package org.btuk.terralayers.plugin.transition;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.hud.GlobalYHud;
+import org.btuk.terralayers.plugin.impl.PlayerIndex;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
+import org.btuk.terralayers.plugin.metrics.jfr.MoveHandlerEvent;
+import org.btuk.terralayers.plugin.prefetch.LayerPrefetcher;
+import org.btuk.terralayers.plugin.presence.PresenceMirror;
+import org.btuk.terralayers.plugin.scheduler.FoliaSupport;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decides whether a player move ends up in another layer and rewrites the destination if it does.
+ * <p>
+ * Move events fire for every position and head rotation update, so the resolved layer and block y-level of each
+ * player are cached. Events that stay on the same block y-level, away from a teleport threshold, return before any
+ * layer lookup or allocation.
+ * <p>
+ * With a {@link TransitionEngine}, players crossing into another layer by moving are queued for an asynchronous
+ * teleport instead, teleports by other plugins and commands still have their destination rewritten.
+ * <p>
+ * On Folia, the destination of an event cannot be moved to another world. Moves always go through the transition
+ * engine there, and teleports into another layer are cancelled and repeated as an asynchronous teleport.
+ */
+public final class LayerSwitcher {
+
+    private static final Component LAYER_NOT_READY = Component.text("The next layer is not ready yet, please wait...", NamedTextColor.YELLOW);
+
+    private final Logger logger;
+    private final LayerManager layerManager;
+    private final GlobalYHud hud;
+    private final TerraLayersMetrics metrics;
+    private final LayerPrefetcher prefetcher;
+    private final PresenceMirror presence;
+    private final PlayerIndex players;
+
+    private final Map<UUID, PlayerLayerState> states = new ConcurrentHashMap<>();
+
+    private TransitionEngine transitionEngine;
+
+    public LayerSwitcher(Logger logger, LayerManager layerManager, GlobalYHud hud, TerraLayersMetrics metrics, LayerPrefetcher prefetcher,
+                         PresenceMirror presence, PlayerIndex players) {
+        this.logger = logger;
+        this.layerManager = layerManager;
+        this.hud = hud;
+        this.metrics = metrics;
+        this.prefetcher = prefetcher;
+        this.presence = presence;
+        this.players = players;
+    }
+
+    /**
+     * Sets the engine used to move players between layers, or {@code null} to change the destination of the move event.
+     */
+    public void setTransitionEngine(TransitionEngine transitionEngine) {
+        if (this.transitionEngine != null && this.transitionEngine != transitionEngine) {
+            this.transitionEngine.clear();
+        }
+        this.transitionEngine = transitionEngine;
+    }
+
+    /**
+     * Handles a move or teleport, moving the destination to the correct layer if required.
+     *
+     * @param event the move event
+     */
+    public void handleMove(PlayerMoveEvent event) {
+        long start = System.nanoTime();
+        Location to = event.getTo();
+        UUID uuid = event.getPlayer().getUniqueId();
+
+        // The teleports of the transition engine already go to the correct layer.
+        if (transitionEngine != null && transitionEngine.isTeleporting(uuid)) {
+            return;
+        }
+
+        // Fast path, the layer cannot have changed if the player is still on the same block y-level in the same world,
+        // only the position in the player index is updated.
+        PlayerLayerState state = states.get(uuid);
+        if (state != null && state.isUnchanged(to.getWorld(), to.getBlockY())) {
+            players.update(event.getPlayer(), to.getX(), to.getY() + state.minY, to.getZ());
+            metrics.recordMove(System.nanoTime() - start);
+            return;
+        }
+
+        MoveHandlerEvent jfrEvent = new MoveHandlerEvent();
+        jfrEvent.begin();
+        updateLayer(event, to, uuid, state);
+        jfrEvent.end();
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.player = event.getPlayer().getName();
+            jfrEvent.world = to.getWorld().getName();
+            jfrEvent.commit();
+        }
+        metrics.recordMove(System.nanoTime() - start);
+    }
+
+    /**
+     * Adds a player that joined to the player index, before its first move.
+     *
+     * @param player the player
+     */
+    public void onJoin(Player player) {
+        Location location = player.getLocation();
+        LayeredWorld layer = layerManager.getLayerForWorld(location.getWorld());
+        if (layer != null) {
+            players.update(player, location.getX(), location.getY() + layer.getMinY(), location.getZ());
+        }
+    }
+
+    /**
+     * Removes the cached state of a player.
+     *
+     * @param player the player
+     */
+    public void forget(Player player) {
+        leaveLayers(player);
+        if (transitionEngine != null) {
+            transitionEngine.forget(player);
+        }
+    }
+
+    /**
+     * Removes the cached state of all players.
+     */
+    public void clear() {
+        states.clear();
+        prefetcher.releaseAll();
+        presence.clear();
+        players.clear();
+        if (transitionEngine != null) {
+            transitionEngine.clear();
+        }
+    }
+
+    private void updateLayer(PlayerMoveEvent event, Location to, UUID uuid, PlayerLayerState state) {
+        // Get the new layered world.
+        LayeredWorld currentLayer = layerManager.getLayerForWorld(to.getWorld());
+
+        if (currentLayer == null) {
+            leaveLayers(event.getPlayer());
+            return;
+        }
+
+        // If the y-level of the new layer does not fit in the world, teleport them to the correct layer.
+        // Correct the y-level to take the offset of the new world into account.
+        double actualY = to.getY() + currentLayer.getMinY();
+        if (currentLayer.getTeleportMinY() > actualY || currentLayer.getTeleportMaxY() < actualY) {
+            if (actualY < layerManager.getGlobalMin() || actualY >= layerManager.getGlobalMax()) {
+                event.getPlayer().sendMessage(Component.text("You cannot move outside of the configured world height range!", NamedTextColor.RED));
+                event.setCancelled(true);
+                metrics.recordCancelledMove();
+                return;
+            }
+            LayeredWorld newLayer = layerManager.getLayerForGlobalY(actualY).orElse(null);
+            if (newLayer != null && !newLayer.isReady()) {
+                // Keep the player in the current layer until the world of the next layer has been loaded,
+                // either on demand or by the server while it is still starting.
+                if (state == null) {
+                    state = new PlayerLayerState();
+                    states.put(uuid, state);
+                }
+                // Only the first move into the layer notifies the player and requests the load, not every move after.
+                if (state.blockedLayer != newLayer) {
+                    state.blockedLayer = newLayer;
+                    event.getPlayer().sendActionBar(LAYER_NOT_READY);
+                    layerManager.loadLayer(newLayer);
+                }
+                event.setCancelled(true);
+                return;
+            }
+            if (newLayer != null && transitionEngine != null && !(event instanceof PlayerTeleportEvent)) {
+                // Stay in the buffer of the current layer until the engine teleports the player.
+                transitionEngine.queue(event.getPlayer());
+                clampToWorld(to);
+            } else if (newLayer != null && FoliaSupport.isFolia() && event instanceof PlayerTeleportEvent teleport) {
+                // Teleport to the same location in the other layer instead, that teleport stays within the layer.
+                Location destination = to.clone();
+                destination.setWorld(newLayer.getWorld());
+                destination.setY(actualY - newLayer.getMinY());
+                event.setCancelled(true);
+                event.getPlayer().teleportAsync(destination, teleport.getCause());
+                return;
+            } else if (newLayer != null) {
+                double y = actualY - newLayer.getMinY();
+                to.setWorld(newLayer.getWorld());
+                to.setY(y);
+                metrics.recordTransition(event.getPlayer(), currentLayer, newLayer);
+                prefetcher.onTransition(event.getPlayer());
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("Player " + event.getPlayer().getName() + " teleported from layer " + currentLayer.getName() + " to layer " + newLayer.getName() + " at y=" + y);
+                }
+                currentLayer = newLayer;
+            }
+        }
+
+        if (state == null) {
+            state = new PlayerLayerState();
+            states.put(uuid, state);
+        }
+        state.update(to.getWorld(), currentLayer, to.getBlockY());
+
+        prefetcher.onMove(event.getPlayer(), currentLayer, to, actualY);
+        hud.record(event.getPlayer(), (int) actualY);
+        presence.record(event.getPlayer(), currentLayer, actualY);
+        players.update(event.getPlayer(), to.getX(), actualY, to.getZ());
+    }
+
+    /**
+     * Removes the state kept for a player in the layers, when the player quits or moves to a world that is not a layer.
+     */
+    private void leaveLayers(Player player) {
+        states.remove(player.getUniqueId());
+        prefetcher.forget(player);
+        presence.forget(player);
+        players.remove(player);
+    }
+
+    /**
+     * Keeps a destination inside the world while the player waits for a transition.
+     */
+    private static void clampToWorld(Location to) {
+        World world = to.getWorld();
+        if (to.getY() < world.getMinHeight()) {
+            to.setY(world.getMinHeight());
+        } else if (to.getY() > world.getMaxHeight() - 2) {
+            to.setY(world.getMaxHeight() - 2);
+        }
+    }
+
+    /**
+     * Last resolved layer and block y-level of a player, reused across move events, and the layer the player was kept
+     * out of because it was not ready.
+     */
+    private static final class PlayerLayerState {
+        private World world;
+        private int blockY;
+        private int minY;
+        private int teleportMinBlockY;
+        private int teleportMaxBlockY;
+        private LayeredWorld blockedLayer;
+
+        void update(World world, LayeredWorld layer, int blockY) {
+            if (blockedLayer != null && blockedLayer.isReady()) {
+                blockedLayer = null;
+            }
+            this.world = world;
+            this.blockY = blockY;
+            this.minY = layer.getMinY();
+            // Thresholds in the local coordinates of the world.
+            this.teleportMinBlockY = layer.getTeleportMinY() - layer.getMinY();
+            this.teleportMaxBlockY = layer.getTeleportMaxY() - layer.getMinY();
+        }
+
+        /**
+         * Whether a move to the given world and block y-level can be skipped. Moves onto a threshold block are never
+         * skipped, as the fractional y-level decides whether the player crosses it.
+         */
+        boolean isUnchanged(World world, int blockY) {
+            return this.world == world && this.blockY == blockY
+                    && blockY > teleportMinBlockY && blockY < teleportMaxBlockY;
+        }
+    }
+}
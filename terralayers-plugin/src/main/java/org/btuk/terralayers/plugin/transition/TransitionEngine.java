@@ -0,0 +1,252 @@
+package org.btuk.terralayers.plugin.transition;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.btuk.terralayers.plugin.metrics.TerraLayersMetrics;
+import org.btuk.terralayers.plugin.prefetch.LayerPrefetcher;
+import org.btuk.terralayers.plugin.scheduler.FoliaSupport;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Moves players between layers with asynchronous teleports, instead of changing the destination of their move.
+ * <p>
+ * Players crossing a layer boundary are queued and teleported once per tick. The queued players are grouped per target
+ * layer, the destination chunks of a group are loaded together and the players are teleported once they are loaded.
+ * At most the configured number of players is teleported per tick, the others stay queued in the buffer of their
+ * current layer. The velocity and flight state of a player are restored after the teleport.
+ * <p>
+ * On Folia, a player can only be read and teleported from the region thread owning it, so every transition is
+ * resolved and started from the entity scheduler of the player instead of being grouped per layer.
+ */
+public final class TransitionEngine {
+
+    private final Plugin plugin;
+    private final LayerManager layerManager;
+    private final TerraLayersMetrics metrics;
+    private final LayerPrefetcher prefetcher;
+
+    private final Map<UUID, Player> queued = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Set<UUID> teleporting = ConcurrentHashMap.newKeySet();
+
+    private int maxPerTick;
+    private ScheduledTask task;
+
+    private record Transition(Player player, LayeredWorld from, LayeredWorld to, Location destination,
+                              Vector velocity, boolean flying, boolean gliding) {
+    }
+
+    public TransitionEngine(Plugin plugin, LayerManager layerManager, TerraLayersMetrics metrics, LayerPrefetcher prefetcher, int maxPerTick) {
+        this.plugin = plugin;
+        this.layerManager = layerManager;
+        this.metrics = metrics;
+        this.prefetcher = prefetcher;
+        configure(maxPerTick);
+    }
+
+    /**
+     * Updates the settings.
+     *
+     * @param maxPerTick the maximum number of players teleported per tick
+     */
+    public void configure(int maxPerTick) {
+        this.maxPerTick = Math.max(1, maxPerTick);
+    }
+
+    public void start() {
+        if (task == null) {
+            task = plugin.getServer().getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> tick(), 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        clear();
+    }
+
+    /**
+     * Queues a player for a teleport to the layer at their current global y-level.
+     * The target is resolved again when the player is teleported.
+     *
+     * @param player the player
+     */
+    public void queue(Player player) {
+        if (!teleporting.contains(player.getUniqueId())) {
+            queued.putIfAbsent(player.getUniqueId(), player);
+        }
+    }
+
+    /**
+     * Whether the player is being teleported by this engine, its teleport events should be left alone.
+     *
+     * @param uuid the player's uuid
+     */
+    public boolean isTeleporting(UUID uuid) {
+        return teleporting.contains(uuid);
+    }
+
+    public void forget(Player player) {
+        queued.remove(player.getUniqueId());
+        teleporting.remove(player.getUniqueId());
+    }
+
+    public void clear() {
+        queued.clear();
+        teleporting.clear();
+    }
+
+    private void tick() {
+        if (queued.isEmpty()) {
+            return;
+        }
+        if (FoliaSupport.isFolia()) {
+            for (Player player : poll(maxPerTick)) {
+                player.getScheduler().run(plugin, scheduled -> {
+                    Transition transition = resolve(player);
+                    if (transition != null) {
+                        teleportGroup(List.of(transition));
+                    }
+                }, null);
+            }
+            return;
+        }
+        Map<LayeredWorld, List<Transition>> byLayer = new LinkedHashMap<>();
+        int count = 0;
+        synchronized (queued) {
+            Iterator<Player> iterator = queued.values().iterator();
+            while (iterator.hasNext() && count < maxPerTick) {
+                Player player = iterator.next();
+                iterator.remove();
+                Transition transition = resolve(player);
+                if (transition != null) {
+                    byLayer.computeIfAbsent(transition.to(), layer -> new ArrayList<>()).add(transition);
+                    count++;
+                }
+            }
+        }
+        byLayer.values().forEach(this::teleportGroup);
+    }
+
+    /**
+     * Removes up to the given number of players from the queue, in the order they were queued.
+     */
+    private List<Player> poll(int max) {
+        List<Player> players = new ArrayList<>();
+        synchronized (queued) {
+            Iterator<Player> iterator = queued.values().iterator();
+            while (iterator.hasNext() && players.size() < max) {
+                players.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        return players;
+    }
+
+    /**
+     * Resolves the target of a queued player from their current position.
+     *
+     * @return the transition, or {@code null} if the player no longer needs to change layers
+     */
+    private Transition resolve(Player player) {
+        if (!player.isOnline()) {
+            return null;
+        }
+        Location location = player.getLocation();
+        LayeredWorld current = layerManager.getLayerForWorld(location.getWorld());
+        if (current == null) {
+            return null;
+        }
+        double globalY = location.getY() + current.getMinY();
+        if (globalY >= current.getTeleportMinY() && globalY <= current.getTeleportMaxY()) {
+            // The player moved back before the teleport.
+            return null;
+        }
+        LayeredWorld target = layerManager.getLayerForGlobalY(globalY).orElse(null);
+        if (target == null || target == current) {
+            return null;
+        }
+        World world = target.getWorld();
+        if (world == null || !target.isReady()) {
+            // The move handler keeps the player in the current layer until the target has been loaded.
+            layerManager.loadLayer(target);
+            return null;
+        }
+        Location destination = new Location(world, location.getX(), globalY - target.getMinY(), location.getZ(), location.getYaw(), location.getPitch());
+        return new Transition(player, current, target, destination, player.getVelocity(), player.isFlying(), player.isGliding());
+    }
+
+    private void teleportGroup(List<Transition> transitions) {
+        // Load the destination chunks of the group together, so every teleport completes without waiting.
+        Map<Long, CompletableFuture<Chunk>> chunks = new HashMap<>();
+        for (Transition transition : transitions) {
+            Location destination = transition.destination();
+            int chunkX = destination.getBlockX() >> 4;
+            int chunkZ = destination.getBlockZ() >> 4;
+            chunks.computeIfAbsent(Chunk.getChunkKey(chunkX, chunkZ), key -> destination.getWorld().getChunkAtAsync(chunkX, chunkZ));
+            teleporting.add(transition.player().getUniqueId());
+        }
+        CompletableFuture.allOf(chunks.values().toArray(new CompletableFuture[0]))
+                .whenComplete((result, error) -> transitions.forEach(this::dispatch));
+    }
+
+    private void dispatch(Transition transition) {
+        if (!FoliaSupport.isFolia()) {
+            teleport(transition);
+            return;
+        }
+        // On Folia the chunks complete on the thread of the destination region, the player belongs to its own region.
+        Player player = transition.player();
+        player.getScheduler().run(plugin, scheduled -> teleport(transition), null);
+    }
+
+    private void teleport(Transition transition) {
+        Player player = transition.player();
+        if (!teleporting.contains(player.getUniqueId()) || !player.isOnline()) {
+            return;
+        }
+        player.teleportAsync(transition.destination(), PlayerTeleportEvent.TeleportCause.PLUGIN).whenComplete((success, error) -> {
+            teleporting.remove(player.getUniqueId());
+            if (error != null || !Boolean.TRUE.equals(success)) {
+                plugin.getLogger().warning("Failed to move " + player.getName() + " to layer " + transition.to().getName()
+                        + (error != null ? ": " + error.getMessage() : ""));
+                return;
+            }
+            // Changing worlds resets the movement of the player, continue where they left off.
+            player.setVelocity(transition.velocity());
+            if (transition.flying() && player.getAllowFlight()) {
+                player.setFlying(true);
+            }
+            if (transition.gliding()) {
+                player.setGliding(true);
+            }
+            metrics.recordTransition(player, transition.from(), transition.to());
+            prefetcher.onTransition(player);
+            if (plugin.getLogger().isLoggable(Level.FINE)) {
+                plugin.getLogger().fine("Player " + player.getName() + " teleported from layer " + transition.from().getName()
+                        + " to layer " + transition.to().getName() + " at y=" + transition.destination().getY());
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package org.btuk.terralayers.plugin.edit;
+
+import org.btuk.terralayers.api.LayeredWorld;
+import org.bukkit.Chunk;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UndoEditPartTest {
+
+    private static final LayeredWorld LAYER = proxy(LayeredWorld.class, (method, args) -> switch (method) {
+        case "getName" -> "layer_0";
+        default -> throw new UnsupportedOperationException(method);
+    });
+
+    private final BlockData stone = blockData("stone");
+    private final BlockData dirt = blockData("dirt");
+    private final BlockData gold = blockData("gold_block");
+
+    /**
+     * The blocks of a layer world, blocks that were never set are stone.
+     */
+    private final Map<List<Integer>, BlockData> blocks = new HashMap<>();
+
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(UndoEditPartTest.class.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+                switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    default -> handler.invoke(method.getName(), args);
+                });
+    }
+
+    private static BlockData blockData(String name) {
+        return proxy(BlockData.class, (method, args) -> switch (method) {
+            case "toString", "getAsString" -> name;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private Chunk chunk(int chunkX, int chunkZ) {
+        return proxy(Chunk.class, (method, args) -> switch (method) {
+            case "getX" -> chunkX;
+            case "getZ" -> chunkZ;
+            case "getBlock" -> block((chunkX << 4) + (int) args[0], (int) args[1], (chunkZ << 4) + (int) args[2]);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private Block block(int x, int y, int z) {
+        List<Integer> position = List.of(x, y, z);
+        return proxy(Block.class, (method, args) -> switch (method) {
+            case "getBlockData" -> blocks.getOrDefault(position, stone);
+            case "setBlockData" -> {
+                blocks.put(position, (BlockData) args[0]);
+                yield null;
+            }
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private void run(EditPart part, EditTask task) {
+        while (!part.isDone()) {
+            part.apply(chunk(part.getChunkX(), part.getChunkZ()), 100, task);
+        }
+    }
+
+    @Test
+    void undoRestoresBlocksInTheUpperLayerBuffer() {
+        // Layer worlds reach up to y 1279, above the y range of Paper block keys.
+        blocks.put(List.of(-17, 1279, 3), dirt);
+        RegionEditPart edit = new RegionEditPart(LAYER, EditOperation.fill(gold), -17, 510, 2, -15, 1279, 3);
+        EditTask task = new EditTask(null, "fill", List.of(edit), 1_000_000);
+        run(edit, task);
+
+        assertEquals(3L * 770 * 2, task.getChangedBlocks());
+        assertEquals(gold, blocks.get(List.of(-16, 1000, 2)));
+        assertTrue(task.isUndoAvailable());
+
+        Map<List<Integer>, BlockData> edited = Map.copyOf(blocks);
+        EditTask undoTask = new EditTask(null, "undo", List.of(), 0);
+        run(new UndoEditPart(LAYER, edit.getUndo()), undoTask);
+
+        assertEquals(edited.size(), undoTask.getChangedBlocks());
+        assertEquals(dirt, blocks.get(List.of(-17, 1279, 3)));
+        for (Map.Entry<List<Integer>, BlockData> block : blocks.entrySet()) {
+            if (!block.getKey().equals(List.of(-17, 1279, 3))) {
+                assertEquals(stone, block.getValue(), block.getKey().toString());
+            }
+        }
+    }
+
+    @Test
+    void positionsCoverTheWorldBorderAndLayerHeight() {
+        UndoBuffer undo = new UndoBuffer();
+        int[][] positions = {{29_999_999, 1279, -29_999_999}, {-29_999_999, -256, 29_999_999}, {0, 2047, -1}, {-1, -2048, 0}};
+        for (int[] position : positions) {
+            undo.record(position[0], position[1], position[2], stone);
+        }
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(positions[i][0], undo.getX(i));
+            assertEquals(positions[i][1], undo.getY(i));
+            assertEquals(positions[i][2], undo.getZ(i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> undo.record(0, 2048, 0, stone));
+    }
+}
@@ -0,0 +1,203 @@
+package org.btuk.terralayers.plugin.impl;
+
+import org.btuk.terralayers.api.LayerManager;
+import org.btuk.terralayers.api.LayeredWorld;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LayerIndexTest {
+
+    private static final int GLOBAL_MIN = -512;
+    private static final int WORLD_HEIGHT = 256;
+    private static final int BUFFER_SIZE = 32;
+    private static final int LAYER_COUNT = 4;
+
+    private final List<LayeredWorld> layers = createLayers(GLOBAL_MIN, LAYER_COUNT);
+    private final LayerIndex index = new LayerIndex(GLOBAL_MIN, WORLD_HEIGHT, BUFFER_SIZE, layers);
+
+    private static List<LayeredWorld> createLayers(int globalMin, int count) {
+        List<LayeredWorld> layers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int minY = globalMin + i * WORLD_HEIGHT;
+            layers.add(new SimpleLayeredWorld("layer_" + minY + "_" + (minY + WORLD_HEIGHT), minY, minY + WORLD_HEIGHT, BUFFER_SIZE));
+        }
+        return layers;
+    }
+
+    @Test
+    void coversTheLayersFromGlobalMin() {
+        assertEquals(GLOBAL_MIN, index.getGlobalMin());
+        assertEquals(GLOBAL_MIN + LAYER_COUNT * WORLD_HEIGHT, index.getGlobalMax());
+        assertEquals(LAYER_COUNT, index.size());
+        assertEquals(layers, index.getLayers());
+    }
+
+    @Test
+    void indexOfBoundaries() {
+        assertEquals(0, index.indexOf(-512.0));
+        assertEquals(0, index.indexOf(-256.5));
+        assertEquals(1, index.indexOf(-256.0));
+        assertEquals(2, index.indexOf(0.0));
+        assertEquals(3, index.indexOf(511.999));
+    }
+
+    @Test
+    void indexOfFloorsNegativeY() {
+        // Truncating instead of flooring would put these in the layer above.
+        assertEquals(1, index.indexOf(-0.5));
+        assertEquals(1, index.indexOf(-1e-9));
+        assertEquals(0, index.indexOf(-256.0001));
+    }
+
+    @Test
+    void indexOfOutsideTheLayers() {
+        assertEquals(-1, index.indexOf(-512.0001));
+        assertEquals(-1, index.indexOf(512.0));
+        assertEquals(-1, index.indexOf(Double.NaN));
+        assertEquals(-1, index.indexOf(Double.NEGATIVE_INFINITY));
+        assertEquals(-1, index.indexOf(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void indexOfLayer() {
+        for (int i = 0; i < LAYER_COUNT; i++) {
+            assertEquals(i, index.indexOf(layers.get(i)));
+        }
+        assertEquals(-1, index.indexOf(new SimpleLayeredWorld("other", -256, 0, BUFFER_SIZE)));
+        assertEquals(-1, index.indexOf(new SimpleLayeredWorld("below", -768, -512, BUFFER_SIZE)));
+        assertEquals(-1, index.indexOf(new SimpleLayeredWorld("above", 512, 768, BUFFER_SIZE)));
+    }
+
+    @Test
+    void toLocalAndGlobalY() {
+        assertEquals(0.0, index.toLocalY(-512.0));
+        assertEquals(255.5, index.toLocalY(-0.5));
+        assertEquals(0.0, index.toLocalY(0.0));
+        assertTrue(Double.isNaN(index.toLocalY(512.0)));
+
+        assertEquals(-0.5, index.toGlobalY(1, 255.5));
+        assertEquals(-544.0, index.toGlobalY(0, -32.0));
+        assertTrue(Double.isNaN(index.toGlobalY(-1, 0.0)));
+        assertTrue(Double.isNaN(index.toGlobalY(LAYER_COUNT, 0.0)));
+    }
+
+    @Test
+    void getOutOfRange() {
+        assertSame(layers.get(2), index.get(2));
+        assertNull(index.get(-1));
+        assertNull(index.get(LAYER_COUNT));
+        assertSame(layers.get(3), index.getOptional(3).orElseThrow());
+        assertFalse(index.getOptional(LAYER_COUNT).isPresent());
+        assertSame(layers.get(1), index.getByName(layers.get(1).getName()));
+    }
+
+    @Test
+    void emptyIndex() {
+        LayerIndex empty = LayerIndex.empty(WORLD_HEIGHT, BUFFER_SIZE);
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.indexOf(0.0));
+        assertTrue(Double.isNaN(empty.toLocalY(0.0)));
+    }
+
+    @Test
+    void rejectsLayersThatDoNotLineUp() {
+        List<LayeredWorld> gap = new ArrayList<>(layers);
+        gap.set(1, new SimpleLayeredWorld("gap", -240, 16, BUFFER_SIZE));
+        assertThrows(IllegalArgumentException.class, () -> new LayerIndex(GLOBAL_MIN, WORLD_HEIGHT, BUFFER_SIZE, gap));
+
+        List<LayeredWorld> buffer = new ArrayList<>(layers);
+        buffer.set(1, new SimpleLayeredWorld("buffer", -256, 0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new LayerIndex(GLOBAL_MIN, WORLD_HEIGHT, BUFFER_SIZE, buffer));
+
+        assertThrows(IllegalArgumentException.class, () -> new LayerIndex(GLOBAL_MIN, 0, BUFFER_SIZE, List.of()));
+    }
+
+    @Test
+    void bulkToLocalDoubles() {
+        double[] globalYs = {99, -512.0, -0.5, 0.0, 511.5, 512.0, Double.NaN};
+        int[] indices = new int[8];
+        double[] localYs = new double[8];
+        index.toLocal(globalYs, 1, 6, indices, localYs, 2);
+
+        assertArrayEquals(new int[]{0, 0, 0, 1, 2, 3, -1, -1}, indices);
+        assertEquals(0.0, localYs[2]);
+        assertEquals(255.5, localYs[3]);
+        assertEquals(0.0, localYs[4]);
+        assertEquals(255.5, localYs[5]);
+        assertTrue(Double.isNaN(localYs[6]));
+        assertTrue(Double.isNaN(localYs[7]));
+    }
+
+    @Test
+    void bulkToLocalInts() {
+        int[] globalYs = {-513, -512, -257, -256, -1, 0, 511, 512};
+        int[] indices = new int[globalYs.length];
+        int[] localYs = new int[globalYs.length];
+        index.toLocal(globalYs, 0, globalYs.length, indices, localYs, 0);
+
+        assertArrayEquals(new int[]{-1, 0, 0, 1, 1, 2, 3, -1}, indices);
+        assertArrayEquals(new int[]{0, 0, 255, 0, 255, 0, 255, 0}, localYs);
+    }
+
+    @Test
+    void bulkToLocalPacked() {
+        int[] globalYs = {-513, -257, -1, 0, 512};
+        long[] packed = new long[globalYs.length];
+        index.toLocalPacked(globalYs, 0, globalYs.length, packed, 0);
+
+        assertArrayEquals(new long[]{LayerManager.pack(-1, 0), LayerManager.pack(0, 255), LayerManager.pack(1, 255),
+                LayerManager.pack(2, 0), LayerManager.pack(-1, 0)}, packed);
+        assertEquals(1, LayerManager.unpackLayerIndex(packed[2]));
+        assertEquals(255, LayerManager.unpackLocalY(packed[2]));
+        assertEquals(-1, LayerManager.unpackLayerIndex(packed[0]));
+    }
+
+    @Test
+    void bulkToGlobal() {
+        int[] indices = {0, 1, 3, -1, 4};
+        int[] localYs = {-32, 255, 287, 0, 0};
+        int[] globalYs = new int[indices.length];
+        index.toGlobal(indices, localYs, 0, indices.length, globalYs, 0);
+        assertArrayEquals(new int[]{-544, -1, 543, Integer.MIN_VALUE, Integer.MIN_VALUE}, globalYs);
+
+        double[] doubleLocalYs = {-32, 255.5, 287, 0, 0};
+        double[] doubleGlobalYs = new double[indices.length];
+        index.toGlobal(indices, doubleLocalYs, 0, indices.length, doubleGlobalYs, 0);
+        assertEquals(-544.0, doubleGlobalYs[0]);
+        assertEquals(-0.5, doubleGlobalYs[1]);
+        assertEquals(543.0, doubleGlobalYs[2]);
+        assertTrue(Double.isNaN(doubleGlobalYs[3]));
+        assertTrue(Double.isNaN(doubleGlobalYs[4]));
+    }
+
+    @Test
+    void bulkRoundTrip() {
+        int[] globalYs = new int[1024];
+        for (int i = 0; i < globalYs.length; i++) {
+            globalYs[i] = GLOBAL_MIN + i;
+        }
+        long[] packed = new long[globalYs.length];
+        int[] result = new int[globalYs.length];
+        index.toLocalPacked(globalYs, 0, globalYs.length, packed, 0);
+        index.toGlobalPacked(packed, 0, packed.length, result, 0);
+        assertArrayEquals(globalYs, result);
+    }
+
+    @Test
+    void bulkChecksBounds() {
+        assertThrows(IndexOutOfBoundsException.class, () -> index.toLocal(new int[4], 2, 3, new int[4], new int[4], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.toLocal(new int[4], 0, 4, new int[4], new int[3], 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.toLocalPacked(new int[4], 0, 4, new long[4], 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.toGlobalPacked(new long[4], -1, 2, new int[4], 0));
+    }
+}
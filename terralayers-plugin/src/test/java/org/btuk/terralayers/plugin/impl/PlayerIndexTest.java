@@ -0,0 +1,118 @@
+package org.btuk.terralayers.plugin.impl;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayerIndexTest {
+
+    private final PlayerIndex index = new PlayerIndex();
+
+    private static Player player(String name) {
+        UUID uuid = UUID.randomUUID();
+        return (Player) Proxy.newProxyInstance(PlayerIndexTest.class.getClassLoader(), new Class<?>[]{Player.class}, (self, method, args) ->
+                switch (method.getName()) {
+                    case "getUniqueId" -> uuid;
+                    case "getName", "toString" -> name;
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void findsPlayersWithinTheRadius() {
+        Player near = player("near");
+        Player far = player("far");
+        Player above = player("above");
+        index.update(near, 10, 64, 10);
+        index.update(far, 100, 64, 10);
+        index.update(above, 10, 2064, 10);
+
+        assertEquals(List.of(near), index.getNear(0, 64, 0, 20));
+        assertEquals(Set.of(near, far), Set.copyOf(index.getNear(50, 64, 10, 50)));
+        // The distance includes the global y, players in other layers are far away.
+        assertEquals(List.of(above), index.getNear(10, 2000, 10, 100));
+    }
+
+    @Test
+    void findsPlayersAcrossCellBoundaries() {
+        Player west = player("west");
+        Player east = player("east");
+        Player down = player("down");
+        index.update(west, -0.5, 0, 0);
+        index.update(east, 0.5, 0, 0);
+        index.update(down, 0, -32.25, 0);
+
+        assertEquals(Set.of(west, east), Set.copyOf(index.getNear(0, 0, 0, 1)));
+        assertEquals(Set.of(west, east, down), Set.copyOf(index.getNear(0, -16, 0, 40)));
+        assertEquals(List.of(down), index.getNear(0, -32, 0, 0.5));
+    }
+
+    @Test
+    void movedPlayersAreFoundAtTheirNewPosition() {
+        Player player = player("player");
+        index.update(player, 0, 0, 0);
+        index.update(player, 5, 0, 0);
+        assertEquals(List.of(player), index.getNear(5, 0, 0, 1));
+
+        index.update(player, -500, -300, 700);
+        assertTrue(index.getNear(5, 0, 0, 100).isEmpty());
+        assertEquals(List.of(player), index.getNear(-500, -300, 700, 1));
+    }
+
+    @Test
+    void findsPlayersInsideABox() {
+        Player inside = player("inside");
+        Player outside = player("outside");
+        index.update(inside, -40, 100, 40);
+        index.update(outside, -40, 200, 40);
+
+        assertEquals(List.of(inside), index.getWithin(-50, 0, 50, -30, 150, 30));
+        assertEquals(Set.of(inside, outside), Set.copyOf(index.getWithin(-40, 100, 40, -40, 200, 40)));
+    }
+
+    @Test
+    void largeQueriesVisitTheOccupiedCells() {
+        Player first = player("first");
+        Player second = player("second");
+        index.update(first, 29_000_000, 10_000, -29_000_000);
+        index.update(second, -29_000_000, -10_000, 29_000_000);
+
+        List<Player> found = index.getNear(0, 0, 0, 50_000_000);
+        assertEquals(2, found.size());
+        assertEquals(Set.of(first, second), Set.copyOf(found));
+        assertEquals(List.of(first), index.getWithin(0, 0, -30_000_000, 30_000_000, 20_000, 0));
+    }
+
+    @Test
+    void removedPlayersAreNotFound() {
+        Player first = player("first");
+        Player second = player("second");
+        index.update(first, 0, 0, 0);
+        index.update(second, 1, 0, 0);
+
+        index.remove(first);
+        assertEquals(List.of(second), index.getNear(0, 0, 0, 10));
+        index.remove(first);
+
+        index.clear();
+        assertTrue(index.getNear(0, 0, 0, 10).isEmpty());
+        index.update(first, 0, 0, 0);
+        assertEquals(List.of(first), index.getNear(0, 0, 0, 10));
+    }
+
+    @Test
+    void invalidQueriesFindNothing() {
+        index.update(player("player"), 0, 0, 0);
+        assertTrue(index.getNear(Double.NaN, 0, 0, 10).isEmpty());
+        assertTrue(index.getNear(0, 0, 0, -1).isEmpty());
+    }
+}
@@ -0,0 +1,46 @@
+package org.btuk.terralayers.plugin.pregen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PregenProgressTest {
+
+    @Test
+    void resumesAtTheFirstChunkInFlight() {
+        PregenProgress progress = new PregenProgress(10);
+        assertEquals(10, progress.getResumePosition());
+
+        long first = progress.request();
+        long second = progress.request();
+        assertEquals(10, first);
+        assertEquals(2, progress.getInFlight());
+
+        progress.completed(second);
+        assertEquals(10, progress.getResumePosition());
+        progress.completed(first);
+        assertEquals(12, progress.getResumePosition());
+        assertEquals(0, progress.getInFlight());
+    }
+
+    @Test
+    void resumesAtTheFirstFailedChunk() {
+        PregenProgress progress = new PregenProgress(0);
+        for (int i = 0; i < 5; i++) {
+            progress.request();
+        }
+
+        progress.failed(2);
+        progress.completed(0);
+        progress.completed(1);
+        progress.completed(3);
+        progress.completed(4);
+        // The failed chunk is no longer in flight, but has not been generated.
+        assertEquals(0, progress.getInFlight());
+        assertEquals(2, progress.getResumePosition());
+
+        // Later failures keep the position at the first failed chunk.
+        progress.failed(progress.request());
+        assertEquals(2, progress.getResumePosition());
+    }
+}
@@ -0,0 +1,74 @@
+package org.btuk.terralayers.plugin.pregen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PregenRegionTest {
+
+    @Test
+    void betweenCoversTheChunksOfBothCorners() {
+        PregenRegion region = PregenRegion.between(15, -1, -17, 32, 5, 2);
+
+        assertEquals(new PregenRegion(-2, -1, 0, 2, 2, 5), region);
+        assertEquals(4, region.getLayerCount());
+        assertEquals(12, region.getColumnCount());
+        assertEquals(48, region.getChunkCount());
+    }
+
+    @Test
+    void chunksOfAColumnAreNumberedTogether() {
+        PregenRegion region = new PregenRegion(-1, -1, 1, 0, 3, 5);
+
+        // The same chunk in all layers first, then along x, then along z.
+        for (int chunk = 0; chunk < 3; chunk++) {
+            assertEquals(3 + chunk, region.getLayer(chunk));
+            assertEquals(-1, region.getChunkX(chunk));
+            assertEquals(-1, region.getChunkZ(chunk));
+        }
+        assertEquals(3, region.getLayer(3));
+        assertEquals(0, region.getChunkX(3));
+        assertEquals(-1, region.getChunkZ(3));
+        assertEquals(-1, region.getChunkX(9));
+        assertEquals(0, region.getChunkZ(9));
+
+        long last = region.getChunkCount() - 1;
+        assertEquals(5, region.getLayer(last));
+        assertEquals(1, region.getChunkX(last));
+        assertEquals(0, region.getChunkZ(last));
+    }
+
+    @Test
+    void everyChunkHasItsOwnNumber() {
+        PregenRegion region = new PregenRegion(-3, 4, 2, 7, 0, 2);
+        Set<List<Integer>> chunks = new HashSet<>();
+        for (long chunk = 0; chunk < region.getChunkCount(); chunk++) {
+            int x = region.getChunkX(chunk);
+            int z = region.getChunkZ(chunk);
+            int layer = region.getLayer(chunk);
+            assertTrue(x >= region.minChunkX() && x <= region.maxChunkX());
+            assertTrue(z >= region.minChunkZ() && z <= region.maxChunkZ());
+            assertTrue(layer >= region.fromLayer() && layer <= region.toLayer());
+            assertTrue(chunks.add(List.of(x, z, layer)));
+        }
+        assertEquals(region.getChunkCount(), chunks.size());
+    }
+
+    @Test
+    void largeRegionsDoNotOverflow() {
+        // The whole world border in 64 layers.
+        PregenRegion region = PregenRegion.between(-29_999_984, -29_999_984, 29_999_984, 29_999_984, 0, 63);
+
+        assertEquals(3_749_999L * 3_749_999L, region.getColumnCount());
+        assertEquals(3_749_999L * 3_749_999L * 64, region.getChunkCount());
+        long last = region.getChunkCount() - 1;
+        assertEquals(63, region.getLayer(last));
+        assertEquals(region.maxChunkX(), region.getChunkX(last));
+        assertEquals(region.maxChunkZ(), region.getChunkZ(last));
+    }
+}